@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.exchange.Exchange;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Binary cache of the loaded catalogs: assets, exchanges and their resolved {@link com.fibonsai.exsim.dto.AssetPair}
+ * sets. A cache file is keyed by the SHA-256 of the source resources, so editing any of them invalidates it.
+ * <pre>
+ * [int magic][int version][32 bytes key][int payload length][payload]
+ * </pre>
+ * The payload is a {@link Catalog} encoded by {@link CatalogCodec}, read straight from the memory-mapped file.
+ */
+@Slf4j
+public final class CatalogCache {
+
+    private static final int MAGIC = 0x45584343;
+    private static final int VERSION = 2;
+    private static final String PREFIX = "catalog-";
+    private static final String SUFFIX = ".bin";
+
+    public record Catalog(List<Asset> assets, List<Exchange> exchanges) {
+    }
+
+    private final Path dir;
+
+    public CatalogCache(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * SHA-256 of the named class path resources, in order. A missing resource is hashed as absent.
+     */
+    public static byte[] key(ClassLoader classLoader, String... resources) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[1 << 16];
+            for (String resource : resources) {
+                digest.update(resource.getBytes(StandardCharsets.UTF_8));
+                try (InputStream in = classLoader.getResourceAsStream(resource)) {
+                    if (in == null) {
+                        digest.update((byte) 0);
+                        continue;
+                    }
+                    digest.update((byte) 1);
+                    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                        digest.update(buffer, 0, read);
+                    }
+                }
+            }
+            return digest.digest();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the cached catalog for {@code key}, empty if there is none or it cannot be read
+     */
+    public Optional<Catalog> load(byte[] key) {
+        Path file = file(key);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] fileKey = new byte[key.length];
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported catalog cache format");
+            }
+            buffer.get(fileKey);
+            if (!MessageDigest.isEqual(key, fileKey)) {
+                throw new IOException("Catalog cache key mismatch");
+            }
+            int length = buffer.getInt();
+            if (length != buffer.remaining()) {
+                throw new IOException("Catalog cache truncated");
+            }
+            return Optional.of((Catalog) CatalogCodec.decode(buffer));
+        } catch (IOException | ClassCastException e) {
+            log.warn("Catalog cache {} not loaded: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the catalog for {@code key} and deletes the caches of other keys.
+     */
+    public void store(byte[] key, Catalog catalog) throws IOException {
+        Files.createDirectories(dir);
+        byte[] payload = CatalogCodec.encode(catalog);
+        Path file = file(key);
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(key);
+            out.writeInt(payload.length);
+            out.write(payload);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path other : files.filter(this::isCacheFile).filter(other -> !other.equals(file)).toList()) {
+                Files.deleteIfExists(other);
+            }
+        }
+        log.info("Catalog cache {} written: {} assets, {} exchanges, {} bytes", file, catalog.assets().size(),
+                catalog.exchanges().size(), payload.length);
+    }
+
+    private Path file(byte[] key) {
+        return dir.resolve(PREFIX + HexFormat.of().formatHex(key) + SUFFIX);
+    }
+
+    private boolean isCacheFile(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.startsWith(PREFIX) && fileName.endsWith(SUFFIX);
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.asset.AssetRef;
+import com.fibonsai.exsim.dto.asset.AssetType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact tagged encoding of catalog records. Records are written component by component in declaration order and
+ * rebuilt through their canonical constructor; a record already written (an asset shared by many pairs) is written
+ * again as a back reference. Class and string names are written once and then referenced by index.
+ * {@link AssetRef}s are written without their id, which is only valid in the process, and interned again on read.
+ * Only records and enums of {@code com.fibonsai.exsim} are decoded.
+ */
+final class CatalogCodec {
+
+    private static final String ALLOWED_PACKAGE = "com.fibonsai.exsim.";
+
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DECIMAL = 5;
+    private static final byte BIG_DECIMAL = 6;
+    private static final byte STRING = 7;
+    private static final byte STRING_REF = 8;
+    private static final byte LIST = 9;
+    private static final byte SET = 10;
+    private static final byte MAP = 11;
+    private static final byte ENUM = 12;
+    private static final byte RECORD = 13;
+    private static final byte RECORD_REF = 14;
+    private static final byte ASSET_REF = 15;
+
+    private CatalogCodec() {
+    }
+
+    static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            new Encoder(out).write(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Object decode(ByteBuffer buffer) throws IOException {
+        try {
+            return new Decoder(buffer).read();
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted catalog cache: " + e, e);
+        }
+    }
+
+    private static final class Encoder {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+        private final Map<Object, Integer> records = new IdentityHashMap<>();
+        private final Map<Class<?>, Method[]> accessors = new HashMap<>();
+
+        private Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void write(Object value) throws IOException {
+            switch (value) {
+                case null -> out.writeByte(NULL);
+                case Boolean b -> out.writeByte(b ? TRUE : FALSE);
+                case Integer i -> {
+                    out.writeByte(INT);
+                    out.writeInt(i);
+                }
+                case Long l -> {
+                    out.writeByte(LONG);
+                    out.writeLong(l);
+                }
+                case BigDecimal decimal when decimal.unscaledValue().bitLength() < Long.SIZE -> {
+                    out.writeByte(DECIMAL);
+                    out.writeLong(decimal.unscaledValue().longValue());
+                    out.writeInt(decimal.scale());
+                }
+                case BigDecimal decimal -> {
+                    byte[] unscaled = decimal.unscaledValue().toByteArray();
+                    out.writeByte(BIG_DECIMAL);
+                    out.writeInt(unscaled.length);
+                    out.write(unscaled);
+                    out.writeInt(decimal.scale());
+                }
+                case String s -> writeString(s);
+                case List<?> list -> {
+                    out.writeByte(LIST);
+                    out.writeInt(list.size());
+                    for (Object element : list) {
+                        write(element);
+                    }
+                }
+                case Set<?> set -> {
+                    out.writeByte(SET);
+                    out.writeInt(set.size());
+                    for (Object element : set) {
+                        write(element);
+                    }
+                }
+                case Map<?, ?> map -> {
+                    out.writeByte(MAP);
+                    out.writeInt(map.size());
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        write(entry.getKey());
+                        write(entry.getValue());
+                    }
+                }
+                case Enum<?> e -> {
+                    out.writeByte(ENUM);
+                    writeClass(e.getDeclaringClass());
+                    out.writeInt(e.ordinal());
+                }
+                case AssetRef ref -> writeAssetRef(ref);
+                case Record record -> writeRecord(record);
+                default -> throw new IOException("Unsupported catalog type " + value.getClass().getName());
+            }
+        }
+
+        private void writeRecord(Record record) throws IOException {
+            Integer index = records.get(record);
+            if (index != null) {
+                out.writeByte(RECORD_REF);
+                out.writeInt(index);
+                return;
+            }
+            out.writeByte(RECORD);
+            writeClass(record.getClass());
+            for (Method accessor : accessors.computeIfAbsent(record.getClass(), type ->
+                    Arrays.stream(type.getRecordComponents()).map(RecordComponent::getAccessor).toArray(Method[]::new))) {
+                try {
+                    write(accessor.invoke(record));
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IOException("Cannot read " + accessor, e);
+                }
+            }
+            records.put(record, records.size());
+        }
+
+        private void writeAssetRef(AssetRef ref) throws IOException {
+            Integer index = records.get(ref);
+            if (index != null) {
+                out.writeByte(RECORD_REF);
+                out.writeInt(index);
+                return;
+            }
+            out.writeByte(ASSET_REF);
+            write(ref.symbol());
+            out.writeInt(ref.decimalPoints());
+            write(ref.type());
+            records.put(ref, records.size());
+        }
+
+        private void writeClass(Class<?> type) throws IOException {
+            Integer index = classes.get(type);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            classes.put(type, classes.size());
+            out.writeInt(-1);
+            out.writeUTF(type.getName());
+        }
+
+        private void writeString(String s) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.writeByte(STRING_REF);
+                out.writeInt(index);
+                return;
+            }
+            strings.put(s, strings.size());
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private final List<String> strings = new ArrayList<>();
+        private final List<Class<?>> classes = new ArrayList<>();
+        private final List<Object> records = new ArrayList<>();
+        private final Map<Class<?>, Constructor<?>> constructors = new HashMap<>();
+        private final Map<Class<?>, Object[]> constants = new HashMap<>();
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private Object read() throws IOException {
+            byte tag = buffer.get();
+            return switch (tag) {
+                case NULL -> null;
+                case TRUE -> Boolean.TRUE;
+                case FALSE -> Boolean.FALSE;
+                case INT -> buffer.getInt();
+                case LONG -> buffer.getLong();
+                case DECIMAL -> BigDecimal.valueOf(buffer.getLong(), buffer.getInt());
+                case BIG_DECIMAL -> new BigDecimal(new BigInteger(bytes(buffer.getInt())), buffer.getInt());
+                case STRING -> {
+                    String s = new String(bytes(buffer.getInt()), StandardCharsets.UTF_8);
+                    strings.add(s);
+                    yield s;
+                }
+                case STRING_REF -> strings.get(buffer.getInt());
+                case LIST -> {
+                    int size = size();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(read());
+                    }
+                    yield list;
+                }
+                case SET -> {
+                    int size = size();
+                    Set<Object> set = HashSet.newHashSet(size);
+                    for (int i = 0; i < size; i++) {
+                        set.add(read());
+                    }
+                    yield set;
+                }
+                case MAP -> {
+                    int size = size();
+                    Map<Object, Object> map = LinkedHashMap.newLinkedHashMap(size);
+                    for (int i = 0; i < size; i++) {
+                        map.put(read(), read());
+                    }
+                    yield map;
+                }
+                case ENUM -> {
+                    Class<?> type = readClass();
+                    Object[] values = constants.computeIfAbsent(type, Class::getEnumConstants);
+                    if (values == null) {
+                        throw new IOException(type.getName() + " is not an enum");
+                    }
+                    yield values[buffer.getInt()];
+                }
+                case RECORD -> readRecord();
+                case RECORD_REF -> records.get(buffer.getInt());
+                case ASSET_REF -> {
+                    AssetRef ref = AssetRef.of((String) read(), buffer.getInt(), (AssetType) read());
+                    records.add(ref);
+                    yield ref;
+                }
+                default -> throw new IOException("Unknown catalog tag " + tag);
+            };
+        }
+
+        private Object readRecord() throws IOException {
+            Class<?> type = readClass();
+            Constructor<?> constructor = constructors.get(type);
+            if (constructor == null) {
+                if (!type.isRecord()) {
+                    throw new IOException(type.getName() + " is not a record");
+                }
+                try {
+                    constructor = type.getDeclaredConstructor(Arrays.stream(type.getRecordComponents())
+                            .map(RecordComponent::getType)
+                            .toArray(Class<?>[]::new));
+                } catch (NoSuchMethodException e) {
+                    throw new IOException("No canonical constructor for " + type.getName(), e);
+                }
+                constructors.put(type, constructor);
+            }
+            Object[] components = new Object[constructor.getParameterCount()];
+            for (int i = 0; i < components.length; i++) {
+                components[i] = read();
+            }
+            try {
+                Object record = constructor.newInstance(components);
+                records.add(record);
+                return record;
+            } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                throw new IOException("Cannot create " + type.getName(), e);
+            }
+        }
+
+        private Class<?> readClass() throws IOException {
+            int index = buffer.getInt();
+            if (index >= 0) {
+                return classes.get(index);
+            }
+            String name = readUTF();
+            if (!name.startsWith(ALLOWED_PACKAGE)) {
+                throw new IOException("Class not allowed in catalog cache: " + name);
+            }
+            try {
+                Class<?> type = Class.forName(name, false, CatalogCodec.class.getClassLoader());
+                classes.add(type);
+                return type;
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Unknown catalog class " + name, e);
+            }
+        }
+
+        private String readUTF() {
+            int length = Short.toUnsignedInt(buffer.getShort());
+            return new String(bytes(length), StandardCharsets.UTF_8);
+        }
+
+        private int size() throws IOException {
+            int size = buffer.getInt();
+            if (size < 0 || size > buffer.remaining()) {
+                throw new IOException("Invalid collection size " + size);
+            }
+            return size;
+        }
+
+        private byte[] bytes(int length) {
+            if (length < 0 || length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+    }
+}
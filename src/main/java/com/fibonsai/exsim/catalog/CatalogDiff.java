@@ -0,0 +1,94 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.dto.exchange.Exchange;
+
+import java.util.*;
+
+/**
+ * Difference between two {@link CatalogSnapshot}s. The pairs of a removed exchange are reported as removed, and the
+ * pairs of an added exchange as added. Assets are the symbols listed by at least one pair of the snapshot.
+ *
+ * @param addedPairs   pairs listed by the exchange only in the newer snapshot, by lower case internal name
+ * @param removedPairs pairs listed by the exchange only in the older snapshot, by lower case internal name
+ */
+public record CatalogDiff(long fromVersion, long toVersion, Set<String> addedExchanges, Set<String> removedExchanges,
+                          Map<String, Set<AssetPair>> addedPairs, Map<String, Set<AssetPair>> removedPairs,
+                          Set<String> addedAssets, Set<String> removedAssets) {
+
+    public static CatalogDiff of(CatalogSnapshot before, CatalogSnapshot after) {
+        Map<String, Exchange> older = before.exchanges();
+        Map<String, Exchange> newer = after.exchanges();
+        return new CatalogDiff(before.version(), after.version(),
+                difference(newer.keySet(), older.keySet()),
+                difference(older.keySet(), newer.keySet()),
+                pairsOnlyIn(newer, older),
+                pairsOnlyIn(older, newer),
+                difference(listedAssets(newer), listedAssets(older)),
+                difference(listedAssets(older), listedAssets(newer)));
+    }
+
+    public boolean isEmpty() {
+        return addedExchanges.isEmpty() && removedExchanges.isEmpty() && addedPairs.isEmpty() && removedPairs.isEmpty()
+                && addedAssets.isEmpty() && removedAssets.isEmpty();
+    }
+
+    /**
+     * @return the exchanges added, removed or with added or removed pairs
+     */
+    public Set<String> changedExchanges() {
+        Set<String> changed = new TreeSet<>(addedExchanges);
+        changed.addAll(removedExchanges);
+        changed.addAll(addedPairs.keySet());
+        changed.addAll(removedPairs.keySet());
+        return Collections.unmodifiableSet(changed);
+    }
+
+    private static Map<String, Set<AssetPair>> pairsOnlyIn(Map<String, Exchange> exchanges,
+                                                          Map<String, Exchange> others) {
+        Map<String, Set<AssetPair>> pairs = new TreeMap<>();
+        exchanges.forEach((name, exchange) -> {
+            Exchange other = others.get(name);
+            Set<AssetPair> only = difference(pairsOf(exchange), other == null ? Set.of() : pairsOf(other));
+            if (!only.isEmpty()) {
+                pairs.put(name, only);
+            }
+        });
+        return Collections.unmodifiableMap(pairs);
+    }
+
+    private static Set<AssetPair> pairsOf(Exchange exchange) {
+        return exchange.assetPairs() == null ? Set.of() : exchange.assetPairs();
+    }
+
+    private static Set<String> listedAssets(Map<String, Exchange> exchanges) {
+        Set<String> symbols = new HashSet<>();
+        for (Exchange exchange : exchanges.values()) {
+            for (AssetPair pair : pairsOf(exchange)) {
+                symbols.add(pair.baseAsset().symbol());
+                symbols.add(pair.quoteAsset().symbol());
+            }
+        }
+        return symbols;
+    }
+
+    private static <T> Set<T> difference(Set<T> set, Set<T> minus) {
+        Set<T> difference = new LinkedHashSet<>(set);
+        difference.removeAll(minus);
+        return Collections.unmodifiableSet(difference);
+    }
+}
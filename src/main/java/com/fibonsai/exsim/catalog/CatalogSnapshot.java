@@ -0,0 +1,71 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.exchange.Exchange;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the loaded exchange catalog. A snapshot is built completely, then published with a
+ * single volatile write, so readers holding it never lock and never see a partially loaded exchange.
+ *
+ * The order book routing is published with the pair indexes it was built for, so a pair id read from a snapshot
+ * always routes to the book of that pair, even while a reload shifts the pair ids.
+ *
+ * @param exchanges   frozen exchanges by lower case internal name, see {@link Exchange#frozen()}
+ * @param pairIndexes pair index by lower case internal name
+ * @param bookIds     order book id by pair id by lower case internal name, not modified once published
+ */
+public record CatalogSnapshot(long version, Map<String, Exchange> exchanges, Map<String, PairIndex> pairIndexes,
+                              ListingIndex listings, Map<String, int[]> bookIds) {
+
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(0L, Map.of(), Map.of(), ListingIndex.of(Map.of()),
+            Map.of());
+
+    /**
+     * Freezes the exchanges and indexes their pairs, without order book routing.
+     */
+    public static CatalogSnapshot of(long version, Map<String, Exchange> exchanges) {
+        Map<String, Exchange> frozen = new LinkedHashMap<>();
+        Map<String, PairIndex> pairIndexes = new LinkedHashMap<>();
+        exchanges.forEach((name, exchange) -> {
+            Exchange frozenExchange = exchange.frozen();
+            frozen.put(name, frozenExchange);
+            pairIndexes.put(name, PairIndex.of(frozenExchange.assetPairs()));
+        });
+        return new CatalogSnapshot(version, Collections.unmodifiableMap(frozen),
+                Collections.unmodifiableMap(pairIndexes), ListingIndex.of(pairIndexes), Map.of());
+    }
+
+    /**
+     * @param bookIds order book id by pair id of the pair indexes of this snapshot, by lower case internal name
+     * @return this snapshot routing its pair ids to the given order books
+     */
+    public CatalogSnapshot withBookIds(Map<String, int[]> bookIds) {
+        return new CatalogSnapshot(version, exchanges, pairIndexes, listings, Map.copyOf(bookIds));
+    }
+
+    /**
+     * @param pairId id of the pair in the {@link PairIndex} of the exchange in this snapshot
+     * @return the id of the order book of the pair, or -1 if the exchange or the pair is unknown or has no book
+     */
+    public int bookId(String exchange, int pairId) {
+        int[] books = bookIds.get(exchange);
+        return books != null && pairId >= 0 && pairId < books.length ? books[pairId] : -1;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.AssetPair;
+
+import java.util.*;
+
+/**
+ * Inverted index of the pairs and assets listed by the loaded exchanges. Exchanges are numbered from 0 in name order
+ * and the exchanges listing a pair or an asset are kept as a bitset over those ids, so a query is a hash or array
+ * lookup followed by a copy of a few words.
+ */
+public final class ListingIndex {
+
+    public static final int NO_EXCHANGE = -1;
+
+    private static final long[] NONE = new long[0];
+
+    private final String[] exchanges;
+    private final Map<String, Integer> exchangeIds;
+    private final PairIndex pairs;
+    // by pair id of the pairs index, then by asset id
+    private final long[][] byPair;
+    private final long[][] byAsset;
+
+    private ListingIndex(String[] exchanges, PairIndex pairs, long[][] byPair, long[][] byAsset) {
+        this.exchanges = exchanges;
+        this.exchangeIds = HashMap.newHashMap(exchanges.length);
+        for (int exchangeId = 0; exchangeId < exchanges.length; exchangeId++) {
+            exchangeIds.put(exchanges[exchangeId], exchangeId);
+        }
+        this.pairs = pairs;
+        this.byPair = byPair;
+        this.byAsset = byAsset;
+    }
+
+    /**
+     * @param pairIndexes pair index by exchange name
+     */
+    public static ListingIndex of(Map<String, PairIndex> pairIndexes) {
+        String[] exchanges = pairIndexes.keySet().stream().sorted().toArray(String[]::new);
+        int words = (exchanges.length + Long.SIZE - 1) / Long.SIZE;
+        PairIndex pairs = PairIndex.of(pairIndexes.values().stream()
+                .flatMap(pairIndex -> pairIndex.pairs().stream())
+                .toList());
+        long[][] byPair = new long[pairs.size()][words];
+        int assetCount = 0;
+        for (AssetPair pair : pairs.pairs()) {
+            assetCount = Math.max(assetCount, Math.max(pair.baseAssetId(), pair.quoteAssetId()) + 1);
+        }
+        long[][] byAsset = new long[assetCount][];
+        for (int exchangeId = 0; exchangeId < exchanges.length; exchangeId++) {
+            for (AssetPair pair : pairIndexes.get(exchanges[exchangeId]).pairs()) {
+                set(byPair[pairs.pairId(pair)], exchangeId);
+                set(byAsset, pair.baseAssetId(), words, exchangeId);
+                set(byAsset, pair.quoteAssetId(), words, exchangeId);
+            }
+        }
+        return new ListingIndex(exchanges, pairs, byPair, byAsset);
+    }
+
+    public int exchangeCount() {
+        return exchanges.length;
+    }
+
+    public String exchange(int exchangeId) {
+        return exchanges[exchangeId];
+    }
+
+    /**
+     * @return the exchange id, or {@link #NO_EXCHANGE}
+     */
+    public int exchangeId(String exchange) {
+        Integer exchangeId = exchangeIds.get(exchange);
+        return exchangeId != null ? exchangeId : NO_EXCHANGE;
+    }
+
+    /**
+     * @return the ids of the exchanges listing the pair, e.g. {@code "ETH/BTC"}
+     */
+    public BitSet exchangesListing(String pairSymbol) {
+        return BitSet.valueOf(pairWords(pairs.pairId(pairSymbol)));
+    }
+
+    /**
+     * @return the ids of the exchanges listing the pair of these {@link com.fibonsai.exsim.util.AssetIds} ids
+     */
+    public BitSet exchangesListing(int baseAssetId, int quoteAssetId) {
+        return BitSet.valueOf(pairWords(pairs.pairId(baseAssetId, quoteAssetId)));
+    }
+
+    /**
+     * @return the ids of the exchanges listing a pair with the asset as base or quote
+     */
+    public BitSet exchangesListingAsset(int assetId) {
+        return BitSet.valueOf(assetWords(assetId));
+    }
+
+    /**
+     * @return true if the exchange lists the pair, without allocating
+     */
+    public boolean lists(int exchangeId, int baseAssetId, int quoteAssetId) {
+        return isSet(pairWords(pairs.pairId(baseAssetId, quoteAssetId)), exchangeId);
+    }
+
+    /**
+     * @return true if the exchange lists a pair with the asset, without allocating
+     */
+    public boolean listsAsset(int exchangeId, int assetId) {
+        return isSet(assetWords(assetId), exchangeId);
+    }
+
+    /**
+     * @return the names of the exchanges, in id order
+     */
+    public List<String> exchanges(BitSet exchangeIds) {
+        List<String> names = new ArrayList<>(exchangeIds.cardinality());
+        exchangeIds.stream().forEach(exchangeId -> names.add(exchanges[exchangeId]));
+        return names;
+    }
+
+    private long[] pairWords(int pairId) {
+        return pairId == PairIndex.NO_PAIR ? NONE : byPair[pairId];
+    }
+
+    private long[] assetWords(int assetId) {
+        long[] words = assetId >= 0 && assetId < byAsset.length ? byAsset[assetId] : null;
+        return words != null ? words : NONE;
+    }
+
+    private static void set(long[] words, int bit) {
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    private static void set(long[][] byAsset, int assetId, int words, int bit) {
+        if (byAsset[assetId] == null) {
+            byAsset[assetId] = new long[words];
+        }
+        set(byAsset[assetId], bit);
+    }
+
+    private static boolean isSet(long[] words, int bit) {
+        int word = bit >>> 6;
+        return bit >= 0 && word < words.length && (words[word] & (1L << bit)) != 0;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.AssetPair;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of the pairs of an exchange. Pairs are numbered from 0 in {@link AssetPair} order, so a pair id
+ * can index per-pair arrays such as order books, tickers or fee schedules. Pairs are looked up by symbol
+ * ({@code "BTC/USDT"}) or by the {@link com.fibonsai.exsim.util.AssetIds} symbol ids of their assets.
+ */
+public final class PairIndex {
+
+    public static final int NO_PAIR = -1;
+
+    private static final long EMPTY = -1L;
+
+    private final AssetPair[] pairs;
+    private final Map<String, Integer> bySymbol;
+    // open addressing on (base id, quote id), ids are never negative so -1 marks a free slot
+    private final long[] keys;
+    private final int[] ids;
+    private final int mask;
+
+    private PairIndex(AssetPair[] pairs) {
+        this.pairs = pairs;
+        this.bySymbol = HashMap.newHashMap(pairs.length);
+        int capacity = Integer.highestOneBit(Math.max(pairs.length * 2, 8) - 1) << 1;
+        this.keys = new long[capacity];
+        this.ids = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+        for (int pairId = 0; pairId < pairs.length; pairId++) {
+            AssetPair pair = pairs[pairId];
+            bySymbol.put(pair.simpleName(), pairId);
+            long key = key(pair.baseAssetId(), pair.quoteAssetId());
+            int slot = slot(key);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            ids[slot] = pairId;
+        }
+    }
+
+    public static PairIndex of(Collection<AssetPair> assetPairs) {
+        AssetPair[] pairs = assetPairs.stream()
+                .filter(pair -> pair.baseAssetId() >= 0 && pair.quoteAssetId() >= 0)
+                .sorted()
+                .distinct()
+                .toArray(AssetPair[]::new);
+        return new PairIndex(pairs);
+    }
+
+    public int size() {
+        return pairs.length;
+    }
+
+    public AssetPair pair(int pairId) {
+        return pairs[pairId];
+    }
+
+    public List<AssetPair> pairs() {
+        return List.of(pairs);
+    }
+
+    /**
+     * @param symbol base and quote symbols separated by {@link com.fibonsai.exsim.util.AssetUtil#DEFAULT_SEPARATOR}
+     * @return the pair id, or {@link #NO_PAIR}
+     */
+    public int pairId(String symbol) {
+        Integer pairId = bySymbol.get(symbol);
+        return pairId != null ? pairId : NO_PAIR;
+    }
+
+    /**
+     * @return the pair id, or {@link #NO_PAIR}
+     */
+    public int pairId(int baseAssetId, int quoteAssetId) {
+        if (baseAssetId < 0 || quoteAssetId < 0) {
+            return NO_PAIR;
+        }
+        long key = key(baseAssetId, quoteAssetId);
+        for (int slot = slot(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return ids[slot];
+            }
+        }
+        return NO_PAIR;
+    }
+
+    public int pairId(AssetPair assetPair) {
+        return pairId(assetPair.baseAssetId(), assetPair.quoteAssetId());
+    }
+
+    private static long key(int baseAssetId, int quoteAssetId) {
+        return ((long) baseAssetId << 32) | quoteAssetId;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
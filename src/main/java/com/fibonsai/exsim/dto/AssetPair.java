@@ -16,8 +16,11 @@ package com.fibonsai.exsim.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
 import com.fibonsai.exsim.types.Mutable;
+import com.fibonsai.exsim.util.AssetIds;
 import com.fibonsai.exsim.util.AssetUtil;
+import com.fibonsai.exsim.util.FixedPointUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
@@ -28,44 +31,67 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Pair of assets, held as {@link AssetRef}s so a pair never keeps the full metadata of its assets resident and
+ * resolving the pairs of a catalog hydrates none of its lazily indexed assets.
+ * Pairs are compared by the {@link com.fibonsai.exsim.util.AssetIds} ids of their assets.
+ * <p>
+ * {@link #baseAsset()} and {@link #quoteAsset()} were {@link Asset}s before: their JSON form is now the one of
+ * {@link AssetRef} ({@code id}, {@code symbol}, {@code decimalPoints}, {@code type}) and the serialized form
+ * changed with them. The full asset is resolved from the ref id through {@code AssetService.asset(int)}.
+ */
 @Slf4j
 public record AssetPair(
-        Asset baseAsset,
-        Asset quoteAsset,
+        AssetRef baseAsset,
+        AssetRef quoteAsset,
         @Mutable Map<String, BigDecimal> assetSpecs
 ) implements Serializable, Comparable<AssetPair> {
 
     @Serial
-    private static final long serialVersionUID = -7340731832345284129L;
+    private static final long serialVersionUID = 3409271554126680617L;
 
     private static final Map<String, BigDecimal> DEFAULT_ASSET_SPECS = new HashMap<>();
     private static final String MIN_AMOUNT_PROP = "minAmount";
     private static final String MAX_AMOUNT_PROP = "maxAmount";
     private static final String PRICE_SCALE_PROP = "priceScale";
     private static final String TRADING_FEE_PROP = "tradingFee";
+    private static final String QUANTITY_SCALE_PROP = "quantityScale";
+    private static final int DEFAULT_SCALE = 8;
 
     static {
         DEFAULT_ASSET_SPECS.put(MIN_AMOUNT_PROP, BigDecimal.ZERO);
         DEFAULT_ASSET_SPECS.put(MAX_AMOUNT_PROP, BigDecimal.valueOf(Double.MAX_VALUE));
-        DEFAULT_ASSET_SPECS.put(PRICE_SCALE_PROP, BigDecimal.valueOf(8L));
+        DEFAULT_ASSET_SPECS.put(PRICE_SCALE_PROP, BigDecimal.valueOf(DEFAULT_SCALE));
         DEFAULT_ASSET_SPECS.put(TRADING_FEE_PROP, BigDecimal.ZERO);
     }
 
+    public AssetPair(Asset baseAsset, Asset quoteAsset, Map<String, BigDecimal> assetSpecs) {
+        this(AssetRef.of(baseAsset), AssetRef.of(quoteAsset), assetSpecs);
+    }
+
     public AssetPair(Asset baseAsset, Asset quoteAsset) {
         this(baseAsset, quoteAsset, DEFAULT_ASSET_SPECS);
     }
 
     public static final class Builder {
-        private Asset baseAsset = AssetUtil.DEFAULT_BASE;
-        private Asset quoteAsset = AssetUtil.DEFAULT_QUOTE;
+        private AssetRef baseAsset = AssetRef.of(AssetUtil.DEFAULT_BASE);
+        private AssetRef quoteAsset = AssetRef.of(AssetUtil.DEFAULT_QUOTE);
         private final Map<String, BigDecimal> assetSpecs = new HashMap<>();
 
         public Builder baseAsset(@NonNull Asset baseAsset) {
+            return baseAsset(AssetRef.of(baseAsset));
+        }
+
+        public Builder baseAsset(@NonNull AssetRef baseAsset) {
             this.baseAsset = baseAsset;
             return this;
         }
 
         public Builder quoteAsset(@NonNull Asset quoteAsset) {
+            return quoteAsset(AssetRef.of(quoteAsset));
+        }
+
+        public Builder quoteAsset(@NonNull AssetRef quoteAsset) {
             this.quoteAsset = quoteAsset;
             return this;
         }
@@ -98,6 +124,13 @@ public record AssetPair(
             return this;
         }
 
+        public Builder quantityScale(@Nullable BigDecimal quantityScale) {
+            if (quantityScale != null) {
+                this.assetSpecs.put(QUANTITY_SCALE_PROP, quantityScale);
+            }
+            return this;
+        }
+
         public Builder tradingFee(@Nullable BigDecimal tradingFee) {
             if (tradingFee != null) {
                 this.assetSpecs.put(TRADING_FEE_PROP, tradingFee);
@@ -124,26 +157,70 @@ public record AssetPair(
         return baseAsset.symbol() + AssetUtil.DEFAULT_SEPARATOR + quoteAsset.symbol();
     }
 
+    /**
+     * Number of decimal places of a price tick.
+     */
+    @JsonIgnore
+    public int priceScale() {
+        return FixedPointUtil.scaleOf(assetSpecs().get(PRICE_SCALE_PROP), DEFAULT_SCALE);
+    }
+
+    /**
+     * Number of decimal places of a quantity unit. Uses the base asset decimal points if not specified,
+     * as {@link Wallet} does in {@link BalanceMode#FIXED_POINT} mode, so 0 is a valid scale.
+     */
+    @JsonIgnore
+    public int quantityScale() {
+        BigDecimal quantityScale = assetSpecs().get(QUANTITY_SCALE_PROP);
+        if (quantityScale == null && baseAsset != null) {
+            return baseAsset.scale(DEFAULT_SCALE);
+        }
+        return FixedPointUtil.scaleOf(quantityScale, DEFAULT_SCALE);
+    }
+
+    /**
+     * {@link com.fibonsai.exsim.util.AssetIds} id of the base asset.
+     */
+    @JsonIgnore
+    public int baseAssetId() {
+        return id(baseAsset);
+    }
+
+    /**
+     * {@link com.fibonsai.exsim.util.AssetIds} id of the quote asset.
+     */
+    @JsonIgnore
+    public int quoteAssetId() {
+        return id(quoteAsset);
+    }
+
+    private static int id(AssetRef asset) {
+        return asset == null ? AssetIds.NO_ID : asset.id();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof AssetPair assetPair)) return false;
 
-        return baseAsset().equals(assetPair.baseAsset()) && quoteAsset().equals(assetPair.quoteAsset());
+        return baseAssetId() == assetPair.baseAssetId() && quoteAssetId() == assetPair.quoteAssetId();
     }
 
     @Override
     public int hashCode() {
-        int result = baseAsset().hashCode();
-        result = 31 * result + quoteAsset().hashCode();
-        return result;
+        return 31 * baseAssetId() + quoteAssetId();
     }
 
+    /**
+     * Orders by base then quote symbol, equal ids are compared without looking at the symbols.
+     */
     @Override
     public int compareTo(AssetPair assetPair) {
-        int baseComparator = baseAsset().compareTo(assetPair.baseAsset());
-        if (baseComparator == 0) {
-            return quoteAsset().compareTo(assetPair.quoteAsset());
+        if (baseAssetId() != assetPair.baseAssetId()) {
+            return baseAsset.symbol().compareTo(assetPair.baseAsset.symbol());
+        }
+        if (quoteAssetId() != assetPair.quoteAssetId()) {
+            return quoteAsset.symbol().compareTo(assetPair.quoteAsset.symbol());
         }
-        return baseComparator;
+        return 0;
     }
 }
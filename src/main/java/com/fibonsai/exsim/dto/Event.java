@@ -41,7 +41,7 @@ public record Event(EventType type, Object event, String traceId, Throwable erro
     public Event(EventType type, Object event, @Nullable String traceId, @Nullable Throwable error) {
         this.type = Objects.requireNonNullElse(type, EventType.UNDEF);
         this.event = Objects.requireNonNull(event);
-        this.traceId = Objects.requireNonNullElse(traceId, UUID.randomUUID().toString());
+        this.traceId = Objects.requireNonNullElseGet(traceId, () -> UUID.randomUUID().toString());
         this.error = error;
     }
 
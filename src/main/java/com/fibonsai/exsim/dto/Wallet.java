@@ -15,33 +15,147 @@
 package com.fibonsai.exsim.dto;
 
 import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
 import com.fibonsai.exsim.types.DepositFundsParams;
 import com.fibonsai.exsim.types.FundsParams;
 import com.fibonsai.exsim.types.WithdrawFundsParams;
+import com.fibonsai.exsim.util.AssetIds;
+import com.fibonsai.exsim.util.FixedPointUtil;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 
 import javax.naming.InsufficientResourcesException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Objects;
+import java.util.function.IntFunction;
 
 import static com.fibonsai.exsim.dto.WalletState.*;
 
+/**
+ * Wallet of an asset. Amount, state and timestamp are kept together in an immutable {@link Balance} snapshot
+ * that is replaced with a compare-and-set, so concurrent transactions never lock and every check
+ * (state, available funds) is made against the same snapshot the update is applied to.
+ */
 public class Wallet {
 
     public static final String ADDRESS_DEFAULT = "default";
+    public static final int DEFAULT_DECIMAL_POINTS = 8;
+
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Wallet.class, "balance", Balance.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
-    private final Asset asset;
+    private final AssetRef asset;
+    @Nullable
+    private final IntFunction<Asset> assets;
     private final String walletAddress;
     private final String owner;
+    private final BalanceMode balanceMode;
+    private final int decimalPoints;
+
+    @SuppressWarnings("FieldMayBeFinal")
+    private volatile Balance balance;
 
-    private BigDecimal amount = BigDecimal.ZERO;
-    private WalletState state = OFFLINE;
-    private Instant timestamp = Instant.now();
+    /**
+     * Immutable view of the wallet balance at a given version.
+     */
+    public static final class Balance {
+        private final BigDecimal amount;
+        private final long units;
+        private final int decimalPoints;
+        private final WalletState state;
+        private final long timestamp;
+        private final long version;
+        private BigDecimal amountView;
+
+        private Balance(BigDecimal amount, long units, int decimalPoints, WalletState state, long timestamp, long version) {
+            this.amount = amount;
+            this.units = units;
+            this.decimalPoints = decimalPoints;
+            this.state = state;
+            this.timestamp = timestamp;
+            this.version = version;
+        }
+
+        /**
+         * In {@link BalanceMode#FIXED_POINT} mode the value is materialized from the long units on first access.
+         */
+        public BigDecimal amount() {
+            if (amount != null) {
+                return amount;
+            }
+            BigDecimal view = amountView;
+            if (view == null) {
+                view = FixedPointUtil.fromUnits(units, decimalPoints);
+                amountView = view;
+            }
+            return view;
+        }
+
+        /**
+         * Balance in units of {@link #decimalPoints()} in {@link BalanceMode#FIXED_POINT} mode.
+         */
+        public long units() {
+            return units;
+        }
+
+        /**
+         * Decimal points of the units, -1 in {@link BalanceMode#BIG_DECIMAL} mode.
+         */
+        public int decimalPoints() {
+            return decimalPoints;
+        }
+
+        public WalletState state() {
+            return state;
+        }
+
+        public long timestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Incremented on every change of the wallet.
+         */
+        public long version() {
+            return version;
+        }
+    }
 
     public Wallet(String owner, Asset asset, String walletAddress) {
+        this(owner, asset, walletAddress, BalanceMode.BIG_DECIMAL);
+    }
+
+    /**
+     * @param balanceMode in {@link BalanceMode#FIXED_POINT} mode the balance is kept as long units of
+     *                    the asset decimal points ({@value DEFAULT_DECIMAL_POINTS} if not defined)
+     */
+    public Wallet(String owner, Asset asset, String walletAddress, BalanceMode balanceMode) {
+        this(owner, AssetRef.of(Objects.requireNonNull(asset, "asset")), walletAddress, balanceMode, id -> asset);
+    }
+
+    /**
+     * @param assets resolves the full asset of an {@link AssetIds} id, see {@link #asset()}
+     */
+    public Wallet(String owner, AssetRef asset, String walletAddress, BalanceMode balanceMode,
+                  @Nullable IntFunction<Asset> assets) {
         this.owner = owner;
-        this.asset = asset;
+        this.asset = Objects.requireNonNull(asset, "asset symbol");
+        this.assets = assets;
         this.walletAddress = walletAddress;
+        this.balanceMode = balanceMode;
+        this.decimalPoints = balanceMode == BalanceMode.FIXED_POINT ? this.asset.scale(DEFAULT_DECIMAL_POINTS) : -1;
+        this.balance = new Balance(balanceMode == BalanceMode.FIXED_POINT ? null : BigDecimal.ZERO, 0L,
+                decimalPoints, OFFLINE, System.currentTimeMillis(), 0L);
     }
 
     public String owner() {
@@ -52,56 +166,158 @@ public class Wallet {
         return walletAddress;
     }
 
+    /**
+     * @return the full asset, resolved on each call, or null if the resolver of the wallet is missing or does not
+     * know it
+     */
+    @Nullable
     public Asset asset() {
+        return assets == null ? null : assets.apply(asset.id());
+    }
+
+    public AssetRef assetRef() {
         return asset;
     }
 
+    /**
+     * {@link AssetIds} id of the asset.
+     */
+    public int assetId() {
+        return asset.id();
+    }
+
+    public BalanceMode balanceMode() {
+        return balanceMode;
+    }
+
+    public Balance balance() {
+        return balance;
+    }
+
     public BigDecimal amount() {
-        return amount;
+        return balance.amount();
+    }
+
+    /**
+     * @return the balance in units of the asset decimal points
+     * @throws ArithmeticException if the balance does not fit in a long of that scale
+     */
+    public long units() {
+        Balance current = balance;
+        if (balanceMode == BalanceMode.FIXED_POINT) {
+            return current.units;
+        }
+        return FixedPointUtil.toUnits(current.amount, asset.scale(DEFAULT_DECIMAL_POINTS));
     }
 
     public Instant timestamp() {
-        return timestamp;
+        return Instant.ofEpochMilli(balance.timestamp);
     }
 
     public WalletState state() {
-        return state;
+        return balance.state;
+    }
+
+    public long version() {
+        return balance.version;
     }
 
     public Wallet setState(@NonNull WalletState state) {
-        this.state = state;
-        this.timestamp = Instant.now();
+        Balance current;
+        do {
+            current = balance;
+        } while (!BALANCE.compareAndSet(this, current, new Balance(current.amount, current.units, decimalPoints, state,
+                System.currentTimeMillis(), current.version + 1)));
         return this;
     }
 
+    /**
+     * Restores a persisted balance. Nothing changes if the wallet is already at {@code version} or later,
+     * so restoring the same balance twice is harmless.
+     *
+     * @return true if the balance was replaced
+     */
+    public boolean restore(WalletState state, BigDecimal amount, long version, long timestamp) {
+        Balance current;
+        Balance next;
+        do {
+            current = balance;
+            if (current.version >= version) {
+                return false;
+            }
+            next = balanceMode == BalanceMode.FIXED_POINT
+                    ? new Balance(null, FixedPointUtil.toUnits(amount, decimalPoints), decimalPoints, state, timestamp, version)
+                    : new Balance(amount, 0L, decimalPoints, state, timestamp, version);
+        } while (!BALANCE.compareAndSet(this, current, next));
+        return true;
+    }
+
     public Wallet transaction(FundsParams params) throws Exception {
-        if (state().is(OFFLINE, SYNC_ERROR, AUDIT_BLOCK, READ_ONLY)) {
-            throw new IllegalStateException("Transaction is not possible. Wallet state is " + state());
-        }
-        if (!asset().equals(params.getAsset())) {
-            throw new IllegalArgumentException("Transaction not possible using different iso4217: %s != %s".formatted(asset(), params.getAsset()));
-        }
-        switch (params) {
-            case DepositFundsParams dfParams -> {
-                if (state().equals(WITHDRAW_ONLY)) {
-                    throw new IllegalStateException("Deposit is not possible. Wallet allow only withdraw transaction");
-                }
-                this.amount = this.amount.add(dfParams.getAmount());
+        final boolean deposit = switch (params) {
+            case DepositFundsParams ignored -> true;
+            case WithdrawFundsParams ignored -> false;
+            default -> throw new IllegalStateException("Unexpected value: " + params);
+        };
+        final BigDecimal value = params.getAmount();
+        final int paramsAssetId = params.getAssetId();
+        long valueUnits = -1L;
+        Balance current;
+        Balance next;
+        do {
+            current = balance;
+            if (current.state.is(OFFLINE, SYNC_ERROR, AUDIT_BLOCK, READ_ONLY)) {
+                throw new IllegalStateException("Transaction is not possible. Wallet state is " + current.state);
+            }
+            if (asset.id() != paramsAssetId) {
+                Asset paramsAsset = params.getAsset();
+                throw new IllegalArgumentException("Transaction not possible using different iso4217: %s != %s"
+                        .formatted(asset.symbol(), paramsAsset == null ? null : paramsAsset.symbol()));
             }
-            case WithdrawFundsParams wfParams -> {
-                var withdrawFundsAmount = wfParams.getAmount();
-                if (withdrawFundsAmount.compareTo(amount) <= 0) {
-                    this.amount = this.amount.subtract(wfParams.getAmount());
-                } else {
-                    throw new InsufficientResourcesException("Funds insufficient");
+            if (deposit && current.state == WITHDRAW_ONLY) {
+                throw new IllegalStateException("Deposit is not possible. Wallet allow only withdraw transaction");
+            }
+            if (balanceMode == BalanceMode.FIXED_POINT) {
+                if (valueUnits < 0L) {
+                    valueUnits = FixedPointUtil.toUnits(value, decimalPoints);
                 }
+                next = applyUnits(current, deposit, value, valueUnits);
+            } else {
+                next = applyAmount(current, deposit, value);
             }
-            default -> throw new IllegalStateException("Unexpected value: " + params);
-        }
-        this.timestamp = Instant.now();
+        } while (!BALANCE.compareAndSet(this, current, next));
         return this;
     }
 
+    private Balance applyAmount(Balance current, boolean deposit, BigDecimal value) throws InsufficientResourcesException {
+        final BigDecimal amount;
+        if (deposit) {
+            amount = current.amount.add(value);
+        } else if (value.compareTo(current.amount) <= 0) {
+            amount = current.amount.subtract(value);
+        } else {
+            throw new InsufficientResourcesException("Funds insufficient");
+        }
+        return new Balance(amount, 0L, decimalPoints, current.state, System.currentTimeMillis(), current.version + 1);
+    }
+
+    private Balance applyUnits(Balance current, boolean deposit, BigDecimal value, long valueUnits)
+            throws InsufficientResourcesException {
+        final long units;
+        if (deposit) {
+            try {
+                units = Math.addExact(current.units, valueUnits);
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("Overflow: deposit of %s exceeds the %s wallet capacity"
+                        .formatted(value, asset.symbol()));
+            }
+        } else if (valueUnits <= current.units) {
+            units = current.units - valueUnits;
+        } else {
+            throw new InsufficientResourcesException("Funds insufficient");
+        }
+        return new Balance(null, units, decimalPoints, current.state, System.currentTimeMillis(), current.version + 1);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
@@ -117,8 +333,10 @@ public class Wallet {
 
     @Override
     public String toString() {
+        Balance current = balance;
         return """
                 { "timestamp": %s, "asset": %s, "state": %s, "walletAddress": "%s", "owner": "%s", "amount": %s }
-                """.formatted(timestamp(), asset().symbol(), state(), address(), owner(), amount());
+                """.formatted(Instant.ofEpochMilli(current.timestamp), asset.symbol(), current.state, address(), owner(),
+                current.amount());
     }
 }
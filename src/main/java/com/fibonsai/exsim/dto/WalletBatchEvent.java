@@ -0,0 +1,32 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.dto;
+
+/**
+ * Summary of a wallet transaction batch.
+ */
+public record WalletBatchEvent(long sequence, int wallets, int applied, int failed) {
+
+    public String toJson() {
+        return """
+                { "sequence": %d, "batch": { "wallets": %d, "applied": %d, "failed": %d } }
+                """.formatted(sequence, wallets, applied, failed).strip();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
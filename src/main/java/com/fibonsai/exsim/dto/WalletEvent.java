@@ -0,0 +1,53 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Immutable snapshot of a wallet sent on every change. Building it only copies references;
+ * the JSON representation is rendered when {@link #toJson()} (or {@link #toString()}) is called.
+ */
+public record WalletEvent(long sequence, String owner, String walletAddress, String assetSymbol, Wallet.Balance balance) {
+
+    public static WalletEvent of(long sequence, Wallet wallet) {
+        return new WalletEvent(sequence, wallet.owner(), wallet.address(), wallet.assetRef().symbol(), wallet.balance());
+    }
+
+    public WalletState state() {
+        return balance.state();
+    }
+
+    public BigDecimal amount() {
+        return balance.amount();
+    }
+
+    public Instant timestamp() {
+        return Instant.ofEpochMilli(balance.timestamp());
+    }
+
+    public String toJson() {
+        return """
+                { "sequence": %d, "timestamp": "%s", "asset": "%s", "state": "%s", "walletAddress": "%s", "owner": "%s", "amount": %s }
+                """.formatted(sequence, timestamp(), assetSymbol, state(), walletAddress, owner, amount().toPlainString())
+                .strip();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
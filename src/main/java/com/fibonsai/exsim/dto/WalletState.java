@@ -14,8 +14,6 @@
 
 package com.fibonsai.exsim.dto;
 
-import java.util.List;
-
 @SuppressWarnings("unused")
 public enum WalletState {
     ONLINE,
@@ -26,6 +24,11 @@ public enum WalletState {
     WITHDRAW_ONLY;
 
     public boolean is(WalletState... states) {
-        return List.of(states).contains(this);
+        for (WalletState state : states) {
+            if (state == this) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,66 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.dto.asset;
+
+import com.fibonsai.exsim.util.AssetIds;
+import com.fibonsai.exsim.util.FixedPointUtil;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Compact view of an {@link Asset} for the trading and wallet paths. The full metadata is resolved on demand
+ * through the {@link com.fibonsai.exsim.util.AssetRegistry} of the asset service.
+ *
+ * @param id            {@link AssetIds} id of the symbol
+ * @param decimalPoints asset decimal points, -1 if not defined
+ */
+public record AssetRef(int id, String symbol, int decimalPoints, AssetType type) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -2215948375301846782L;
+
+    public AssetRef {
+        if (id != AssetIds.find(symbol)) {
+            throw new IllegalArgumentException("Id %d is not the id of %s".formatted(id, symbol));
+        }
+    }
+
+    /**
+     * @return the view of the asset, or null for an asset without symbol
+     */
+    public static AssetRef of(Asset asset) {
+        if (asset == null || asset.symbol() == null) {
+            return null;
+        }
+        return of(asset.symbol(), asset.assetDecimalPoints(), asset.assetType());
+    }
+
+    public static AssetRef of(String symbol, BigDecimal decimalPoints, AssetType type) {
+        return of(symbol, decimalPoints == null || decimalPoints.signum() < 0 ? -1 : decimalPoints.intValue(), type);
+    }
+
+    public static AssetRef of(String symbol, int decimalPoints, AssetType type) {
+        return new AssetRef(AssetIds.idOf(symbol), symbol, decimalPoints, type);
+    }
+
+    /**
+     * @return the decimal points as a fixed point scale, {@code defaultScale} if not defined
+     */
+    public int scale(int defaultScale) {
+        return FixedPointUtil.scaleOf(decimalPoints, defaultScale);
+    }
+}
@@ -98,6 +98,16 @@ public record Exchange(
         return sortOrder().compareTo(exchange.sortOrder());
     }
 
+    /**
+     * @return a copy whose asset pairs and apis cannot be modified
+     */
+    public Exchange frozen() {
+        return new Exchange(id, name, url, itemTypes, centralizationType, internalName, gradePoints, gradePointsSplit,
+                affiliateUrl, country, orderBook, trades, description, fullAddress, fees, depositMethods,
+                withdrawalMethods, sortOrder, assetPairs == null ? Set.of() : Set.copyOf(assetPairs),
+                apis == null ? Set.of() : Set.copyOf(apis));
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.journal;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded in-memory journal of events identified by monotonic sequence numbers.
+ * <p>
+ * Events are kept in a ring that retains the last {@code capacity} events, so memory is bounded and producers
+ * never wait for consumers. Every subscriber reads the ring through its own cursor at the pace it requests and can
+ * start from any retained sequence. A subscriber that falls more than {@code capacity} events behind receives a
+ * {@link JournalOverrunException} and can resubscribe from {@link #firstRetainedSequence()}.
+ * <p>
+ * Events are delivered on the workers of a {@link Scheduler}, one worker per subscriber, so slow subscribers
+ * never run on the producer thread. An append only writes its slot, publishes its sequence and, unless
+ * no cursor is registered or a delivery is already pending, schedules one that wakes up the cursors.
+ */
+public final class EventJournal<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong lastSequence;
+    private final long initialSequence;
+    private final List<Cursor> cursors = new CopyOnWriteArrayList<>();
+    private final Scheduler scheduler;
+    private final AtomicBoolean deliveryPending = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * @param capacity number of events retained, rounded up to a power of two
+     * @param firstSequence sequence of the first appended event
+     * @param scheduler scheduler delivering the events to the subscribers
+     */
+    public EventJournal(int capacity, long firstSequence, Scheduler scheduler) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Journal capacity must be positive: " + capacity);
+        }
+        if (firstSequence < 1) {
+            throw new IllegalArgumentException("Journal sequences start at 1: " + firstSequence);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.events = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        this.lastSequence = new AtomicLong(firstSequence - 1);
+        this.initialSequence = firstSequence;
+        this.scheduler = scheduler;
+    }
+
+    public EventJournal(int capacity, long firstSequence) {
+        this(capacity, firstSequence, Schedulers.boundedElastic());
+    }
+
+    public EventJournal(int capacity) {
+        this(capacity, 1L);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return sequence of the last appended event
+     */
+    public long lastSequence() {
+        return lastSequence.get();
+    }
+
+    public long firstRetainedSequence() {
+        return Math.max(lastSequence.get() - capacity + 1, initialSequence);
+    }
+
+    /**
+     * Appends the event built for the sequence assigned to it.
+     *
+     * @return the sequence of the event
+     */
+    public long append(LongFunction<E> factory) {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        long sequence = lastSequence.incrementAndGet();
+        int index = (int) sequence & mask;
+        sequences.set(index, -sequence);
+        events.setRelease(index, factory.apply(sequence));
+        sequences.setRelease(index, sequence);
+        signal();
+        return sequence;
+    }
+
+    public long append(E event) {
+        return append(sequence -> event);
+    }
+
+    /**
+     * Retained events starting at {@code fromSequence}, followed by the events appended afterward.
+     * Completes when the journal is closed.
+     */
+    public Flux<E> replay(long fromSequence) {
+        return Flux.create(sink -> {
+            if (fromSequence < firstRetainedSequence()) {
+                sink.error(new JournalOverrunException(fromSequence, firstRetainedSequence()));
+                return;
+            }
+            Cursor cursor = new Cursor(sink, fromSequence, scheduler.createWorker());
+            cursors.add(cursor);
+            sink.onRequest(ignored -> cursor.signal());
+            sink.onDispose(() -> {
+                cursors.remove(cursor);
+                cursor.worker.dispose();
+            });
+            cursor.signal();
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    /**
+     * Retained events followed by the events appended afterward.
+     */
+    public Flux<E> replay() {
+        return Flux.defer(() -> replay(firstRetainedSequence()));
+    }
+
+    /**
+     * Completes the subscribers once they have read every appended event.
+     */
+    public void close() {
+        closed = true;
+        signal();
+    }
+
+    /**
+     * Schedules the wake-up of the cursors, unless there is none or one is already pending. The flag is cleared
+     * before the cursors are woken up, so an event appended meanwhile schedules another wake-up. A cursor added
+     * afterward signals itself once registered, so it does not miss the events published before.
+     */
+    private void signal() {
+        if (cursors.isEmpty()) {
+            return;
+        }
+        if (!deliveryPending.get() && deliveryPending.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                deliveryPending.set(false);
+                for (Cursor cursor : cursors) {
+                    cursor.signal();
+                }
+            });
+        }
+    }
+
+    private final class Cursor {
+        private final FluxSink<E> sink;
+        private final Scheduler.Worker worker;
+        private final AtomicInteger wip = new AtomicInteger();
+        private long next;
+
+        private Cursor(FluxSink<E> sink, long next, Scheduler.Worker worker) {
+            this.sink = sink;
+            this.next = next;
+            this.worker = worker;
+        }
+
+        /**
+         * Schedules a drain on the worker of the cursor, or makes the running drain loop once more.
+         */
+        private void signal() {
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this::drain);
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                long requested = sink.requestedFromDownstream();
+                while (requested > 0L && !sink.isCancelled()) {
+                    int index = (int) next & mask;
+                    long published = sequences.getAcquire(index);
+                    if (Math.abs(published) > next) {
+                        overrun();
+                        return;
+                    }
+                    if (published != next) {
+                        break;
+                    }
+                    E event = events.getAcquire(index);
+                    if (sequences.getAcquire(index) != next) {
+                        overrun();
+                        return;
+                    }
+                    sink.next(event);
+                    next++;
+                    requested--;
+                }
+                if (closed && next > lastSequence.get()) {
+                    cursors.remove(this);
+                    sink.complete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void overrun() {
+            cursors.remove(this);
+            sink.error(new JournalOverrunException(next, firstRetainedSequence()));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.journal;
+
+import java.io.Serial;
+
+/**
+ * Signals that a requested sequence is no longer retained by an {@link EventJournal}.
+ */
+public class JournalOverrunException extends IllegalStateException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+    private final long firstRetainedSequence;
+
+    public JournalOverrunException(long sequence, long firstRetainedSequence) {
+        super("Sequence %d is no longer retained, first retained sequence is %d".formatted(sequence, firstRetainedSequence));
+        this.sequence = sequence;
+        this.firstRetainedSequence = firstRetainedSequence;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public long firstRetainedSequence() {
+        return firstRetainedSequence;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Publishes the depth of {@link DepthTracker}s to subscribers. Every interval, each book with subscribers that
+ * changed gets one diff frame coalescing all its level changes since the previous frame, computed by comparing
+ * the top levels published last with the current ones. Frames are encoded once per book and shared by all its
+ * subscribers.
+ * <p>
+ * A subscriber first receives the latest snapshot, then the diffs that follow it. A subscriber falling more than
+ * the buffer size frames behind gets an overflow error (see {@link reactor.core.Exceptions#isOverflow}) and
+ * resubscribes to start again from a fresh snapshot. The state of a book is released once its last subscriber is
+ * gone or the book is {@link #remove removed}.
+ */
+@Slf4j
+public final class DepthPublisher {
+
+    private final int levels;
+    private final long intervalMillis;
+    private final int bufferSize;
+    private final Map<DepthTracker, Channel> channels = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param levels     levels per side in snapshots and tracked by diffs
+     * @param bufferSize frames buffered for a subscriber without demand
+     */
+    public DepthPublisher(int levels, long intervalMillis, int bufferSize) {
+        if (levels < 1 || intervalMillis < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("Depth levels, interval and buffer size must be positive");
+        }
+        this.levels = levels;
+        this.intervalMillis = intervalMillis;
+        this.bufferSize = bufferSize;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "depth-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::publishSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        channels.values().forEach(Channel::complete);
+    }
+
+    public Flux<DepthUpdate> subscribe(DepthTracker tracker) {
+        return Flux.<DepthUpdate>create(sink -> {
+            Channel channel;
+            do {
+                // a channel retired between the lookup and the add is no longer mapped, the next lookup replaces it
+                channel = channels.computeIfAbsent(tracker, Channel::new);
+            } while (!channel.add(sink));
+        }, FluxSink.OverflowStrategy.IGNORE).onBackpressureBuffer(bufferSize);
+    }
+
+    /**
+     * Completes the subscribers of the book and releases its state, once the book no longer exists.
+     */
+    public void remove(DepthTracker tracker) {
+        Channel channel = channels.remove(tracker);
+        if (channel != null) {
+            channel.retire();
+        }
+    }
+
+    /**
+     * @return the number of books with publishing state
+     */
+    int channels() {
+        return channels.size();
+    }
+
+    /**
+     * Publishes the pending changes of every book with subscribers.
+     */
+    public void publish() {
+        long now = System.currentTimeMillis();
+        for (Channel channel : channels.values()) {
+            if (!channel.sinks.isEmpty()) {
+                channel.flush(now);
+            }
+        }
+    }
+
+    private void publishSafely() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            log.error("Depth publish failed", e);
+        }
+    }
+
+    /**
+     * Publishing state of one book. Guarded by its own monitor, so frames of a book are published in order.
+     */
+    private final class Channel {
+
+        private final DepthTracker tracker;
+        private final List<FluxSink<DepthUpdate>> sinks = new CopyOnWriteArrayList<>();
+        private final int[] counts = new int[2];
+        private Top published = new Top(levels);
+        private Top current = new Top(levels);
+        private final Top diff = new Top(2 * levels);
+        private long sequence;
+        private DepthUpdate snapshot;
+        private boolean retired;
+
+        Channel(DepthTracker tracker) {
+            this.tracker = tracker;
+            this.snapshot = published.encode(true, 0L, System.currentTimeMillis());
+        }
+
+        /**
+         * @return false if the channel is retired and the sink was not added
+         */
+        synchronized boolean add(FluxSink<DepthUpdate> sink) {
+            if (retired) {
+                return false;
+            }
+            flush(System.currentTimeMillis());
+            sinks.add(sink);
+            sink.onDispose(() -> remove(sink));
+            sink.next(snapshot);
+            return true;
+        }
+
+        private synchronized void remove(FluxSink<DepthUpdate> sink) {
+            if (sinks.remove(sink) && sinks.isEmpty() && !retired) {
+                retired = true;
+                channels.remove(tracker, this);
+            }
+        }
+
+        synchronized void retire() {
+            retired = true;
+            complete();
+        }
+
+        synchronized void complete() {
+            sinks.forEach(FluxSink::complete);
+        }
+
+        synchronized void flush(long now) {
+            if (!tracker.copyTop(current.bidPrices, current.bidQuantities, current.askPrices, current.askQuantities,
+                    counts)) {
+                return;
+            }
+            current.bids = counts[0];
+            current.asks = counts[1];
+            diff.bids = diff(published.bidPrices, published.bidQuantities, published.bids,
+                    current.bidPrices, current.bidQuantities, current.bids, true, diff.bidPrices, diff.bidQuantities);
+            diff.asks = diff(published.askPrices, published.askQuantities, published.asks,
+                    current.askPrices, current.askQuantities, current.asks, false, diff.askPrices, diff.askQuantities);
+            Top swap = published;
+            published = current;
+            current = swap;
+            if (diff.bids == 0 && diff.asks == 0) {
+                return;
+            }
+            sequence++;
+            DepthUpdate update = diff.encode(false, sequence, now);
+            snapshot = published.encode(true, sequence, now);
+            for (FluxSink<DepthUpdate> sink : sinks) {
+                sink.next(update);
+            }
+        }
+
+        /**
+         * Merges two best first level lists into the levels whose quantity differs, 0 for the levels that left.
+         *
+         * @return the number of levels written
+         */
+        private static int diff(long[] oldPrices, long[] oldQuantities, int oldCount,
+                                long[] newPrices, long[] newQuantities, int newCount, boolean descending,
+                                long[] prices, long[] quantities) {
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < oldCount || j < newCount) {
+                if (i < oldCount && j < newCount && oldPrices[i] == newPrices[j]) {
+                    if (oldQuantities[i] != newQuantities[j]) {
+                        prices[count] = newPrices[j];
+                        quantities[count++] = newQuantities[j];
+                    }
+                    i++;
+                    j++;
+                } else if (j == newCount
+                        || (i < oldCount && (descending ? oldPrices[i] > newPrices[j] : oldPrices[i] < newPrices[j]))) {
+                    prices[count] = oldPrices[i++];
+                    quantities[count++] = 0L;
+                } else {
+                    prices[count] = newPrices[j];
+                    quantities[count++] = newQuantities[j++];
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Bid and ask levels, best first.
+     */
+    private static final class Top {
+
+        private final long[] bidPrices;
+        private final long[] bidQuantities;
+        private final long[] askPrices;
+        private final long[] askQuantities;
+        private int bids;
+        private int asks;
+
+        Top(int levels) {
+            bidPrices = new long[levels];
+            bidQuantities = new long[levels];
+            askPrices = new long[levels];
+            askQuantities = new long[levels];
+        }
+
+        DepthUpdate encode(boolean snapshot, long sequence, long timeMillis) {
+            return DepthUpdate.encode(snapshot, sequence, timeMillis, bidPrices, bidQuantities, bids,
+                    askPrices, askQuantities, asks);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import com.fibonsai.exsim.matching.MatchListener;
+import com.fibonsai.exsim.matching.Side;
+
+import java.util.Arrays;
+
+/**
+ * L2 mirror of an order book, kept up to date from {@link MatchListener#onLevelChanged} on the matching shard
+ * thread. Each level change updates one entry of a sorted primitive array, and {@link DepthPublisher} copies the
+ * top levels from the mirror, so depth never re-scans the book. The lock is only contended while a frame is
+ * being copied.
+ * <p>
+ * The best levels and the last trade are also written to a {@link TickerSlot}, for conflated top of book.
+ */
+public final class DepthTracker implements MatchListener {
+
+    private final Levels bids = new Levels(true);
+    private final Levels asks = new Levels(false);
+    private final TickerSlot ticker = new TickerSlot();
+    private boolean changed;
+
+    public TickerSlot ticker() {
+        return ticker;
+    }
+
+    @Override
+    public void onTrade(long takerOrderId, long makerOrderId, Side takerSide, long priceTicks, long quantity,
+                        long takerRemaining, long makerRemaining) {
+        ticker.trade(priceTicks, quantity, System.currentTimeMillis());
+    }
+
+    @Override
+    public void onLevelChanged(Side side, long priceTicks, long quantity) {
+        synchronized (this) {
+            (side == Side.BUY ? bids : asks).set(priceTicks, quantity);
+            changed = true;
+        }
+        ticker.quote(bids.bestPrice(), bids.bestQuantity(), asks.bestPrice(), asks.bestQuantity(),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Copies up to {@code bidPrices.length} levels of each side, best first, if the book changed since the last copy.
+     *
+     * @param counts receives the number of bid and ask levels copied
+     * @return false if nothing changed, in which case nothing is copied
+     */
+    synchronized boolean copyTop(long[] bidPrices, long[] bidQuantities, long[] askPrices, long[] askQuantities,
+                                 int[] counts) {
+        if (!changed) {
+            return false;
+        }
+        changed = false;
+        counts[0] = bids.copy(bidPrices, bidQuantities);
+        counts[1] = asks.copy(askPrices, askQuantities);
+        return true;
+    }
+
+    /**
+     * Price levels of one side sorted best first.
+     */
+    private static final class Levels {
+
+        private final boolean descending;
+        private long[] prices = new long[8];
+        private long[] quantities = new long[8];
+        private int size;
+
+        Levels(boolean descending) {
+            this.descending = descending;
+        }
+
+        void set(long price, long quantity) {
+            int index = indexOf(price);
+            if (index >= 0) {
+                if (quantity > 0) {
+                    quantities[index] = quantity;
+                } else {
+                    System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+                    System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+                    size--;
+                }
+            } else if (quantity > 0) {
+                int insertion = -index - 1;
+                if (size == prices.length) {
+                    prices = Arrays.copyOf(prices, size << 1);
+                    quantities = Arrays.copyOf(quantities, size << 1);
+                }
+                System.arraycopy(prices, insertion, prices, insertion + 1, size - insertion);
+                System.arraycopy(quantities, insertion, quantities, insertion + 1, size - insertion);
+                prices[insertion] = price;
+                quantities[insertion] = quantity;
+                size++;
+            }
+        }
+
+        long bestPrice() {
+            return size > 0 ? prices[0] : 0L;
+        }
+
+        long bestQuantity() {
+            return size > 0 ? quantities[0] : 0L;
+        }
+
+        int copy(long[] pricesOut, long[] quantitiesOut) {
+            int count = Math.min(size, pricesOut.length);
+            System.arraycopy(prices, 0, pricesOut, 0, count);
+            System.arraycopy(quantities, 0, quantitiesOut, 0, count);
+            return count;
+        }
+
+        /**
+         * Binary search in best first order.
+         *
+         * @return the index of the price, or {@code -(insertion point) - 1}
+         */
+        private int indexOf(long price) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long candidate = prices[middle];
+                if (candidate == price) {
+                    return middle;
+                }
+                if (descending ? candidate > price : candidate < price) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encoded L2 depth frame of one order book, either a top-N snapshot or the level updates since the previous frame.
+ * A frame is encoded once and the same instance is handed to every subscriber.
+ * <p>
+ * Layout, little endian: kind byte (0 snapshot, 1 diff) padded to 4 bytes, bid count int, ask count int, padding
+ * int, sequence long, time long (epoch millis), then the bid levels best first and the ask levels best first as
+ * (price ticks, quantity) long pairs. In a diff, a quantity of 0 removes the level.
+ */
+public final class DepthUpdate {
+
+    private static final byte SNAPSHOT = 0;
+    private static final byte DIFF = 1;
+    private static final int HEADER = 32;
+    private static final int LEVEL = 2 * Long.BYTES;
+
+    private final ByteBuffer buffer;
+
+    private DepthUpdate(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static DepthUpdate encode(boolean snapshot, long sequence, long timeMillis,
+                              long[] bidPrices, long[] bidQuantities, int bids,
+                              long[] askPrices, long[] askQuantities, int asks) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + (bids + asks) * LEVEL).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(0, snapshot ? SNAPSHOT : DIFF)
+                .putInt(4, bids)
+                .putInt(8, asks)
+                .putLong(16, sequence)
+                .putLong(24, timeMillis);
+        int offset = HEADER;
+        for (int i = 0; i < bids; i++, offset += LEVEL) {
+            buffer.putLong(offset, bidPrices[i]).putLong(offset + Long.BYTES, bidQuantities[i]);
+        }
+        for (int i = 0; i < asks; i++, offset += LEVEL) {
+            buffer.putLong(offset, askPrices[i]).putLong(offset + Long.BYTES, askQuantities[i]);
+        }
+        return new DepthUpdate(buffer.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    public boolean snapshot() {
+        return buffer.get(0) == SNAPSHOT;
+    }
+
+    /**
+     * Sequence of the book frames, incremented by each diff. A snapshot carries the sequence of the last diff it
+     * includes, so a subscriber applies the diffs with a greater sequence and detects a gap if one is skipped.
+     */
+    public long sequence() {
+        return buffer.getLong(16);
+    }
+
+    public long timeMillis() {
+        return buffer.getLong(24);
+    }
+
+    public int bidCount() {
+        return buffer.getInt(4);
+    }
+
+    public int askCount() {
+        return buffer.getInt(8);
+    }
+
+    public long bidPrice(int index) {
+        return buffer.getLong(HEADER + index * LEVEL);
+    }
+
+    public long bidQuantity(int index) {
+        return buffer.getLong(HEADER + index * LEVEL + Long.BYTES);
+    }
+
+    public long askPrice(int index) {
+        return buffer.getLong(HEADER + (bidCount() + index) * LEVEL);
+    }
+
+    public long askQuantity(int index) {
+        return buffer.getLong(HEADER + (bidCount() + index) * LEVEL + Long.BYTES);
+    }
+
+    /**
+     * @return a read-only view of the encoded frame, for writing it to a socket as is
+     */
+    public ByteBuffer payload() {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
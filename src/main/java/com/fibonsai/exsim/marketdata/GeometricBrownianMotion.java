@@ -0,0 +1,39 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Geometric Brownian motion, sampled exactly: {@code S' = S exp((drift - volatility^2 / 2) dt + volatility sqrt(dt) Z)}.
+ *
+ * @param drift      annualized drift
+ * @param volatility annualized volatility
+ */
+public record GeometricBrownianMotion(double drift, double volatility) implements TickModel {
+
+    public GeometricBrownianMotion {
+        if (volatility < 0) {
+            throw new IllegalArgumentException("Negative volatility: " + volatility);
+        }
+    }
+
+    @Override
+    public double next(double price, double dt, RandomGenerator random) {
+        double logReturn = (drift - 0.5 * volatility * volatility) * dt
+                + volatility * Math.sqrt(dt) * random.nextGaussian();
+        return price * Math.exp(logReturn);
+    }
+}
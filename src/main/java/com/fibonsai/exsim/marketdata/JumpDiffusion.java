@@ -0,0 +1,49 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Merton jump-diffusion: a {@link GeometricBrownianMotion} with log-normal jumps arriving as a Poisson process.
+ * The drift is compensated so that jumps do not change the expected return. Ticks are assumed short enough for
+ * at most one jump per tick.
+ *
+ * @param drift          annualized drift
+ * @param volatility     annualized volatility of the diffusion
+ * @param jumpIntensity  expected jumps per year
+ * @param jumpMean       mean of the log jump size
+ * @param jumpVolatility standard deviation of the log jump size
+ */
+public record JumpDiffusion(double drift, double volatility, double jumpIntensity, double jumpMean,
+                            double jumpVolatility) implements TickModel {
+
+    public JumpDiffusion {
+        if (volatility < 0 || jumpIntensity < 0 || jumpVolatility < 0) {
+            throw new IllegalArgumentException("Negative volatility or jump intensity");
+        }
+    }
+
+    @Override
+    public double next(double price, double dt, RandomGenerator random) {
+        double compensation = jumpIntensity * (Math.exp(jumpMean + 0.5 * jumpVolatility * jumpVolatility) - 1);
+        double logReturn = (drift - compensation - 0.5 * volatility * volatility) * dt
+                + volatility * Math.sqrt(dt) * random.nextGaussian();
+        if (random.nextDouble() < jumpIntensity * dt) {
+            logReturn += jumpMean + jumpVolatility * random.nextGaussian();
+        }
+        return price * Math.exp(logReturn);
+    }
+}
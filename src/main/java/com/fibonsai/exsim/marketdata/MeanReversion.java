@@ -0,0 +1,42 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Ornstein-Uhlenbeck process on the log price, pulled back to the log of {@code mean}. Sampled exactly, so the
+ * result does not depend on the tick interval.
+ *
+ * @param mean       long term price
+ * @param speed      annualized speed of reversion, the half-life is {@code ln 2 / speed} years
+ * @param volatility annualized volatility
+ */
+public record MeanReversion(double mean, double speed, double volatility) implements TickModel {
+
+    public MeanReversion {
+        if (mean <= 0 || speed <= 0 || volatility < 0) {
+            throw new IllegalArgumentException("Mean and speed must be positive and volatility not negative");
+        }
+    }
+
+    @Override
+    public double next(double price, double dt, RandomGenerator random) {
+        double logMean = Math.log(mean);
+        double decay = Math.exp(-speed * dt);
+        double deviation = volatility * Math.sqrt((1 - decay * decay) / (2 * speed));
+        return Math.exp(logMean + (Math.log(price) - logMean) * decay + deviation * random.nextGaussian());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Reader position in a stream of a {@link TickRing}. A cursor belongs to a single reader thread; polling copies the
+ * ticks into arrays owned by the reader and does not allocate. Ticks overwritten before the reader polled them are
+ * skipped and counted as lost.
+ */
+public final class TickCursor {
+
+    private final TickRing ring;
+    private final int stream;
+    private long next;
+    private long lost;
+
+    TickCursor(TickRing ring, int stream, long next) {
+        this.ring = ring;
+        this.stream = stream;
+        this.next = next;
+    }
+
+    public int stream() {
+        return stream;
+    }
+
+    /**
+     * @return the sequence of the next tick to poll
+     */
+    public long next() {
+        return next;
+    }
+
+    /**
+     * @return the number of ticks overwritten before they were polled
+     */
+    public long lost() {
+        return lost;
+    }
+
+    /**
+     * Copies the ticks written since the last poll, up to the length of the arrays.
+     *
+     * @return the number of ticks copied
+     */
+    public int poll(long[] times, double[] prices) {
+        int capacity = ring.capacity();
+        while (true) {
+            long sequence = ring.sequence(stream);
+            long first = Math.max(next, sequence - capacity + 1);
+            int count = (int) Math.min(sequence - first, Math.min(times.length, prices.length));
+            for (int i = 0; i < count; i++) {
+                times[i] = ring.time(stream, first + i);
+                prices[i] = ring.price(stream, first + i);
+            }
+            VarHandle.acquireFence();
+            if (ring.sequence(stream) - first < capacity) {
+                lost += first - next;
+                next = first + count;
+                return count;
+            }
+        }
+    }
+}
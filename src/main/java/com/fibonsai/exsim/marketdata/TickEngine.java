@@ -0,0 +1,221 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Generates the ticks of {@link TickSource}s into a {@link TickRing}, stream {@code i} holding the ticks of source
+ * {@code i}. The ring may have more streams than sources: the spare streams stay idle until a source is
+ * {@link #add added} to them, and the stream of a source can be {@link #retire retired}, all without replacing the
+ * ring or its cursors.
+ * <p>
+ * The streams are split in contiguous partitions, one per generator thread, so each stream has a single writer.
+ * A partition is scanned every {@code resolution} and ticks the streams that are due. The state of the streams is
+ * kept in primitive arrays, so generating a tick does not allocate. Sources are added and retired by the thread
+ * owning the partition of the stream, at its next scan.
+ */
+@Slf4j
+public final class TickEngine {
+
+    private static final long MAX_RESOLUTION_MILLIS = 100L;
+
+    private final TickRing ring;
+    private final TickModel[] models;
+    private final double[] prices;
+    private final double[] dts;
+    private final long[] intervals;
+    private final long[] due;
+    private final SplittableRandom[] randoms;
+    private final int[] partitionStarts;
+    private final List<Queue<LongConsumer>> changes;
+    private final long resolutionMillis;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param initialPrices prices carried over by stream, NaN to start from the price of the source; may be null
+     */
+    public TickEngine(List<TickSource> sources, double[] initialPrices, int threads, int ringCapacity, long seed) {
+        this(sources, initialPrices, sources.size(), threads, ringCapacity, seed);
+    }
+
+    /**
+     * @param streams streams of the ring, the first ones holding the sources and the others spare
+     */
+    public TickEngine(List<TickSource> sources, double[] initialPrices, int streams, int threads, int ringCapacity,
+                      long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one generator thread is required");
+        }
+        if (streams < sources.size()) {
+            throw new IllegalArgumentException("%d streams for %d sources".formatted(streams, sources.size()));
+        }
+        this.ring = new TickRing(streams, ringCapacity);
+        this.models = new TickModel[streams];
+        this.prices = new double[streams];
+        this.dts = new double[streams];
+        this.intervals = new long[streams];
+        this.due = new long[streams];
+        long now = System.currentTimeMillis();
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long minInterval = MAX_RESOLUTION_MILLIS;
+        for (int stream = 0; stream < sources.size(); stream++) {
+            TickSource source = sources.get(stream);
+            double carried = initialPrices == null || stream >= initialPrices.length ? Double.NaN : initialPrices[stream];
+            models[stream] = source.model();
+            prices[stream] = carried > 0 ? carried : source.initialPrice();
+            intervals[stream] = source.intervalMillis();
+            dts[stream] = source.intervalMillis() / 1_000.0 / TickModel.SECONDS_PER_YEAR;
+            // spread the first ticks over the interval to avoid bursts
+            due[stream] = now + seeds.nextLong(source.intervalMillis()) + 1;
+            ring.write(stream, now, prices[stream]);
+            minInterval = Math.min(minInterval, source.intervalMillis());
+        }
+        this.resolutionMillis = minInterval;
+        int partitions = Math.max(1, Math.min(threads, streams));
+        this.partitionStarts = new int[partitions + 1];
+        this.randoms = new SplittableRandom[partitions];
+        this.changes = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            partitionStarts[partition + 1] = (int) ((long) streams * (partition + 1) / partitions);
+            randoms[partition] = seeds.split();
+            changes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    public TickRing ring() {
+        return ring;
+    }
+
+    public int partitionCount() {
+        return randoms.length;
+    }
+
+    /**
+     * Starts generating the ticks of the source into an idle stream, from its initial price. A cursor still
+     * positioned on the stream reads the ticks of the new source. Sources ticking more often than the sources the
+     * engine was built with tick at its resolution.
+     */
+    public void add(int stream, TickSource source) {
+        change(stream, now -> {
+            models[stream] = source.model();
+            prices[stream] = source.initialPrice();
+            intervals[stream] = source.intervalMillis();
+            dts[stream] = source.intervalMillis() / 1_000.0 / TickModel.SECONDS_PER_YEAR;
+            due[stream] = now + source.intervalMillis();
+            ring.write(stream, now, prices[stream]);
+        });
+    }
+
+    /**
+     * Stops generating the ticks of the stream. Its last ticks stay readable until the stream is reused.
+     */
+    public void retire(int stream) {
+        change(stream, now -> models[stream] = null);
+    }
+
+    private void change(int stream, LongConsumer change) {
+        if (stream < 0 || stream >= ring.streams()) {
+            throw new IndexOutOfBoundsException("Stream %d of %d".formatted(stream, ring.streams()));
+        }
+        int partition = 0;
+        while (stream >= partitionStarts[partition + 1]) {
+            partition++;
+        }
+        changes.get(partition).add(change);
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        AtomicInteger threadIds = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "tick-generator-" + threadIds.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = Executors.newScheduledThreadPool(randoms.length, threadFactory);
+        for (int partition = 0; partition < randoms.length; partition++) {
+            final int index = partition;
+            executor.scheduleAtFixedRate(() -> generate(index), 0L, resolutionMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("Tick engine started: {} streams in {} partitions every {} ms", ring.streams(), randoms.length,
+                resolutionMillis);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    private void generate(int partition) {
+        try {
+            generate(partition, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.error("Tick partition {} failed", partition, e);
+        }
+    }
+
+    /**
+     * Applies the pending added and retired sources of the partition, then ticks its streams due at {@code now}.
+     * A stream that fell behind ticks once and is rescheduled from {@code now}. Must only be called by the thread
+     * owning the partition.
+     *
+     * @return the number of ticks generated
+     */
+    int generate(int partition, long now) {
+        Queue<LongConsumer> pending = changes.get(partition);
+        for (LongConsumer change = pending.poll(); change != null; change = pending.poll()) {
+            change.accept(now);
+        }
+        SplittableRandom random = randoms[partition];
+        int ticks = 0;
+        for (int stream = partitionStarts[partition], end = partitionStarts[partition + 1]; stream < end; stream++) {
+            if (models[stream] == null || now < due[stream]) {
+                continue;
+            }
+            double price = models[stream].next(prices[stream], dts[stream], random);
+            if (price > 0 && Double.isFinite(price)) {
+                prices[stream] = price;
+            }
+            ring.write(stream, now, prices[stream]);
+            long next = due[stream] + intervals[stream];
+            due[stream] = next > now ? next : now + intervals[stream];
+            ticks++;
+        }
+        return ticks;
+    }
+}
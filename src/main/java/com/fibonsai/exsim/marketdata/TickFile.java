@@ -0,0 +1,237 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import com.fibonsai.exsim.catalog.PairIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, memory-mapped file of recorded ticks of one exchange, sorted by time.
+ * <p>
+ * The file is columnar and little endian: a header ({@code "EXTK"} magic, version, tick count, UTF-8 exchange name,
+ * pair symbol table, padded to 8 bytes) followed by the time (epoch millis), price ticks and size columns as longs
+ * and the pair id column as ints. The pair id column indexes the symbol table of the file, so a file stays valid
+ * when the {@link PairIndex} of the exchange changes: opened with the pair indexes of the catalog, its pair ids are
+ * mapped to the current ones. Prices and sizes are in the units of the pair, see
+ * {@link com.fibonsai.exsim.dto.AssetPair#priceScale()}.
+ * Ticks are read in place from the mapping, so replaying a file does not allocate.
+ */
+public final class TickFile {
+
+    public static final int MAGIC = 0x4B545845;
+    public static final int VERSION = 2;
+    public static final String EXTENSION = ".ticks";
+
+    private static final int HEADER_FIXED = 18;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final String exchange;
+    private final List<String> pairs;
+    private final int[] indexPairIds;
+    private final int count;
+    private final int times;
+    private final int prices;
+    private final int sizes;
+    private final int pairIds;
+
+    private TickFile(Path path, MappedByteBuffer buffer, Map<String, PairIndex> pairIndexes) {
+        this.path = path;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_FIXED || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a tick file: " + path);
+        }
+        long ticks = buffer.getLong(8);
+        int position = 16;
+        try {
+            this.exchange = readString(buffer, position);
+            position += Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+            int symbolCount = buffer.getInt(position);
+            position += Integer.BYTES;
+            if (symbolCount < 0 || symbolCount > (buffer.limit() - position) / Short.BYTES) {
+                throw new IllegalArgumentException("Invalid pair count " + symbolCount);
+            }
+            String[] symbols = new String[symbolCount];
+            for (int pairId = 0; pairId < symbols.length; pairId++) {
+                symbols[pairId] = readString(buffer, position);
+                position += Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+            }
+            this.pairs = List.of(symbols);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Truncated tick file: " + path, e);
+        }
+        int header = align(position);
+        if (ticks < 0 || header + ticks * (3 * Long.BYTES + Integer.BYTES) != buffer.limit()) {
+            throw new IllegalArgumentException("Truncated tick file: " + path);
+        }
+        if (pairIndexes == null) {
+            this.indexPairIds = null;
+        } else {
+            PairIndex pairIndex = pairIndexes.get(exchange);
+            this.indexPairIds = new int[pairs.size()];
+            for (int pairId = 0; pairId < indexPairIds.length; pairId++) {
+                indexPairIds[pairId] = pairIndex == null ? PairIndex.NO_PAIR : pairIndex.pairId(pairs.get(pairId));
+            }
+        }
+        this.count = (int) ticks;
+        this.times = header;
+        this.prices = times + count * Long.BYTES;
+        this.sizes = prices + count * Long.BYTES;
+        this.pairIds = sizes + count * Long.BYTES;
+    }
+
+    /**
+     * Maps the file, its pair ids indexing {@link #pairs()}. The mapping stays valid after the channel is closed and
+     * is released when the instance is garbage collected.
+     */
+    public static TickFile open(Path path) throws IOException {
+        return open(path, null);
+    }
+
+    /**
+     * Maps the file, its pair ids mapped to the {@link PairIndex} of its exchange. Pairs of the file that are not
+     * indexed, or all of them if the exchange is not, get {@link PairIndex#NO_PAIR}.
+     *
+     * @param pairIndexes pair index by lower case exchange internal name
+     */
+    public static TickFile open(Path path, Map<String, PairIndex> pairIndexes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Tick file larger than 2 GiB: " + path);
+            }
+            return new TickFile(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), pairIndexes);
+        }
+    }
+
+    /**
+     * Writes the first {@code count} ticks of the columns, which must be sorted by time.
+     *
+     * @param pairs        symbols of the pairs, see {@link com.fibonsai.exsim.dto.AssetPair#simpleName()}
+     * @param pairIdColumn index of the symbol of the pair in {@code pairs}
+     */
+    public static void write(Path path, String exchange, List<String> pairs, int count, long[] timeColumn,
+                             int[] pairIdColumn, long[] priceTicksColumn, long[] sizeColumn) throws IOException {
+        byte[] name = exchange.getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xFFFF) {
+            throw new IllegalArgumentException("Exchange name too long");
+        }
+        byte[][] symbols = new byte[pairs.size()][];
+        int header = HEADER_FIXED + name.length + Integer.BYTES;
+        for (int pairId = 0; pairId < symbols.length; pairId++) {
+            symbols[pairId] = pairs.get(pairId).getBytes(StandardCharsets.UTF_8);
+            if (symbols[pairId].length > 0xFFFF) {
+                throw new IllegalArgumentException("Pair symbol too long: " + pairs.get(pairId));
+            }
+            header += Short.BYTES + symbols[pairId].length;
+        }
+        header = align(header);
+        ByteBuffer out = ByteBuffer.allocate(Math.max(header, 64 * 1024)).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putLong(count).putShort((short) name.length).put(name).putInt(symbols.length);
+        for (byte[] symbol : symbols) {
+            out.putShort((short) symbol.length).put(symbol);
+        }
+        out.position(header);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long[] column : new long[][] {timeColumn, priceTicksColumn, sizeColumn}) {
+                for (int i = 0; i < count; i++) {
+                    if (out.remaining() < Long.BYTES) {
+                        drain(channel, out);
+                    }
+                    out.putLong(column[i]);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (out.remaining() < Integer.BYTES) {
+                    drain(channel, out);
+                }
+                out.putInt(pairIdColumn[i]);
+            }
+            drain(channel, out);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public String exchange() {
+        return exchange;
+    }
+
+    /**
+     * @return the pair symbols the pair ids of the file index
+     */
+    public List<String> pairs() {
+        return pairs;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long time(int index) {
+        return buffer.getLong(times + index * Long.BYTES);
+    }
+
+    /**
+     * @return the pair id of the tick, in the pair index the file was opened with if any, in {@link #pairs()}
+     * otherwise
+     */
+    public int pairId(int index) {
+        int pairId = buffer.getInt(pairIds + index * Integer.BYTES);
+        if (indexPairIds == null) {
+            return pairId;
+        }
+        return pairId >= 0 && pairId < indexPairIds.length ? indexPairIds[pairId] : PairIndex.NO_PAIR;
+    }
+
+    public long priceTicks(int index) {
+        return buffer.getLong(prices + index * Long.BYTES);
+    }
+
+    public long size(int index) {
+        return buffer.getLong(sizes + index * Long.BYTES);
+    }
+
+    private static String readString(ByteBuffer buffer, int position) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        buffer.get(position + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int align(int offset) {
+        return (offset + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
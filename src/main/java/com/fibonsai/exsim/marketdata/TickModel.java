@@ -0,0 +1,38 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Price process of a synthetic tick stream. Implementations are called from the generator thread owning the
+ * stream and must not allocate.
+ */
+@FunctionalInterface
+public interface TickModel {
+
+    /**
+     * Seconds in the year the annualized parameters of the models refer to.
+     */
+    double SECONDS_PER_YEAR = 365.25 * 24 * 60 * 60;
+
+    /**
+     * @param price  the previous price, positive
+     * @param dt     time since the previous tick, in years
+     * @param random source of randomness of the generator thread
+     * @return the next price
+     */
+    double next(double price, double dt, RandomGenerator random);
+}
@@ -0,0 +1,161 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays {@link TickFile}s in time order, merging them with a binary heap of file cursors. Ticks with the same
+ * time are replayed in file order.
+ * <p>
+ * With a speed of zero or less, ticks are replayed as fast as possible. Otherwise the replay follows the wall clock,
+ * scaled by the speed: at 2, an hour of recorded ticks is replayed in half an hour.
+ */
+public final class TickReplay {
+
+    /**
+     * Receives the replayed ticks on the replay thread.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onTick(int file, long timeMillis, int pairId, long priceTicks, long size);
+    }
+
+    private static final int CANCEL_CHECK_MASK = 4095;
+
+    private final TickFile[] files;
+    private final double speed;
+    private volatile boolean cancelled;
+    private volatile Thread runner;
+
+    public TickReplay(List<TickFile> files, double speed) {
+        this.files = files.toArray(TickFile[]::new);
+        this.speed = speed;
+    }
+
+    /**
+     * Stops a running replay after its current tick.
+     */
+    public void cancel() {
+        cancelled = true;
+        Thread thread = runner;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Replays every file on the calling thread, until the files are exhausted or the replay is cancelled.
+     *
+     * @return the number of ticks replayed
+     */
+    public long run(Listener listener) {
+        int[] positions = new int[files.length];
+        int[] heap = new int[files.length];
+        int heapSize = 0;
+        for (int file = 0; file < files.length; file++) {
+            if (files[file].count() > 0) {
+                heap[heapSize] = file;
+                siftUp(heap, heapSize++, positions);
+            }
+        }
+        if (heapSize == 0) {
+            return 0L;
+        }
+        runner = Thread.currentThread();
+        try {
+            return replay(heap, heapSize, positions, listener);
+        } finally {
+            runner = null;
+        }
+    }
+
+    private long replay(int[] heap, int heapSize, int[] positions, Listener listener) {
+        long firstTime = files[heap[0]].time(0);
+        long startNanos = System.nanoTime();
+        long replayed = 0;
+        while (heapSize > 0 && !((replayed & CANCEL_CHECK_MASK) == 0 && cancelled)) {
+            int file = heap[0];
+            TickFile tickFile = files[file];
+            int position = positions[file];
+            long time = tickFile.time(position);
+            if (speed > 0) {
+                waitFor(startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(time - firstTime) / speed));
+                if (cancelled) {
+                    break;
+                }
+            }
+            listener.onTick(file, time, tickFile.pairId(position), tickFile.priceTicks(position),
+                    tickFile.size(position));
+            replayed++;
+            if (++positions[file] == tickFile.count()) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, heapSize, positions);
+        }
+        return replayed;
+    }
+
+    private void waitFor(long deadlineNanos) {
+        long remaining;
+        while (!cancelled && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private boolean before(int file, int other, int[] positions) {
+        long time = files[file].time(positions[file]);
+        long otherTime = files[other].time(positions[other]);
+        return time < otherTime || (time == otherTime && file < other);
+    }
+
+    private void siftUp(int[] heap, int index, int[] positions) {
+        int file = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!before(file, heap[parent], positions)) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = file;
+    }
+
+    private void siftDown(int[] heap, int size, int[] positions) {
+        if (size == 0) {
+            return;
+        }
+        int index = 0;
+        int file = heap[0];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child], positions)) {
+                child++;
+            }
+            if (!before(heap[child], file, positions)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = file;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated rings of ticks, one per stream, stored in two flat primitive columns so that writing and reading
+ * ticks does not allocate.
+ * <p>
+ * Each stream has a single writer, which fills the slot and then publishes it by releasing the stream sequence.
+ * Readers never block the writer: they copy the slots, then check the sequence again and retry if the writer
+ * reached the slots in the meantime. The slot being written is never read, so a stream retains
+ * {@code capacity - 1} readable ticks.
+ */
+public final class TickRing {
+
+    private final int streams;
+    private final int capacity;
+    private final int mask;
+    private final long[] times;
+    private final double[] prices;
+    private final AtomicLongArray sequences;
+
+    /**
+     * @param capacity ticks retained per stream, a power of two
+     */
+    public TickRing(int streams, int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.streams = streams;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        int slots = Math.multiplyExact(streams, capacity);
+        this.times = new long[slots];
+        this.prices = new double[slots];
+        this.sequences = new AtomicLongArray(streams);
+    }
+
+    public int streams() {
+        return streams;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Appends a tick to the stream. Must only be called by the writer of the stream.
+     */
+    public void write(int stream, long timeMillis, double price) {
+        long sequence = sequences.getPlain(stream);
+        int index = index(stream, sequence);
+        times[index] = timeMillis;
+        prices[index] = price;
+        sequences.setRelease(stream, sequence + 1);
+    }
+
+    /**
+     * @return the number of ticks written to the stream
+     */
+    public long sequence(int stream) {
+        return sequences.getAcquire(stream);
+    }
+
+    /**
+     * @return the last price of the stream, or NaN if it has no tick yet
+     */
+    public double lastPrice(int stream) {
+        while (true) {
+            long sequence = sequences.getAcquire(stream);
+            if (sequence == 0) {
+                return Double.NaN;
+            }
+            double price = prices[index(stream, sequence - 1)];
+            VarHandle.acquireFence();
+            if (sequences.getAcquire(stream) - sequence < capacity - 1) {
+                return price;
+            }
+        }
+    }
+
+    /**
+     * @return the time of the last tick of the stream, or -1 if it has no tick yet
+     */
+    public long lastTime(int stream) {
+        while (true) {
+            long sequence = sequences.getAcquire(stream);
+            if (sequence == 0) {
+                return -1L;
+            }
+            long time = times[index(stream, sequence - 1)];
+            VarHandle.acquireFence();
+            if (sequences.getAcquire(stream) - sequence < capacity - 1) {
+                return time;
+            }
+        }
+    }
+
+    /**
+     * @return a cursor on the stream positioned after its last tick
+     */
+    public TickCursor cursor(int stream) {
+        return new TickCursor(this, stream, sequence(stream));
+    }
+
+    long time(int stream, long sequence) {
+        return times[index(stream, sequence)];
+    }
+
+    double price(int stream, long sequence) {
+        return prices[index(stream, sequence)];
+    }
+
+    private int index(int stream, long sequence) {
+        return stream * capacity + (int) (sequence & mask);
+    }
+}
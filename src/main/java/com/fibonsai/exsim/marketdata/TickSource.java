@@ -0,0 +1,30 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+/**
+ * Definition of a synthetic tick stream.
+ *
+ * @param initialPrice   first price of the stream, positive
+ * @param intervalMillis time between two ticks
+ */
+public record TickSource(TickModel model, double initialPrice, long intervalMillis) {
+
+    public TickSource {
+        if (!(initialPrice > 0) || intervalMillis < 1) {
+            throw new IllegalArgumentException("Initial price and interval must be positive");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+/**
+ * Conflated top of book and last trade of a pair, see {@link TickerSlot}.
+ *
+ * @param sequence     number of updates of the slot up to this value
+ * @param bidPrice     best bid price in ticks, meaningful only if {@code bidQuantity} is positive
+ * @param askPrice     best ask price in ticks, meaningful only if {@code askQuantity} is positive
+ * @param lastPrice    price in ticks of the last trade, meaningful only if {@code lastQuantity} is positive
+ * @param lastQuantity quantity of the last trade, 0 if the book did not trade yet
+ */
+public record Ticker(long sequence, long timeMillis, long bidPrice, long bidQuantity, long askPrice,
+                     long askQuantity, long lastPrice, long lastQuantity) {}
@@ -0,0 +1,123 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the latest value of {@link TickerSlot}s to subscribers. Writers only update their slot and never see
+ * the subscribers. Each subscriber is sent the latest value it has not seen when it requests more, or on the
+ * next interval if none was available, so values it was too slow to take are dropped instead of buffered and
+ * a value waits at most one interval for a subscriber with demand.
+ */
+@Slf4j
+public final class TickerPublisher {
+
+    private final long intervalMillis;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService executor;
+
+    public TickerPublisher(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Ticker interval must be positive");
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ticker-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::publishSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        subscriptions.forEach(subscription -> subscription.sink.complete());
+    }
+
+    public Flux<Ticker> subscribe(TickerSlot slot) {
+        return Flux.create(sink -> {
+            Subscription subscription = new Subscription(slot, sink);
+            subscriptions.add(subscription);
+            sink.onDispose(() -> subscriptions.remove(subscription));
+            sink.onRequest(n -> subscription.drain());
+        }, FluxSink.OverflowStrategy.LATEST);
+    }
+
+    /**
+     * Sends their latest value to the subscribers with demand that did not see it yet.
+     */
+    public void publish() {
+        for (Subscription subscription : subscriptions) {
+            subscription.drain();
+        }
+    }
+
+    private void publishSafely() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            log.error("Ticker publish failed", e);
+        }
+    }
+
+    private static final class Subscription {
+
+        private final TickerSlot slot;
+        private final FluxSink<Ticker> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+        private long sent;
+
+        Subscription(TickerSlot slot, FluxSink<Ticker> sink) {
+            this.slot = slot;
+            this.sink = sink;
+        }
+
+        /**
+         * Emits at most one value. Concurrent calls are serialized by the work in progress counter: the caller
+         * that finds it non zero leaves the emission to the one draining, which loops again.
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (sink.requestedFromDownstream() > 0 && !sink.isCancelled() && slot.sequence() != sent) {
+                    Ticker ticker = slot.read();
+                    sent = ticker.sequence();
+                    sink.next(ticker);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single value slot holding the latest {@link Ticker} of a book as primitives, so the writer never allocates nor
+ * blocks. Each update overwrites the previous one.
+ * <p>
+ * The slot has a single writer, which makes the version odd while it writes the fields and even again once done.
+ * Readers copy the fields and retry if the version was odd or changed in the meantime.
+ */
+public final class TickerSlot {
+
+    private final AtomicLong version = new AtomicLong();
+    private long timeMillis;
+    private long bidPrice;
+    private long bidQuantity;
+    private long askPrice;
+    private long askQuantity;
+    private long lastPrice;
+    private long lastQuantity;
+
+    /**
+     * Sets the best bid and ask, if they changed. Must only be called by the writer of the slot.
+     */
+    public void quote(long bidPrice, long bidQuantity, long askPrice, long askQuantity, long timeMillis) {
+        if (bidPrice == this.bidPrice && bidQuantity == this.bidQuantity
+                && askPrice == this.askPrice && askQuantity == this.askQuantity) {
+            return;
+        }
+        long current = beginWrite();
+        this.timeMillis = timeMillis;
+        this.bidPrice = bidPrice;
+        this.bidQuantity = bidQuantity;
+        this.askPrice = askPrice;
+        this.askQuantity = askQuantity;
+        version.setRelease(current + 2);
+    }
+
+    /**
+     * Sets the last trade. Must only be called by the writer of the slot.
+     */
+    public void trade(long price, long quantity, long timeMillis) {
+        long current = beginWrite();
+        this.timeMillis = timeMillis;
+        this.lastPrice = price;
+        this.lastQuantity = quantity;
+        version.setRelease(current + 2);
+    }
+
+    private long beginWrite() {
+        long current = version.getPlain();
+        version.setOpaque(current + 1);
+        VarHandle.storeStoreFence();
+        return current;
+    }
+
+    /**
+     * @return the number of updates of the slot
+     */
+    public long sequence() {
+        return version.getAcquire() >>> 1;
+    }
+
+    /**
+     * @return a consistent copy of the latest value, or null if the slot was never updated
+     */
+    public Ticker read() {
+        while (true) {
+            long current = version.getAcquire();
+            if (current == 0) {
+                return null;
+            }
+            if ((current & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Ticker ticker = new Ticker(current >>> 1, timeMillis, bidPrice, bidQuantity, askPrice, askQuantity,
+                    lastPrice, lastQuantity);
+            VarHandle.acquireFence();
+            if (version.getPlain() == current) {
+                return ticker;
+            }
+        }
+    }
+}
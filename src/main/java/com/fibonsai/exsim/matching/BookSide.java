@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+import java.util.Arrays;
+
+/**
+ * Price levels of one side of the book, sorted by primitive long keys.
+ * <p>
+ * Keys are the price ticks for bids and the negated price ticks for asks, so both sides are stored in
+ * ascending key order and the best level is always the last one. Adding or removing levels close to the
+ * top of the book therefore moves few (or no) elements.
+ */
+final class BookSide {
+
+    private final Side side;
+    private long[] keys;
+    private PriceLevel[] levels;
+    private int size;
+
+    BookSide(Side side, int initialCapacity) {
+        this.side = side;
+        this.keys = new long[Math.max(initialCapacity, 16)];
+        this.levels = new PriceLevel[keys.length];
+    }
+
+    Side side() {
+        return side;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the best level or null if empty
+     */
+    PriceLevel best() {
+        return size == 0 ? null : levels[size - 1];
+    }
+
+    /**
+     * @param depth 0 for the best level, 1 for the next one and so on
+     * @return the level or null if the book does not have that depth
+     */
+    PriceLevel level(int depth) {
+        return depth < 0 || depth >= size ? null : levels[size - 1 - depth];
+    }
+
+    PriceLevel find(long priceTicks) {
+        int index = Arrays.binarySearch(keys, 0, size, key(priceTicks));
+        return index >= 0 ? levels[index] : null;
+    }
+
+    /**
+     * @return true if an order at {@code priceTicks} on the opposite side crosses this side's best level
+     */
+    boolean crosses(long priceTicks) {
+        if (size == 0) {
+            return false;
+        }
+        long bestPrice = levels[size - 1].priceTicks;
+        return side == Side.SELL ? priceTicks >= bestPrice : priceTicks <= bestPrice;
+    }
+
+    void insert(PriceLevel level) {
+        long key = key(level.priceTicks);
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index >= 0) {
+            throw new IllegalStateException("Price level %d already exists".formatted(level.priceTicks));
+        }
+        index = -index - 1;
+        if (size == keys.length) {
+            grow();
+        }
+        int moved = size - index;
+        if (moved > 0) {
+            System.arraycopy(keys, index, keys, index + 1, moved);
+            System.arraycopy(levels, index, levels, index + 1, moved);
+        }
+        keys[index] = key;
+        levels[index] = level;
+        size++;
+    }
+
+    void remove(PriceLevel level) {
+        int index;
+        if (size > 0 && levels[size - 1] == level) {
+            index = size - 1;
+        } else {
+            index = Arrays.binarySearch(keys, 0, size, key(level.priceTicks));
+            if (index < 0) {
+                return;
+            }
+        }
+        int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(levels, index + 1, levels, index, moved);
+        }
+        size--;
+        levels[size] = null;
+    }
+
+    private long key(long priceTicks) {
+        return side == Side.BUY ? priceTicks : -priceTicks;
+    }
+
+    private void grow() {
+        int capacity = keys.length << 1;
+        keys = Arrays.copyOf(keys, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+    }
+}
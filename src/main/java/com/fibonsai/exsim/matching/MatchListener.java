@@ -0,0 +1,41 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+/**
+ * Receives the outcome of the order book operations.
+ * Callbacks are invoked on the thread that owns the book and receive only primitives and enums,
+ * so the matching path does not allocate.
+ */
+public interface MatchListener {
+
+    MatchListener NOOP = new MatchListener() {};
+
+    default void onTrade(long takerOrderId, long makerOrderId, Side takerSide, long priceTicks, long quantity,
+                         long takerRemaining, long makerRemaining) {}
+
+    default void onOrderRested(long orderId, Side side, long priceTicks, long remaining) {}
+
+    default void onOrderCancelled(long orderId, long remaining) {}
+
+    default void onOrderRejected(long orderId, RejectReason reason) {}
+
+    /**
+     * Called once per price level touched by an operation, after the level was updated.
+     *
+     * @param quantity total quantity resting at the level, 0 if the level was removed
+     */
+    default void onLevelChanged(Side side, long priceTicks, long quantity) {}
+}
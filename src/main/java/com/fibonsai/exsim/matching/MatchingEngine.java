@@ -0,0 +1,136 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fixed set of {@link MatchingShard}s. Every book is assigned to a shard by hashing its exchange and pair and
+ * is identified by a book id that encodes both the shard and the index of the book inside the shard,
+ * so routing a command is arithmetic only and no lock is shared between shards.
+ */
+@Slf4j
+public final class MatchingEngine {
+
+    private final MatchingShard[] shards;
+    private final AtomicIntegerArray bookCounts;
+    private volatile boolean started;
+
+    public MatchingEngine(int shardCount, int ringCapacity) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("At least one matching shard is required");
+        }
+        this.shards = new MatchingShard[shardCount];
+        this.bookCounts = new AtomicIntegerArray(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new MatchingShard(i, ringCapacity);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public void start() {
+        for (MatchingShard shard : shards) {
+            shard.start();
+        }
+        started = true;
+        log.info("Matching engine started with {} shards", shards.length);
+    }
+
+    public void stop() {
+        started = false;
+        for (MatchingShard shard : shards) {
+            shard.stop();
+        }
+    }
+
+    public int shardOf(String exchange, AssetPair assetPair) {
+        int hash = 31 * exchange.hashCode() + assetPair.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    /**
+     * Hands the book over to its shard. The engine must be running and the caller must not use the book afterward.
+     *
+     * @return the book id used to route commands
+     */
+    public int register(String exchange, OrderBook book) {
+        if (!started) {
+            throw new IllegalStateException("Matching engine is not running");
+        }
+        int shard = shardOf(exchange, book.assetPair());
+        Integer free = shards[shard].pollFreeIndex();
+        int index = free != null ? free : bookCounts.getAndIncrement(shard);
+        OrderCommandRing ring = shards[shard].ring();
+        while (!ring.offerAddBook(index, book)) {
+            Thread.onSpinWait();
+        }
+        return index * shards.length + shard;
+    }
+
+    /**
+     * Drops the book from its shard, resting orders included. Commands already queued for the book are applied
+     * first; later ones are rejected by the shard with {@link RejectReason#UNKNOWN_BOOK} through the listener of
+     * the book, until it is {@link #release released}.
+     */
+    public void remove(int bookId) {
+        if (!started) {
+            throw new IllegalStateException("Matching engine is not running");
+        }
+        OrderCommandRing ring = ring(bookId);
+        while (!ring.offerRemoveBook(bookId / shards.length)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Forgets the listener of a removed book and lets a new book reuse its id once the shard applied the release.
+     * A book that was not removed keeps its id. Commands sent with the id afterward reach the book reusing it,
+     * so a book is released only once no caller routes with a snapshot that still held it.
+     */
+    public void release(int bookId) {
+        if (!started) {
+            throw new IllegalStateException("Matching engine is not running");
+        }
+        int shard = bookId % shards.length;
+        OrderCommandRing ring = shards[shard].ring();
+        while (!ring.offerReleaseBook(bookId / shards.length)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return false if the shard ring is full
+     */
+    public boolean submit(int bookId, long orderId, Side side, long priceTicks, long quantity, TimeInForce timeInForce) {
+        return ring(bookId).offerSubmit(bookId / shards.length, orderId, side, priceTicks, quantity, timeInForce);
+    }
+
+    /**
+     * @return false if the shard ring is full
+     */
+    public boolean cancel(int bookId, long orderId) {
+        return ring(bookId).offerCancel(bookId / shards.length, orderId);
+    }
+
+    private OrderCommandRing ring(int bookId) {
+        return shards[bookId % shards.length].ring();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer event loop owning a group of order books. Books are only touched by the shard thread;
+ * other threads interact with them exclusively through the shard {@link OrderCommandRing}.
+ */
+@Slf4j
+final class MatchingShard implements Runnable, OrderCommandRing.Handler {
+
+    private static final int DRAIN_LIMIT = 256;
+    private static final int SPIN_TRIES = 1_000;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    private final int id;
+    private final OrderCommandRing ring;
+    private OrderBook[] books = new OrderBook[16];
+    /** Listeners by book index, kept after the book is removed to reject its late commands until it is released. */
+    private MatchListener[] listeners = new MatchListener[16];
+    /** Indexes of released books, offered by the shard thread once the release was applied. */
+    private final Queue<Integer> freeIndexes = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private Thread thread;
+
+    MatchingShard(int id, int ringCapacity) {
+        this.id = id;
+        this.ring = new OrderCommandRing(ringCapacity);
+    }
+
+    int id() {
+        return id;
+    }
+
+    OrderCommandRing ring() {
+        return ring;
+    }
+
+    /**
+     * @return the index of a released book that a new book can reuse, or null
+     */
+    Integer pollFreeIndex() {
+        return freeIndexes.poll();
+    }
+
+    synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "matching-shard-" + id);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1_000L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        log.info("Matching shard {} started", id);
+        int idle = 0;
+        while (running) {
+            if (ring.drain(this, DRAIN_LIMIT) > 0) {
+                idle = 0;
+            } else {
+                idle = idle(idle);
+            }
+        }
+        ring.drain(this, Integer.MAX_VALUE);
+        log.info("Matching shard {} stopped", id);
+    }
+
+    @Override
+    public void onCommand(OrderCommand command) {
+        try {
+            switch (command.type) {
+                case SUBMIT -> {
+                    OrderBook book = book(command.bookIndex);
+                    if (book == null) {
+                        rejectUnknownBook(command);
+                    } else {
+                        book.submit(command.orderId, command.side, command.priceTicks, command.quantity,
+                                command.timeInForce);
+                    }
+                }
+                case CANCEL -> {
+                    OrderBook book = book(command.bookIndex);
+                    if (book == null) {
+                        rejectUnknownBook(command);
+                    } else {
+                        book.cancel(command.orderId);
+                    }
+                }
+                case ADD_BOOK -> addBook(command.bookIndex, (OrderBook) command.attachment);
+                case REMOVE_BOOK -> removeBook(command.bookIndex);
+                case RELEASE_BOOK -> releaseBook(command.bookIndex);
+            }
+        } catch (RuntimeException e) {
+            log.error("Shard {}: command {} on book {} failed", id, command.type, command.bookIndex, e);
+        }
+    }
+
+    /**
+     * @return the book, or null if it was removed or never added
+     */
+    private OrderBook book(int index) {
+        return index >= 0 && index < books.length ? books[index] : null;
+    }
+
+    /**
+     * Rejects a command for a removed book through the listener of the book. A command for a book that was never
+     * added has no listener to report to and is only logged.
+     */
+    private void rejectUnknownBook(OrderCommand command) {
+        MatchListener listener = command.bookIndex >= 0 && command.bookIndex < listeners.length
+                ? listeners[command.bookIndex] : null;
+        if (listener == null) {
+            log.warn("Shard {}: command {} of order {} for unknown book {} ignored", id, command.type,
+                    command.orderId, command.bookIndex);
+            return;
+        }
+        listener.onOrderRejected(command.orderId, RejectReason.UNKNOWN_BOOK);
+    }
+
+    private void addBook(int index, OrderBook book) {
+        if (index >= books.length) {
+            int length = Math.max(books.length << 1, index + 1);
+            books = Arrays.copyOf(books, length);
+            listeners = Arrays.copyOf(listeners, length);
+        }
+        books[index] = book;
+        listeners[index] = book.listener();
+    }
+
+    private void removeBook(int index) {
+        OrderBook book = book(index);
+        if (book == null) {
+            log.warn("Shard {}: unknown book {} not removed", id, index);
+            return;
+        }
+        books[index] = null;
+        log.info("Shard {}: book {} of {} removed with {} resting orders", id, index, book.assetPair(),
+                book.orderCount());
+    }
+
+    private void releaseBook(int index) {
+        if (book(index) != null) {
+            log.warn("Shard {}: book {} not released, it was not removed", id, index);
+            return;
+        }
+        if (index < 0 || index >= listeners.length || listeners[index] == null) {
+            log.warn("Shard {}: unknown book {} not released", id, index);
+            return;
+        }
+        listeners[index] = null;
+        freeIndexes.offer(index);
+    }
+
+    private int idle(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            return idle;
+        }
+        return idle + 1;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+/**
+ * Resting order node. Instances are pooled by the {@link OrderBook} and linked in FIFO order inside a {@link PriceLevel}.
+ */
+final class Order {
+
+    long id;
+    Side side;
+    long priceTicks;
+    long remaining;
+
+    PriceLevel level;
+    Order prev;
+    Order next;
+
+    Order set(long id, Side side, long priceTicks, long remaining) {
+        this.id = id;
+        this.side = side;
+        this.priceTicks = priceTicks;
+        this.remaining = remaining;
+        return this;
+    }
+
+    void clear() {
+        side = null;
+        level = null;
+        prev = null;
+        next = null;
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.util.FixedPointUtil;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Central limit order book of a single {@link AssetPair} with price-time priority matching.
+ * <p>
+ * Prices are long ticks scaled by {@link AssetPair#priceScale()} and quantities are long units scaled by
+ * {@link AssetPair#quantityScale()}. Order and price level nodes are pooled and results are reported through a
+ * {@link MatchListener}, so once the pools are warm submitting, matching and cancelling orders does not allocate.
+ * <p>
+ * The book is not thread-safe: it must be owned and accessed by a single thread.
+ */
+public final class OrderBook {
+
+    public static final long NO_PRICE = Long.MIN_VALUE;
+    public static final int DEFAULT_LEVEL_CAPACITY = 128;
+
+    private final AssetPair assetPair;
+    private final int priceScale;
+    private final int quantityScale;
+    private final MatchListener listener;
+
+    private final BookSide bids;
+    private final BookSide asks;
+    private final LongObjectHashMap<Order> orders;
+
+    private Order freeOrders;
+    private PriceLevel freeLevels;
+
+    private long tradeCount;
+
+    public OrderBook(AssetPair assetPair, MatchListener listener) {
+        this(assetPair, listener, 1024);
+    }
+
+    public OrderBook(AssetPair assetPair, MatchListener listener, int initialOrderCapacity) {
+        this(assetPair, listener, initialOrderCapacity, DEFAULT_LEVEL_CAPACITY);
+    }
+
+    /**
+     * @param initialOrderCapacity orders pooled up front, the pool grows on demand
+     * @param initialLevelCapacity price levels of both sides pooled up front, the pool grows on demand
+     */
+    public OrderBook(AssetPair assetPair, MatchListener listener, int initialOrderCapacity, int initialLevelCapacity) {
+        this.assetPair = Objects.requireNonNull(assetPair);
+        this.priceScale = assetPair.priceScale();
+        this.quantityScale = assetPair.quantityScale();
+        this.listener = Objects.requireNonNullElse(listener, MatchListener.NOOP);
+        this.bids = new BookSide(Side.BUY, initialLevelCapacity / 2);
+        this.asks = new BookSide(Side.SELL, initialLevelCapacity / 2);
+        this.orders = new LongObjectHashMap<>(initialOrderCapacity);
+        for (int i = 0; i < initialOrderCapacity; i++) {
+            release(new Order());
+        }
+        for (int i = 0; i < initialLevelCapacity; i++) {
+            release(new PriceLevel());
+        }
+    }
+
+    public AssetPair assetPair() {
+        return assetPair;
+    }
+
+    MatchListener listener() {
+        return listener;
+    }
+
+    /**
+     * Submits a limit order. The incoming order matches against the opposite side while prices cross,
+     * filling resting orders at their own price in arrival order.
+     *
+     * @return false if the order was rejected
+     */
+    public boolean submit(long orderId, Side side, long priceTicks, long quantity, TimeInForce timeInForce) {
+        if (priceTicks <= 0L) {
+            listener.onOrderRejected(orderId, RejectReason.INVALID_PRICE);
+            return false;
+        }
+        if (quantity <= 0L) {
+            listener.onOrderRejected(orderId, RejectReason.INVALID_QUANTITY);
+            return false;
+        }
+        if (orders.containsKey(orderId)) {
+            listener.onOrderRejected(orderId, RejectReason.DUPLICATE_ORDER_ID);
+            return false;
+        }
+
+        long remaining = match(orderId, side, priceTicks, quantity);
+
+        if (remaining > 0L) {
+            if (timeInForce == TimeInForce.GTC) {
+                rest(orderId, side, priceTicks, remaining);
+            } else {
+                listener.onOrderCancelled(orderId, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Submits an order converting price and quantity to ticks and units.
+     *
+     * @throws ArithmeticException if price or quantity have more decimal places than the pair supports
+     */
+    public boolean submit(long orderId, Side side, BigDecimal price, BigDecimal quantity, TimeInForce timeInForce) {
+        return submit(orderId, side, priceTicks(price), quantityUnits(quantity), timeInForce);
+    }
+
+    /**
+     * @return false if the order is unknown (already filled or cancelled)
+     */
+    public boolean cancel(long orderId) {
+        Order order = orders.remove(orderId);
+        if (order == null) {
+            listener.onOrderRejected(orderId, RejectReason.UNKNOWN_ORDER);
+            return false;
+        }
+        long remaining = order.remaining;
+        unlink(order);
+        listener.onOrderCancelled(orderId, remaining);
+        release(order);
+        return true;
+    }
+
+    public long bestBid() {
+        PriceLevel level = bids.best();
+        return level == null ? NO_PRICE : level.priceTicks;
+    }
+
+    public long bestAsk() {
+        PriceLevel level = asks.best();
+        return level == null ? NO_PRICE : level.priceTicks;
+    }
+
+    /**
+     * @param depth 0 for the best level
+     * @return the price of the level or {@link #NO_PRICE}
+     */
+    public long levelPrice(Side side, int depth) {
+        PriceLevel level = side(side).level(depth);
+        return level == null ? NO_PRICE : level.priceTicks;
+    }
+
+    /**
+     * @param depth 0 for the best level
+     * @return the total quantity resting at the level or 0
+     */
+    public long levelQuantity(Side side, int depth) {
+        PriceLevel level = side(side).level(depth);
+        return level == null ? 0L : level.totalQuantity;
+    }
+
+    public long quantityAt(Side side, long priceTicks) {
+        PriceLevel level = side(side).find(priceTicks);
+        return level == null ? 0L : level.totalQuantity;
+    }
+
+    public int depth(Side side) {
+        return side(side).size();
+    }
+
+    public int orderCount() {
+        return orders.size();
+    }
+
+    public long tradeCount() {
+        return tradeCount;
+    }
+
+    /**
+     * @return remaining quantity of a resting order or 0 if unknown
+     */
+    public long remaining(long orderId) {
+        Order order = orders.get(orderId);
+        return order == null ? 0L : order.remaining;
+    }
+
+    public long priceTicks(BigDecimal price) {
+        return FixedPointUtil.toUnits(price, priceScale);
+    }
+
+    public BigDecimal price(long priceTicks) {
+        return FixedPointUtil.fromUnits(priceTicks, priceScale);
+    }
+
+    public long quantityUnits(BigDecimal quantity) {
+        return FixedPointUtil.toUnits(quantity, quantityScale);
+    }
+
+    public BigDecimal quantity(long quantityUnits) {
+        return FixedPointUtil.fromUnits(quantityUnits, quantityScale);
+    }
+
+    private long match(long orderId, Side side, long priceTicks, long quantity) {
+        BookSide opposite = side(side.opposite());
+        long remaining = quantity;
+        while (remaining > 0L && opposite.crosses(priceTicks)) {
+            PriceLevel level = opposite.best();
+            while (remaining > 0L && !level.isEmpty()) {
+                Order maker = level.head;
+                long fill = Math.min(remaining, maker.remaining);
+                remaining -= fill;
+                maker.remaining -= fill;
+                level.totalQuantity -= fill;
+                tradeCount++;
+                listener.onTrade(orderId, maker.id, side, level.priceTicks, fill, remaining, maker.remaining);
+                if (maker.remaining == 0L) {
+                    orders.remove(maker.id);
+                    level.remove(maker);
+                    release(maker);
+                }
+            }
+            listener.onLevelChanged(opposite.side(), level.priceTicks, level.totalQuantity);
+            if (level.isEmpty()) {
+                opposite.remove(level);
+                release(level);
+            }
+        }
+        return remaining;
+    }
+
+    private void rest(long orderId, Side side, long priceTicks, long remaining) {
+        BookSide bookSide = side(side);
+        PriceLevel level = bookSide.find(priceTicks);
+        if (level == null) {
+            level = acquireLevel().set(priceTicks);
+            bookSide.insert(level);
+        }
+        Order order = acquireOrder().set(orderId, side, priceTicks, remaining);
+        level.append(order);
+        orders.put(orderId, order);
+        listener.onOrderRested(orderId, side, priceTicks, remaining);
+        listener.onLevelChanged(side, priceTicks, level.totalQuantity);
+    }
+
+    private void unlink(Order order) {
+        PriceLevel level = order.level;
+        level.remove(order);
+        listener.onLevelChanged(order.side, level.priceTicks, level.totalQuantity);
+        if (level.isEmpty()) {
+            side(order.side).remove(level);
+            release(level);
+        }
+    }
+
+    private BookSide side(Side side) {
+        return side == Side.BUY ? bids : asks;
+    }
+
+    private Order acquireOrder() {
+        Order order = freeOrders;
+        if (order == null) {
+            return new Order();
+        }
+        freeOrders = order.next;
+        order.next = null;
+        return order;
+    }
+
+    private void release(Order order) {
+        order.clear();
+        order.next = freeOrders;
+        freeOrders = order;
+    }
+
+    private PriceLevel acquireLevel() {
+        PriceLevel level = freeLevels;
+        if (level == null) {
+            return new PriceLevel();
+        }
+        freeLevels = level.nextFree;
+        level.nextFree = null;
+        return level;
+    }
+
+    private void release(PriceLevel level) {
+        level.clear();
+        level.nextFree = freeLevels;
+        freeLevels = level;
+    }
+}
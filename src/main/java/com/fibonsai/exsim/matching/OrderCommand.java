@@ -0,0 +1,71 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+/**
+ * Preallocated slot of an {@link OrderCommandRing}. Producers fill the fields in place, so sending a command
+ * to a shard does not allocate.
+ */
+public final class OrderCommand {
+
+    public enum Type {
+        SUBMIT,
+        CANCEL,
+        ADD_BOOK,
+        REMOVE_BOOK,
+        RELEASE_BOOK
+    }
+
+    Type type;
+    int bookIndex;
+    long orderId;
+    Side side;
+    long priceTicks;
+    long quantity;
+    TimeInForce timeInForce;
+    Object attachment;
+
+    public Type type() {
+        return type;
+    }
+
+    public int bookIndex() {
+        return bookIndex;
+    }
+
+    public long orderId() {
+        return orderId;
+    }
+
+    public Side side() {
+        return side;
+    }
+
+    public long priceTicks() {
+        return priceTicks;
+    }
+
+    public long quantity() {
+        return quantity;
+    }
+
+    public TimeInForce timeInForce() {
+        return timeInForce;
+    }
+
+    public Object attachment() {
+        return attachment;
+    }
+}
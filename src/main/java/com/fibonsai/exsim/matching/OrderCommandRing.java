@@ -0,0 +1,179 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer single-consumer ring of preallocated {@link OrderCommand} slots.
+ * <p>
+ * Each slot carries a sequence number: producers claim a position with a CAS on the tail, fill the slot and
+ * publish it by releasing the slot sequence; the single consumer reads slots in order and hands them back by
+ * advancing the slot sequence one lap ahead. When the ring is full {@code offer*} returns false instead of blocking.
+ */
+public final class OrderCommandRing {
+
+    @FunctionalInterface
+    public interface Handler {
+        void onCommand(OrderCommand command);
+    }
+
+    private final OrderCommand[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    public OrderCommandRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.slots = new OrderCommand[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new OrderCommand();
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public boolean offerSubmit(int bookIndex, long orderId, Side side, long priceTicks, long quantity,
+                               TimeInForce timeInForce) {
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+        OrderCommand command = slots[(int) position & mask];
+        command.type = OrderCommand.Type.SUBMIT;
+        command.bookIndex = bookIndex;
+        command.orderId = orderId;
+        command.side = side;
+        command.priceTicks = priceTicks;
+        command.quantity = quantity;
+        command.timeInForce = timeInForce;
+        command.attachment = null;
+        publish(position);
+        return true;
+    }
+
+    public boolean offerCancel(int bookIndex, long orderId) {
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+        OrderCommand command = slots[(int) position & mask];
+        command.type = OrderCommand.Type.CANCEL;
+        command.bookIndex = bookIndex;
+        command.orderId = orderId;
+        command.attachment = null;
+        publish(position);
+        return true;
+    }
+
+    public boolean offerAddBook(int bookIndex, OrderBook book) {
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+        OrderCommand command = slots[(int) position & mask];
+        command.type = OrderCommand.Type.ADD_BOOK;
+        command.bookIndex = bookIndex;
+        command.attachment = book;
+        publish(position);
+        return true;
+    }
+
+    public boolean offerRemoveBook(int bookIndex) {
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+        OrderCommand command = slots[(int) position & mask];
+        command.type = OrderCommand.Type.REMOVE_BOOK;
+        command.bookIndex = bookIndex;
+        command.attachment = null;
+        publish(position);
+        return true;
+    }
+
+    public boolean offerReleaseBook(int bookIndex) {
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+        OrderCommand command = slots[(int) position & mask];
+        command.type = OrderCommand.Type.RELEASE_BOOK;
+        command.bookIndex = bookIndex;
+        command.attachment = null;
+        publish(position);
+        return true;
+    }
+
+    /**
+     * Consumes up to {@code limit} commands. Must be called by a single thread.
+     *
+     * @return number of commands consumed
+     */
+    public int drain(Handler handler, int limit) {
+        int count = 0;
+        while (count < limit) {
+            int index = (int) head & mask;
+            if (sequences.getAcquire(index) != head + 1) {
+                break;
+            }
+            OrderCommand command = slots[index];
+            try {
+                handler.onCommand(command);
+            } finally {
+                command.attachment = null;
+                sequences.setRelease(index, head + slots.length);
+                head++;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return approximate number of commands waiting to be consumed
+     */
+    public long size() {
+        return Math.max(0L, tail.get() - head);
+    }
+
+    private long claim() {
+        while (true) {
+            long position = tail.get();
+            long difference = sequences.getAcquire((int) position & mask) - position;
+            if (difference == 0L) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (difference < 0L) {
+                return -1L;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void publish(long position) {
+        sequences.setRelease((int) position & mask, position + 1);
+    }
+}
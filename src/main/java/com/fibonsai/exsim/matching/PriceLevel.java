@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+/**
+ * Orders resting at the same price, kept in arrival (time priority) order.
+ */
+final class PriceLevel {
+
+    long priceTicks;
+    long totalQuantity;
+    int orderCount;
+
+    Order head;
+    Order tail;
+
+    PriceLevel nextFree;
+
+    PriceLevel set(long priceTicks) {
+        this.priceTicks = priceTicks;
+        this.totalQuantity = 0L;
+        this.orderCount = 0;
+        return this;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    void append(Order order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        totalQuantity += order.remaining;
+        orderCount++;
+    }
+
+    void remove(Order order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        totalQuantity -= order.remaining;
+        orderCount--;
+        order.level = null;
+        order.prev = null;
+        order.next = null;
+    }
+
+    void clear() {
+        head = null;
+        tail = null;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.persistence;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size memory-mapped log file. Writers claim disjoint ranges with a CAS on the claimed position and copy their
+ * record into the mapping; the flusher forces the written range to the storage device.
+ */
+final class LogSegment {
+
+    private static final int SEALED = Integer.MIN_VALUE;
+    /** Int view of the mapping, in the default big-endian order of the buffer. */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final long index;
+    private final Path path;
+    private final int capacity;
+    private final MappedByteBuffer buffer;
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final AtomicInteger committed = new AtomicInteger();
+    private int forced;
+
+    private LogSegment(long index, Path path, int capacity, MappedByteBuffer buffer) {
+        this.index = index;
+        this.path = path;
+        this.capacity = capacity;
+        this.buffer = buffer;
+    }
+
+    static LogSegment create(long index, Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new LogSegment(index, path, capacity, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        }
+    }
+
+    long index() {
+        return index;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Claims a range and marks it with a provisional header holding the negated record length, so a frame left
+     * unfinished by a crash can be skipped by its size.
+     *
+     * @param claimLength size of the range, the frame padded to the frame alignment
+     * @param length record length of the frame
+     * @return the offset of the claimed range, or -1 if the segment is sealed or the range does not fit
+     */
+    int claim(int claimLength, int length) {
+        for (;;) {
+            int position = claimed.get();
+            if (position < 0 || position + claimLength > capacity) {
+                return -1;
+            }
+            if (claimed.compareAndSet(position, position + claimLength)) {
+                buffer.putInt(position, -length);
+                return position;
+            }
+        }
+    }
+
+    /**
+     * Copies a claimed frame to {@code offset}. The frame starts with an int left for its length, which is
+     * written last with a release store so a frame never looks complete before its content is.
+     */
+    void write(int offset, byte[] frame, int frameLength, int length, int claimLength) {
+        buffer.put(offset + Integer.BYTES, frame, Integer.BYTES, frameLength - Integer.BYTES);
+        INT.setRelease(buffer, offset, length);
+        committed.addAndGet(claimLength);
+    }
+
+    /**
+     * Stops accepting claims.
+     */
+    void seal() {
+        for (;;) {
+            int position = claimed.get();
+            if (position < 0 || claimed.compareAndSet(position, position | SEALED)) {
+                return;
+            }
+        }
+    }
+
+    boolean sealed() {
+        return claimed.get() < 0;
+    }
+
+    /**
+     * Forces the claimed range not forced yet. Called by a single thread at a time.
+     *
+     * @return true if every claimed byte is written and forced
+     */
+    boolean force() {
+        int done = committed.get();
+        int end = claimed.get() & ~SEALED;
+        if (end > forced) {
+            buffer.force(forced, end - forced);
+            if (done == end) {
+                forced = end;
+            }
+        }
+        return done == end && forced == end;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.persistence;
+
+import com.fibonsai.exsim.dto.BalanceMode;
+import com.fibonsai.exsim.dto.Wallet;
+import com.fibonsai.exsim.dto.WalletState;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Wallet records of a {@link WriteAheadLog}. A wallet is identified by the id assigned when its creation is logged,
+ * so balance updates are small fixed-size records:
+ * <pre>
+ * CREATED: [int id][byte balanceMode][string owner][string asset][string address]
+ * UPDATED: [int id][byte state][long version][long timestamp][amount]
+ * </pre>
+ * Strings are written as {@code [short length][utf-8]} and amounts as {@code [byte 0][long unscaled][int scale]}
+ * or, when the unscaled value does not fit in a long, {@code [byte 1][int scale][short length][bytes]}.
+ * Updates carry the whole balance and its version, so replay only keeps the most recent state of each wallet.
+ * <p>
+ * {@link #snapshot} writes a {@link WalletSnapshot} and deletes the segments it covers: opening the log loads the
+ * latest snapshot and replays only the segments appended after it.
+ */
+public final class WalletLog implements AutoCloseable {
+
+    private static final byte CREATED = 1;
+    private static final byte UPDATED = 2;
+    private static final byte ASSETS_WITH_ONE_ADDRESS = 3;
+
+    private static final WalletState[] STATES = WalletState.values();
+    private static final BalanceMode[] MODES = BalanceMode.values();
+
+    public interface Handler {
+        void created(int id, String owner, String assetSymbol, String address, BalanceMode balanceMode);
+
+        void updated(int id, WalletState state, BigDecimal amount, long version, long timestamp);
+
+        void assetsWithOneAddress(Set<String> assets);
+    }
+
+    private final Path dir;
+    private final WriteAheadLog wal;
+    private final AtomicInteger nextId;
+
+    private WalletLog(Path dir, WriteAheadLog wal, int nextId) {
+        this.dir = dir;
+        this.wal = wal;
+        this.nextId = new AtomicInteger(nextId);
+    }
+
+    /**
+     * Loads the latest snapshot in {@code dir} and replays the wallet records appended after it into
+     * {@code handler}, then opens the log for new records.
+     */
+    public static WalletLog open(Path dir, int segmentSize, long flushIntervalMillis, Handler handler) throws IOException {
+        Files.createDirectories(dir);
+        int[] maxId = {-1};
+        long tailSegment = WalletSnapshot.load(dir, new Handler() {
+            @Override
+            public void created(int id, String owner, String assetSymbol, String address, BalanceMode balanceMode) {
+                maxId[0] = Math.max(maxId[0], id);
+                handler.created(id, owner, assetSymbol, address, balanceMode);
+            }
+
+            @Override
+            public void updated(int id, WalletState state, BigDecimal amount, long version, long timestamp) {
+                handler.updated(id, state, amount, version, timestamp);
+            }
+
+            @Override
+            public void assetsWithOneAddress(Set<String> assets) {
+                handler.assetsWithOneAddress(assets);
+            }
+        });
+        WriteAheadLog wal = WriteAheadLog.open(dir, "wallet", segmentSize, flushIntervalMillis, tailSegment, (type, payload) -> {
+            switch (type) {
+                case CREATED -> {
+                    int id = payload.getInt();
+                    maxId[0] = Math.max(maxId[0], id);
+                    BalanceMode balanceMode = MODES[payload.get()];
+                    String owner = getString(payload);
+                    String assetSymbol = getString(payload);
+                    String address = getString(payload);
+                    handler.created(id, owner, assetSymbol, address, balanceMode);
+                }
+                case UPDATED -> {
+                    int id = payload.getInt();
+                    WalletState state = STATES[payload.get()];
+                    long version = payload.getLong();
+                    long timestamp = payload.getLong();
+                    handler.updated(id, state, getAmount(payload), version, timestamp);
+                }
+                case ASSETS_WITH_ONE_ADDRESS -> {
+                    int count = payload.getInt();
+                    Set<String> assets = new HashSet<>(count);
+                    for (int i = 0; i < count; i++) {
+                        assets.add(getString(payload));
+                    }
+                    handler.assetsWithOneAddress(assets);
+                }
+                default -> throw new IllegalStateException("Unexpected wallet record type: " + type);
+            }
+        });
+        return new WalletLog(dir, wal, maxId[0] + 1);
+    }
+
+    public long replayedRecords() {
+        return wal.replayedRecords();
+    }
+
+    /**
+     * @return a new wallet id for {@link #created(int, Wallet)}
+     */
+    public int nextId() {
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the owner, asset symbol or address of the wallet is too long to be logged,
+     * alone or together
+     */
+    public static void checkLoggable(Wallet wallet) {
+        checkCreatedLength(encode("owner", wallet.owner()), encode("asset", wallet.assetRef().symbol()),
+                encode("address", wallet.address()));
+    }
+
+    /**
+     * Logs the creation of the wallet under {@code id}.
+     *
+     * @throws IllegalArgumentException if the wallet is not {@link #checkLoggable loggable}, nothing is logged then
+     */
+    public void created(int id, Wallet wallet) {
+        byte[] owner = encode("owner", wallet.owner());
+        byte[] asset = encode("asset", wallet.assetRef().symbol());
+        byte[] address = encode("address", wallet.address());
+        checkCreatedLength(owner, asset, address);
+        wal.append(CREATED, out -> {
+            out.putInt(id);
+            out.put((byte) wallet.balanceMode().ordinal());
+            putString(out, owner);
+            putString(out, asset);
+            putString(out, address);
+        });
+    }
+
+    /**
+     * Logs the current balance of the wallet.
+     */
+    public void updated(int id, Wallet wallet) {
+        Wallet.Balance balance = wallet.balance();
+        wal.append(UPDATED, out -> {
+            out.putInt(id);
+            out.put((byte) balance.state().ordinal());
+            out.putLong(balance.version());
+            out.putLong(balance.timestamp());
+            if (balance.decimalPoints() >= 0) {
+                putAmount(out, balance.units(), balance.decimalPoints());
+            } else {
+                putAmount(out, balance.amount());
+            }
+        });
+    }
+
+    public void assetsWithOneAddress(Set<String> assets) {
+        List<byte[]> symbols = assets.stream().map(asset -> encode("asset", asset)).toList();
+        wal.append(ASSETS_WITH_ONE_ADDRESS, out -> {
+            out.putInt(symbols.size());
+            symbols.forEach(symbol -> putString(out, symbol));
+        });
+    }
+
+    /**
+     * Writes a snapshot with {@code content} and deletes the log segments it covers. Writers are not paused:
+     * the log is rolled before {@code content} runs, so every change {@code content} may miss is in the
+     * segments kept.
+     *
+     * @return the number of wallets in the snapshot
+     */
+    public long snapshot(Consumer<WalletSnapshot.Writer> content) throws IOException {
+        long tailSegment = wal.roll();
+        long wallets = WalletSnapshot.write(dir, tailSegment, content);
+        wal.truncate(tailSegment);
+        return wallets;
+    }
+
+    public void sync() {
+        wal.sync();
+    }
+
+    /**
+     * Deletes every snapshot and log record.
+     */
+    public void clear() throws IOException {
+        long tailSegment = wal.roll();
+        WalletSnapshot.deleteAll(dir);
+        wal.truncate(tailSegment);
+        nextId.set(0);
+    }
+
+    @Override
+    public void close() {
+        wal.close();
+    }
+
+    private static void putAmount(ByteBuffer out, long unscaled, int scale) {
+        out.put((byte) 0);
+        out.putLong(unscaled);
+        out.putInt(scale);
+    }
+
+    private static void putAmount(ByteBuffer out, BigDecimal amount) {
+        BigInteger unscaled = amount.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            putAmount(out, unscaled.longValue(), amount.scale());
+            return;
+        }
+        byte[] bytes = unscaled.toByteArray();
+        out.put((byte) 1);
+        out.putInt(amount.scale());
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static BigDecimal getAmount(ByteBuffer in) {
+        if (in.get() == 0) {
+            return BigDecimal.valueOf(in.getLong(), in.getInt());
+        }
+        int scale = in.getInt();
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    /**
+     * @return the UTF-8 bytes of the value, whose length fits the unsigned short prefix of the record
+     */
+    private static byte[] encode(String field, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Wallet %s longer than %d bytes".formatted(field, 0xFFFF));
+        }
+        return bytes;
+    }
+
+    private static void checkCreatedLength(byte[] owner, byte[] asset, byte[] address) {
+        // type, id, balance mode and the length prefixed strings
+        int length = Byte.BYTES + Integer.BYTES + Byte.BYTES
+                + 3 * Short.BYTES + owner.length + asset.length + address.length;
+        if (length > WriteAheadLog.MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Wallet record of %d bytes exceeds %d bytes"
+                    .formatted(length, WriteAheadLog.MAX_RECORD_SIZE));
+        }
+    }
+
+    private static void putString(ByteBuffer out, byte[] value) {
+        out.putShort((short) value.length);
+        out.put(value);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.persistence;
+
+import com.fibonsai.exsim.dto.BalanceMode;
+import com.fibonsai.exsim.dto.Wallet;
+import com.fibonsai.exsim.dto.WalletState;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary snapshot of every wallet, written next to the wallet {@link WriteAheadLog} segments.
+ * <pre>
+ * [int magic][int version][long tailSegment][long timestamp]
+ * entries:
+ *   wallet:                   [byte 1][int id][byte balanceMode][string owner][string asset][string address]
+ *                             [byte state][long version][long timestamp][amount]
+ *   assets with one address:  [byte 2][int count][string]...
+ * [byte 0][long crc32c]
+ * </pre>
+ * {@code tailSegment} is the first log segment not covered by the snapshot. Strings and amounts use the
+ * {@link WalletLog} encoding. Snapshots are written to a temporary file and renamed once complete and forced,
+ * so a crash while writing leaves the previous snapshot in place.
+ */
+@Slf4j
+public final class WalletSnapshot {
+
+    private static final int MAGIC = 0x45585753;
+    private static final int VERSION = 1;
+    private static final String PREFIX = "wallet-snapshot-";
+    private static final String SUFFIX = ".snap";
+    private static final byte END = 0;
+    private static final byte WALLET = 1;
+    private static final byte ASSETS_WITH_ONE_ADDRESS = 2;
+
+    private static final WalletState[] STATES = WalletState.values();
+    private static final BalanceMode[] MODES = BalanceMode.values();
+
+    /**
+     * Receives the content of a snapshot while it is written.
+     */
+    public static final class Writer {
+        private final DataOutputStream out;
+        private long wallets;
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        public void wallet(int id, Wallet wallet) {
+            Wallet.Balance balance = wallet.balance();
+            try {
+                out.writeByte(WALLET);
+                out.writeInt(id);
+                out.writeByte(wallet.balanceMode().ordinal());
+                writeString(out, wallet.owner());
+                writeString(out, wallet.assetRef().symbol());
+                writeString(out, wallet.address());
+                out.writeByte(balance.state().ordinal());
+                out.writeLong(balance.version());
+                out.writeLong(balance.timestamp());
+                if (balance.decimalPoints() >= 0) {
+                    writeAmount(out, balance.units(), balance.decimalPoints());
+                } else {
+                    writeAmount(out, balance.amount());
+                }
+                wallets++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void assetsWithOneAddress(Set<String> assets) {
+            try {
+                out.writeByte(ASSETS_WITH_ONE_ADDRESS);
+                out.writeInt(assets.size());
+                for (String asset : assets) {
+                    writeString(out, asset);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private WalletSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot covering the log segments before {@code tailSegment} and deletes the older snapshots.
+     *
+     * @return the number of wallets written
+     */
+    static long write(Path dir, long tailSegment, Consumer<Writer> content) throws IOException {
+        Path file = dir.resolve("%s%020d%s".formatted(PREFIX, tailSegment, SUFFIX));
+        Path tmp = dir.resolve(file.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        long wallets;
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(tailSegment);
+            out.writeLong(System.currentTimeMillis());
+            Writer writer = new Writer(out);
+            content.accept(writer);
+            wallets = writer.wallets;
+            out.writeByte(END);
+            out.writeLong(crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Path snapshot : snapshots(dir)) {
+            if (!snapshot.equals(file)) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+        return wallets;
+    }
+
+    static void deleteAll(Path dir) throws IOException {
+        for (Path snapshot : snapshots(dir)) {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Loads the most recent valid snapshot into {@code handler}.
+     *
+     * @return the first log segment not covered by the loaded snapshot, 0 if there is none
+     */
+    static long load(Path dir, WalletLog.Handler handler) throws IOException {
+        List<Path> snapshots = snapshots(dir);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            try {
+                if (!verify(snapshot)) {
+                    log.warn("Snapshot {} damaged: checksum mismatch", snapshot);
+                    continue;
+                }
+                return read(snapshot, handler);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Snapshot {} not loaded: {}", snapshot, e.getMessage());
+            }
+        }
+        return 0L;
+    }
+
+    private static boolean verify(Path snapshot) throws IOException {
+        long size = Files.size(snapshot);
+        if (size < Long.BYTES) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        try (InputStream in = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16), crc)) {
+            long remaining = size - Long.BYTES;
+            byte[] buffer = new byte[1 << 16];
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                remaining -= read;
+            }
+            long expected = crc.getValue();
+            return new DataInputStream(in).readLong() == expected;
+        }
+    }
+
+    private static long read(Path snapshot, WalletLog.Handler handler) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format");
+            }
+            long tailSegment = in.readLong();
+            in.readLong();
+            long wallets = 0L;
+            for (byte entry = in.readByte(); entry != END; entry = in.readByte()) {
+                if (entry == ASSETS_WITH_ONE_ADDRESS) {
+                    int assets = in.readInt();
+                    Set<String> assetsWithOneAddress = new HashSet<>(assets);
+                    for (int i = 0; i < assets; i++) {
+                        assetsWithOneAddress.add(readString(in));
+                    }
+                    handler.assetsWithOneAddress(assetsWithOneAddress);
+                    continue;
+                }
+                if (entry != WALLET) {
+                    throw new IOException("Unexpected snapshot entry: " + entry);
+                }
+                int id = in.readInt();
+                BalanceMode balanceMode = MODES[in.readByte()];
+                String owner = readString(in);
+                String assetSymbol = readString(in);
+                String address = readString(in);
+                WalletState state = STATES[in.readByte()];
+                long version = in.readLong();
+                long timestamp = in.readLong();
+                BigDecimal amount = readAmount(in);
+                handler.created(id, owner, assetSymbol, address, balanceMode);
+                handler.updated(id, state, amount, version, timestamp);
+                wallets++;
+            }
+            log.info("Snapshot {} loaded: {} wallets", snapshot, wallets);
+            return tailSegment;
+        }
+    }
+
+    private static List<Path> snapshots(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(file -> {
+                        String fileName = file.getFileName().toString();
+                        return fileName.startsWith(PREFIX) && fileName.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void writeAmount(DataOutputStream out, long unscaled, int scale) throws IOException {
+        out.writeByte(0);
+        out.writeLong(unscaled);
+        out.writeInt(scale);
+    }
+
+    private static void writeAmount(DataOutputStream out, BigDecimal amount) throws IOException {
+        BigInteger unscaled = amount.unscaledValue();
+        if (unscaled.bitLength() < Long.SIZE) {
+            writeAmount(out, unscaled.longValue(), amount.scale());
+            return;
+        }
+        byte[] bytes = unscaled.toByteArray();
+        out.writeByte(1);
+        out.writeInt(amount.scale());
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigDecimal readAmount(DataInputStream in) throws IOException {
+        if (in.readByte() == 0) {
+            return BigDecimal.valueOf(in.readLong(), in.readInt());
+        }
+        int scale = in.readInt();
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new BigDecimal(new BigInteger(bytes), scale);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            // writeShort would wrap and leave a snapshot that cannot be read back
+            throw new IllegalArgumentException("String longer than %d bytes in wallet snapshot".formatted(0xFFFF));
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
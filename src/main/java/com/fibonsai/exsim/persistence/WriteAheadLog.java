@@ -0,0 +1,358 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log written through memory-mapped segment files.
+ * <p>
+ * A record is framed as {@code [int length][int crc32c][byte type][payload]}, padded to a multiple of 4 bytes.
+ * Appending encodes the record in a thread-local buffer, claims a range of the current segment with a CAS, marks
+ * it with a provisional header holding the negated length and copies the frame into the mapping, its length last:
+ * no lock and no system call on the caller thread. A flusher thread forces the written ranges to the storage
+ * device every {@code flushInterval} (group commit), so a crash of the process loses only the records whose
+ * append did not return and a crash of the host loses at most the last interval.
+ * <p>
+ * Concurrent appends complete out of order, so a crash can leave unfinished frames before completed ones. Replay
+ * skips a frame with a provisional header by its size, and scans past a claimed range left empty to the next
+ * valid frame. It stops reading a segment at a damaged frame, or when only zeros are left.
+ */
+@Slf4j
+public final class WriteAheadLog implements AutoCloseable {
+
+    public static final int MAX_RECORD_SIZE = 64 * 1024;
+
+    private static final int HEADER = 2 * Integer.BYTES;
+    private static final int ALIGNMENT = Integer.BYTES;
+    private static final String SUFFIX = ".wal";
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        /**
+         * @param payload read-only view of the record payload, positioned at its start
+         */
+        void onRecord(byte type, ByteBuffer payload);
+    }
+
+    private static final class Frame {
+        private final byte[] bytes = new byte[HEADER + MAX_RECORD_SIZE];
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        private final CRC32C crc = new CRC32C();
+    }
+
+    private static final ThreadLocal<Frame> FRAME = ThreadLocal.withInitial(Frame::new);
+
+    private final Path dir;
+    private final String name;
+    private final int segmentSize;
+    private final List<LogSegment> unforced = new CopyOnWriteArrayList<>();
+    private final Object flushLock = new Object();
+    private final Thread flusher;
+    private volatile LogSegment current;
+    private volatile boolean closed;
+    private long replayedRecords;
+
+    private WriteAheadLog(Path dir, String name, int segmentSize, long flushIntervalMillis) {
+        this.dir = dir;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, flushIntervalMillis));
+        this.flusher = new Thread(() -> {
+            while (!closed) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                flush();
+            }
+        }, "wal-flusher-" + name);
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Replays the segments found in {@code dir} and opens a new segment for the records appended afterward.
+     *
+     * @param name prefix of the segment files
+     * @param segmentSize size of each segment file in bytes
+     * @param flushIntervalMillis interval between forces of the written records
+     */
+    public static WriteAheadLog open(Path dir, String name, int segmentSize, long flushIntervalMillis,
+                                     RecordHandler handler) throws IOException {
+        return open(dir, name, segmentSize, flushIntervalMillis, 0L, handler);
+    }
+
+    /**
+     * Same as {@link #open(Path, String, int, long, RecordHandler)}, skipping the segments before
+     * {@code fromSegment}.
+     */
+    public static WriteAheadLog open(Path dir, String name, int segmentSize, long flushIntervalMillis,
+                                     long fromSegment, RecordHandler handler) throws IOException {
+        if (segmentSize < align(HEADER + 1) || segmentSize > (1 << 30)) {
+            throw new IllegalArgumentException("Segment size must be between %d and %d bytes: %d"
+                    .formatted(align(HEADER + 1), 1 << 30, segmentSize));
+        }
+        Files.createDirectories(dir);
+        WriteAheadLog wal = new WriteAheadLog(dir, name, segmentSize, flushIntervalMillis);
+        long nextIndex = fromSegment;
+        for (Path segment : wal.segments()) {
+            long index = indexOf(segment, name);
+            if (index >= fromSegment) {
+                wal.replayedRecords += replay(segment, handler);
+            }
+            nextIndex = Math.max(nextIndex, index + 1);
+        }
+        wal.current = wal.newSegment(nextIndex);
+        wal.flusher.start();
+        log.info("Write-ahead log {} opened in {}: {} records replayed", name, dir, wal.replayedRecords);
+        return wal;
+    }
+
+    public long replayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * Appends a record whose payload is written by {@code encoder}.
+     *
+     * @throws IllegalArgumentException if the record exceeds {@link #MAX_RECORD_SIZE} or the segment size
+     * @throws IllegalStateException if the log is closed
+     */
+    public void append(byte type, Consumer<ByteBuffer> encoder) {
+        Frame frame = FRAME.get();
+        ByteBuffer buffer = frame.buffer;
+        buffer.clear().position(HEADER);
+        buffer.put(type);
+        try {
+            encoder.accept(buffer);
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Record exceeds %d bytes".formatted(MAX_RECORD_SIZE));
+        }
+        int frameLength = buffer.position();
+        int length = frameLength - HEADER;
+        frame.crc.reset();
+        frame.crc.update(frame.bytes, HEADER, length);
+        buffer.putInt(Integer.BYTES, (int) frame.crc.getValue());
+        int claimLength = align(frameLength);
+        if (claimLength > segmentSize) {
+            throw new IllegalArgumentException("Record of %d bytes exceeds the segment size".formatted(frameLength));
+        }
+        for (;;) {
+            LogSegment segment = current;
+            if (closed) {
+                throw new IllegalStateException("Write-ahead log %s is closed".formatted(name));
+            }
+            int offset = segment.claim(claimLength, length);
+            if (offset >= 0) {
+                segment.write(offset, frame.bytes, frameLength, length, claimLength);
+                return;
+            }
+            roll(segment);
+        }
+    }
+
+    /**
+     * Forces every appended record to the storage device.
+     */
+    public void sync() {
+        flush();
+    }
+
+    /**
+     * Deletes every segment and continues in a new one.
+     */
+    public synchronized void clear() {
+        truncate(roll());
+    }
+
+    /**
+     * Seals the current segment and continues in a new one: every record appended after this call
+     * is in the returned segment or a later one.
+     *
+     * @return the index of the new segment
+     */
+    public synchronized long roll() {
+        roll(current);
+        return current.index();
+    }
+
+    /**
+     * Deletes the segments before {@code beforeSegment}.
+     */
+    public synchronized void truncate(long beforeSegment) {
+        try {
+            for (Path segment : segments()) {
+                if (indexOf(segment, name) < beforeSegment) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        unforced.removeIf(segment -> segment.index() < beforeSegment);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        current.seal();
+        flush();
+    }
+
+    private synchronized void roll(LogSegment full) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log %s is closed".formatted(name));
+        }
+        if (current != full) {
+            return;
+        }
+        full.seal();
+        try {
+            current = newSegment(full.index() + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush() {
+        synchronized (flushLock) {
+            for (LogSegment segment : unforced) {
+                if (segment.force() && segment.sealed()) {
+                    unforced.remove(segment);
+                }
+            }
+        }
+    }
+
+    private LogSegment newSegment(long index) throws IOException {
+        LogSegment segment = LogSegment.create(index, dir.resolve("%s-%020d%s".formatted(name, index, SUFFIX)), segmentSize);
+        unforced.add(segment);
+        return segment;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return new ArrayList<>(files
+                    .filter(file -> indexOf(file, name) >= 0)
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private static long indexOf(Path segment, String name) {
+        String fileName = segment.getFileName().toString();
+        if (!fileName.startsWith(name + "-") || !fileName.endsWith(SUFFIX)) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(fileName, name.length() + 1, fileName.length() - SUFFIX.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static long replay(Path segment, RecordHandler handler) throws IOException {
+        long records = 0L;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32C crc = new CRC32C();
+            int position = 0;
+            int limit = buffer.limit();
+            while (position + HEADER < limit) {
+                int length = buffer.getInt(position);
+                if (length == 0) {
+                    int next = nextFrame(buffer, position + ALIGNMENT, crc);
+                    if (next < 0) {
+                        break;
+                    }
+                    log.warn("Segment {}: unfinished frame at offset {} skipped", segment, position);
+                    position = next;
+                    continue;
+                }
+                int frameLength = HEADER + Math.abs(length);
+                if (length == Integer.MIN_VALUE || Math.abs(length) > MAX_RECORD_SIZE
+                        || position + frameLength > limit) {
+                    log.warn("Segment {} damaged at offset {}: invalid length {}", segment, position, length);
+                    break;
+                }
+                if (length < 0) {
+                    log.warn("Segment {}: unfinished frame at offset {} skipped", segment, position);
+                    position += align(frameLength);
+                    continue;
+                }
+                if (!valid(buffer, position, length, crc)) {
+                    log.warn("Segment {} damaged at offset {}: checksum mismatch", segment, position);
+                    break;
+                }
+                ByteBuffer record = buffer.slice(position + HEADER, length);
+                handler.onRecord(record.get(), record.slice().asReadOnlyBuffer());
+                records++;
+                position += align(frameLength);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Scans the aligned offsets from {@code position} for a complete frame with a matching checksum.
+     *
+     * @return the offset of the frame, or -1 if there is none
+     */
+    private static int nextFrame(ByteBuffer buffer, int position, CRC32C crc) {
+        int limit = buffer.limit();
+        for (; position + HEADER < limit; position += ALIGNMENT) {
+            int length = buffer.getInt(position);
+            if (length > 0 && length <= MAX_RECORD_SIZE && position + HEADER + length <= limit
+                    && valid(buffer, position, length, crc)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean valid(ByteBuffer buffer, int position, int length, CRC32C crc) {
+        crc.reset();
+        crc.update(buffer.slice(position + HEADER, length));
+        return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES);
+    }
+}
@@ -41,6 +41,6 @@ public class AccountService extends AbstractService {
     }
 
     public void start() {
-
+        walletService.start();
     }
 }
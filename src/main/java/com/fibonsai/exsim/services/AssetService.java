@@ -14,22 +14,42 @@
 
 package com.fibonsai.exsim.services;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
+import com.fibonsai.exsim.dto.asset.AssetType;
+import com.fibonsai.exsim.util.AssetIds;
+import com.fibonsai.exsim.util.AssetRegistry;
 import com.fibonsai.exsim.util.AssetUtil;
 import com.fibonsai.exsim.util.ResourcesUtil;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
-import java.util.Currency;
-import java.util.Map;
-import java.util.Optional;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Slf4j
 @Service
@@ -38,12 +58,26 @@ public class AssetService {
     @Value("${exsim.pairs_data}")
     String pairsData;
 
+    /**
+     * Index the assets of {@code exsim.pairs_data} at load and deserialize each one on first access.
+     */
+    @Value("${exsim.assets.lazy}")
+    boolean lazyAssets;
+
+    /**
+     * Hydrated assets kept in lazy mode, least recently used first evicted.
+     */
+    @Value("${exsim.assets.cache_size}")
+    int assetsCacheSize;
+
     private final ObjectMapper mapper;
+    private final AssetRegistry registry;
 
     public static final String DEFAULT_ASSET = "USD";
 
-    public AssetService(ObjectMapper mapper) {
+    public AssetService(ObjectMapper mapper, AssetRegistry registry) {
         this.mapper = mapper;
+        this.registry = registry;
     }
 
     public Asset defaultAsset() {
@@ -52,13 +86,57 @@ public class AssetService {
     }
 
     private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    private final Set<String> currencies = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Byte range of an asset object in the assets file.
+     */
+    private record AssetOffset(long offset, int length) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record AssetSummary(@JsonProperty("SYMBOL") String symbol,
+                                @JsonProperty("ASSET_DECIMAL_POINTS") BigDecimal decimalPoints,
+                                @JsonProperty("ASSET_TYPE") AssetType type) {}
+
+    private final Map<String, AssetOffset> lazyIndex = new ConcurrentHashMap<>();
+    private Map<String, Asset> hydrated = Map.of();
+    private volatile FileChannel assetsFile;
+
+    /**
+     * Held for reading while a lazily indexed asset is read from {@link #assetsFile}, and for writing while the
+     * file and its index are swapped, so a re-index never closes the file under a running read.
+     */
+    private final ReadWriteLock assetsFileLock = new ReentrantReadWriteLock();
 
     public void add(Currency currency) {
-        assets.computeIfAbsent(currency.getCurrencyCode(), name -> AssetUtil.fromCurrency(currency));
+        registry.register(assets.computeIfAbsent(currency.getCurrencyCode(), name -> {
+            currencies.add(name);
+            return AssetUtil.fromCurrency(currency);
+        }));
     }
 
+    /**
+     * Adds the asset unless its symbol is already known.
+     */
     public void add(Asset asset) {
-        assets.computeIfAbsent(asset.symbol(), name -> asset);
+        if (lazyIndex.containsKey(asset.symbol())) {
+            return;
+        }
+        if (assets.putIfAbsent(asset.symbol(), asset) == null) {
+            registry.register(asset);
+        }
+    }
+
+    /**
+     * Adds the asset or replaces the one known for its symbol, unless that one is a currency, see
+     * {@link #reloadFromFile()}.
+     */
+    public void replace(Asset asset) {
+        if (lazyIndex.containsKey(asset.symbol()) || currencies.contains(asset.symbol())) {
+            return;
+        }
+        assets.put(asset.symbol(), asset);
+        registry.register(asset);
     }
 
     public void loadFiatAssets() {
@@ -68,24 +146,266 @@ public class AssetService {
     }
 
     public void loadFromFile() {
+        loadFromFile(this::add);
+    }
+
+    /**
+     * Loads the file again, the assets of the file replacing those previously loaded so updated metadata applies.
+     * Currencies keep winning over assets of the file with the same symbol, as with {@link #init()}.
+     */
+    public void reloadFromFile() {
+        loadFromFile(this::replace);
+    }
+
+    private void loadFromFile(Consumer<Asset> loader) {
+        if (lazyAssets) {
+            indexFile();
+            return;
+        }
         try (InputStream in = ResourcesUtil.getResourceAsStream(Asset.class, pairsData)) {
             BufferedInputStream bufferedInputStream = new BufferedInputStream(in);
             JsonNode jsonNode = mapper.readTree(bufferedInputStream);
             JsonNode jsonNodeAssets = Optional.ofNullable(jsonNode.get("assets")).orElseThrow();
-            jsonNodeAssets.forEachEntry((k, v) -> add(mapper.convertValue(v, Asset.class)));
+            jsonNodeAssets.forEachEntry((k, v) -> loader.accept(mapper.convertValue(v, Asset.class)));
             log.info("Loaded {} CryptoCurrencies", jsonNodeAssets.size());
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
     }
 
+    /**
+     * Lazy mode: records the byte range of every asset of the file and registers its symbol, decimal points and type
+     * in the {@link AssetRegistry}. The full assets are deserialized by {@link #assets()} on access.
+     */
+    private void indexFile() {
+        try {
+            Path path = assetsPath();
+            Map<String, AssetOffset> index = new HashMap<>();
+            try (JsonParser parser = mapper.createParser(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("%s is not a JSON object".formatted(pairsData));
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    JsonToken value = parser.nextToken();
+                    if (!"assets".equals(parser.currentName()) || value != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        parser.nextToken();
+                        long offset = parser.currentTokenLocation().getByteOffset();
+                        AssetSummary summary = mapper.readValue(parser, AssetSummary.class);
+                        long end = parser.currentLocation().getByteOffset();
+                        String symbol = summary.symbol() == null ? "" : summary.symbol();
+                        if (!assets.containsKey(symbol)
+                                && index.putIfAbsent(symbol, new AssetOffset(offset, (int) (end - offset))) == null) {
+                            registry.register(symbol, summary.decimalPoints(),
+                                    summary.type() == null ? AssetType.UNDEF : summary.type());
+                        }
+                    }
+                }
+            }
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            FileChannel previous;
+            assetsFileLock.writeLock().lock();
+            try {
+                previous = assetsFile;
+                assetsFile = channel;
+                lazyIndex.clear();
+                lazyIndex.putAll(index);
+                synchronized (this) {
+                    hydrated = new LinkedHashMap<>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, Asset> eldest) {
+                            return size() > assetsCacheSize;
+                        }
+                    };
+                }
+                if (previous != null) {
+                    previous.close();
+                }
+            } finally {
+                assetsFileLock.writeLock().unlock();
+            }
+            registry.hydrator(symbol -> assets().get(symbol));
+            log.info("Indexed {} CryptoCurrencies", index.size());
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the path of the assets file, copied to a temporary file if the resource is not a file
+     */
+    private Path assetsPath() throws IOException {
+        URL url = Asset.class.getClassLoader().getResource(pairsData);
+        if (url == null) {
+            throw new IOException("%s not found".formatted(pairsData));
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return Path.of(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        Path copy = Files.createTempFile("exsim-assets", ".json");
+        copy.toFile().deleteOnExit();
+        try (InputStream in = url.openStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return copy;
+    }
+
+    private Asset hydrate(String symbol) {
+        assetsFileLock.readLock().lock();
+        try {
+            AssetOffset offset = lazyIndex.get(symbol);
+            if (offset == null) {
+                return null;
+            }
+            synchronized (this) {
+                Asset asset = hydrated.get(symbol);
+                if (asset != null) {
+                    return asset;
+                }
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(offset.length());
+            while (buffer.hasRemaining()) {
+                if (assetsFile.read(buffer, offset.offset() + buffer.position()) < 0) {
+                    throw new IOException("%s truncated".formatted(pairsData));
+                }
+            }
+            Asset asset = mapper.readValue(buffer.array(), Asset.class);
+            synchronized (this) {
+                Asset current = hydrated.putIfAbsent(symbol, asset);
+                return current != null ? current : asset;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot hydrate asset %s".formatted(symbol), e);
+        } finally {
+            assetsFileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the assets of the file are deserialized on access, see {@link #lazyAssets}
+     */
+    boolean lazyAssets() {
+        return lazyAssets;
+    }
+
+    /**
+     * Number of lazily indexed assets currently deserialized.
+     */
+    int hydratedAssets() {
+        synchronized (this) {
+            return hydrated.size();
+        }
+    }
+
+    /**
+     * Loads the assets from scratch, forgetting those registered before.
+     */
     public void init() {
+        assets.clear();
+        currencies.clear();
+        lazyIndex.clear();
+        registry.clear();
         loadFiatAssets();
         loadFromFile();
     }
 
+    /**
+     * In lazy mode the assets of the file are deserialized when the view returns them, and iterating the view
+     * deserializes every one.
+     */
     public Map<String, Asset> assets() {
-        return Collections.unmodifiableMap(assets);
+        return lazyIndex.isEmpty() ? Collections.unmodifiableMap(assets) : lazyView;
+    }
+
+    private final Map<String, Asset> lazyView = new AbstractMap<>() {
+        @Override
+        public Asset get(Object key) {
+            Asset asset = assets.get(key);
+            return asset != null || !(key instanceof String symbol) ? asset : hydrate(symbol);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return assets.containsKey(key) || lazyIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return assets.size() + lazyIndex.size();
+        }
+
+        @Override
+        public Set<Entry<String, Asset>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Asset>> iterator() {
+                    Iterator<Entry<String, Asset>> resident = assets.entrySet().iterator();
+                    Iterator<String> indexed = lazyIndex.keySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return resident.hasNext() || indexed.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Asset> next() {
+                            if (resident.hasNext()) {
+                                Entry<String, Asset> entry = resident.next();
+                                return Map.entry(entry.getKey(), entry.getValue());
+                            }
+                            String symbol = indexed.next();
+                            return Map.entry(symbol, hydrate(symbol));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return assets.size() + lazyIndex.size();
+                }
+            };
+        }
+    };
+
+    /**
+     * @return the {@link AssetIds} id of the symbol, or {@link AssetIds#NO_ID} if it is not registered
+     */
+    public int assetId(String symbol) {
+        AssetRef ref = registry.ref(symbol);
+        return ref == null ? AssetIds.NO_ID : ref.id();
     }
 
+    /**
+     * @return the compact view of the registered asset, or null
+     */
+    public AssetRef ref(String symbol) {
+        return registry.ref(symbol);
+    }
+
+    /**
+     * @return the asset of an {@link AssetIds} id, hydrated in lazy mode, or null
+     */
+    public Asset asset(int assetId) {
+        return registry.asset(assetId);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        assetsFileLock.writeLock().lock();
+        try {
+            FileChannel channel = assetsFile;
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            assetsFileLock.writeLock().unlock();
+        }
+    }
 }
@@ -14,22 +14,35 @@
 
 package com.fibonsai.exsim.services;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fibonsai.exsim.catalog.CatalogCache;
+import com.fibonsai.exsim.catalog.CatalogDiff;
+import com.fibonsai.exsim.catalog.CatalogSnapshot;
+import com.fibonsai.exsim.catalog.ListingIndex;
+import com.fibonsai.exsim.catalog.PairIndex;
 import com.fibonsai.exsim.dto.AssetPair;
-import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
 import com.fibonsai.exsim.dto.exchange.Exchange;
 import com.fibonsai.exsim.util.ResourcesUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @SuppressWarnings("SpellCheckingInspection")
 @Slf4j
@@ -42,13 +55,20 @@ public class ExchangeHubService extends AbstractService {
     @Value("${exsim.exchanges_pairs_data}")
     String exchangesPairsData;
 
+    @Value("${exsim.pairs_data}")
+    String pairsData;
+
+    @Value("${exsim.catalog.cache_dir}")
+    String catalogCacheDir;
+
     private final AccountService accountService;
     private final MarketDataService marketDataService;
     private final TradeService tradeService;
     private final AssetService assetService;
     private final ObjectMapper mapper;
 
-    private final Map<String, Exchange> exchanges = new ConcurrentHashMap<>();
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
+    private final Map<String, Duration> startupTimings = new LinkedHashMap<>();
 
     public ExchangeHubService(AccountService accountService,
                               MarketDataService marketDataService,
@@ -64,83 +84,353 @@ public class ExchangeHubService extends AbstractService {
         this.mapper = mapper;
     }
 
+    /**
+     * Loads the catalogs from the binary catalog cache in {@code exsim.catalog.cache_dir} when it matches the
+     * source files, unless assets are lazily loaded. Otherwise parses the asset catalog, the exchange catalog and
+     * the pairs catalog concurrently, resolves the pairs of every exchange in parallel on the fork-join pool and
+     * writes the cache.
+     * The time of each phase is logged and kept in {@link #startupTimings()}.
+     */
     public Mono<Instant> start() {
         return Mono.fromCallable(() -> {
-            marketDataService.prepareAssets();
-            loadExchangesFromFile();
-            marketDataService.start();
-            tradeService.start();
-            accountService.start();
+            long started = System.nanoTime();
+            startupTimings.clear();
+            // the cache holds full assets, it would defeat the lazy asset mode
+            CatalogCache catalogCache = catalogCacheDir == null || catalogCacheDir.isBlank()
+                    || assetService.lazyAssets() ? null : new CatalogCache(Path.of(catalogCacheDir));
+            byte[] catalogKey = catalogCache == null ? null : timed("catalog key", () -> CatalogCache.key(
+                    Exchange.class.getClassLoader(), exchangesData, pairsData, exchangesPairsData));
+            Optional<CatalogCache.Catalog> cached = catalogCache == null
+                    ? Optional.empty() : timed("catalog cache", () -> catalogCache.load(catalogKey));
+            final Map<String, Exchange> loaded;
+            if (cached.isPresent()) {
+                loaded = timed("catalog", () -> {
+                    cached.get().assets().forEach(assetService::add);
+                    Map<String, Exchange> cachedExchanges = new LinkedHashMap<>();
+                    cached.get().exchanges().forEach(exchange ->
+                            cachedExchanges.putIfAbsent(exchange.internalName().toLowerCase(), exchange));
+                    return cachedExchanges;
+                });
+                log.info("{} assets and {} exchanges loaded from the catalog cache",
+                        cached.get().assets().size(), cached.get().exchanges().size());
+            } else {
+                loaded = loadCatalogs();
+                if (catalogCache != null) {
+                    timed("catalog store", () -> {
+                        try {
+                            catalogCache.store(catalogKey, new CatalogCache.Catalog(
+                                    List.copyOf(assetService.assets().values()), List.copyOf(loaded.values())));
+                        } catch (IOException | RuntimeException e) {
+                            log.warn("Catalog cache not written: {}", e.getMessage());
+                        }
+                        return null;
+                    });
+                }
+            }
+            CatalogSnapshot indexed = timed("index", () -> CatalogSnapshot.of(catalog.version() + 1, loaded));
+            timed("market data", () -> { marketDataService.start(indexed.pairIndexes()); return null; });
+            tradeService.bookListeners(marketDataService::bookListener);
+            Map<String, int[]> bookIds = timed("matching", () -> tradeService.start(indexed.pairIndexes()));
+            timed("publish", () -> publish(indexed.withBookIds(bookIds)));
+            timed("accounts", () -> { accountService.start(); return null; });
 
-            log.info("exchange hub started");
+            log.info("exchange hub started in {} ms {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                    startupTimings());
             return Instant.now();
         });
     }
 
+    /**
+     * Re-reads the exchange and pairs catalogs on a bounded elastic thread, publishes the new snapshot and applies
+     * its difference with the previous one to the order books and the tick generators. Readers keep using the
+     * previous snapshot until the new one is complete, and the matching and wallet paths never wait on a reload.
+     * <p>
+     * Assets of the asset catalog are added or updated, unless it is lazily indexed. Known assets keep their id, and
+     * wallets are left untouched, including those of assets no longer listed.
+     */
+    public Mono<CatalogDiff> reload() {
+        return Mono.fromCallable(this::reloadCatalogs).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private synchronized CatalogDiff reloadCatalogs() throws Exception {
+        CompletableFuture<Void> assets = assetService.lazyAssets() ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> timed("assets", () -> { assetService.reloadFromFile(); return null; }));
+        Map<String, Exchange> loaded = loadExchanges(assets);
+        CatalogSnapshot previous = catalog;
+        CatalogSnapshot indexed = timed("index", () -> CatalogSnapshot.of(previous.version() + 1, loaded));
+        CatalogDiff diff = CatalogDiff.of(previous, indexed);
+        // the books of the new pair ids must exist before the snapshot routing to them is visible
+        Map<String, int[]> bookIds = diff.isEmpty() ? previous.bookIds()
+                : timed("matching", () -> tradeService.apply(diff, indexed.pairIndexes()));
+        CatalogSnapshot published = timed("publish", () -> publish(indexed.withBookIds(bookIds)));
+        if (!diff.isEmpty()) {
+            tradeService.removeBooks(diff);
+        }
+        if (marketDataService.ticks() != null && !diff.isEmpty()) {
+            timed("market data", () -> { marketDataService.apply(diff, published.pairIndexes()); return null; });
+        }
+        log.info("Catalog reloaded to version {}: {} exchanges added, {} removed, {} exchanges with pair changes",
+                published.version(), diff.addedExchanges().size(), diff.removedExchanges().size(),
+                diff.changedExchanges().size());
+        return diff;
+    }
+
+    /**
+     * Parses the asset, exchange and pairs catalogs concurrently, then resolves the pairs of every exchange
+     * in parallel on the fork-join pool.
+     *
+     * @return the exchanges by lower case internal name
+     */
+    private Map<String, Exchange> loadCatalogs() throws Exception {
+        return loadExchanges(CompletableFuture.runAsync(() ->
+                timed("assets", () -> { marketDataService.prepareAssets(); return null; })));
+    }
+
+    /**
+     * Parses the exchange and pairs catalogs concurrently, waits for the assets to be loaded, then resolves
+     * the pairs of every exchange in parallel on the fork-join pool.
+     */
+    private Map<String, Exchange> loadExchanges(CompletableFuture<Void> assets) throws Exception {
+        CompletableFuture<Map<String, Exchange>> exchangesCatalog = CompletableFuture.supplyAsync(() ->
+                timed("exchanges", this::parseExchanges));
+        CompletableFuture<Map<String, Map<String, List<String>>>> pairsCatalog = CompletableFuture.supplyAsync(() ->
+                timed("pairs", this::parsePairs));
+        try {
+            CompletableFuture.allOf(assets, exchangesCatalog, pairsCatalog).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        return timed("resolve", () -> {
+            Map<String, Exchange> loaded = exchangesCatalog.join();
+            resolvePairs(loaded, pairsCatalog.join());
+            return loaded;
+        });
+    }
+
+    /**
+     * Makes the snapshot, indexes and order book routing included, visible to readers.
+     */
+    private synchronized CatalogSnapshot publish(CatalogSnapshot snapshot) {
+        catalog = snapshot;
+        log.info("Catalog version {} published with {} exchanges", snapshot.version(), snapshot.exchanges().size());
+        return snapshot;
+    }
+
+    /**
+     * @return the current catalog snapshot, read once and used as a whole for a consistent view
+     */
+    public CatalogSnapshot catalog() {
+        return catalog;
+    }
+
+    /**
+     * Duration of each phase of the last {@link #start()} or {@link #reload()}, in order of completion.
+     */
+    public Map<String, Duration> startupTimings() {
+        synchronized (startupTimings) {
+            return new LinkedHashMap<>(startupTimings);
+        }
+    }
+
+    private <T> T timed(String phase, Supplier<T> task) {
+        long started = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+            synchronized (startupTimings) {
+                startupTimings.put(phase, elapsed);
+            }
+            log.info("Startup phase {} took {} ms", phase, elapsed.toMillis());
+        }
+    }
+
+    public Map<String, Exchange> exchanges() {
+        return catalog.exchanges();
+    }
+
+    /**
+     * @return the pair index of the exchange, or null if it is not loaded
+     */
+    public PairIndex pairIndex(String exchange) {
+        return catalog.pairIndexes().get(exchange);
+    }
+
+    /**
+     * @return the pair indexes by lower case exchange internal name
+     */
+    public Map<String, PairIndex> pairIndexes() {
+        return catalog.pairIndexes();
+    }
+
+    /**
+     * Routes a pair id read from {@link #pairIndex(String)} to its order book. Both must come from the same
+     * snapshot, so callers routing several pairs should read {@link #catalog()} once and use
+     * {@link CatalogSnapshot#bookId(String, int)}.
+     *
+     * @return the book id, or -1 if the exchange or the pair is unknown
+     */
+    public int bookId(String exchange, int pairId) {
+        return catalog.bookId(exchange, pairId);
+    }
+
+    /**
+     * @return the exchanges listing each pair and asset
+     */
+    public ListingIndex listingIndex() {
+        return catalog.listings();
+    }
+
+    /**
+     * Loads the exchanges and their pairs, see {@link #parseExchanges()} and {@link #parsePairs()}.
+     */
     public void loadExchangesFromFile() {
+        Map<String, Exchange> loaded = parseExchanges();
+        resolvePairs(loaded, parsePairs());
+        publish(CatalogSnapshot.of(catalog.version() + 1, loaded));
+    }
+
+    /**
+     * Parses the exchange catalog in a single streaming pass: every entry is deserialized straight from the parser,
+     * so no JSON tree of the catalog is kept in memory.
+     *
+     * @return the exchanges by lower case internal name
+     */
+    Map<String, Exchange> parseExchanges() {
         log.info("Loading exchanges from {}", exchangesData);
-        try (InputStream in = ResourcesUtil.getResourceAsStream(Exchange.class, exchangesData)) {
-            BufferedInputStream bufferedInputStream = new BufferedInputStream(in);
-            JsonNode jsonNode = mapper.readTree(bufferedInputStream);
-            JsonNode jsonNodeExchanges = Optional.ofNullable(jsonNode.get("Data")).orElseThrow();
-            jsonNodeExchanges.forEachEntry((k, exchange) -> {
-                exchanges.computeIfAbsent(exchange.get("InternalName").asText().toLowerCase(), name ->
-                        mapper.convertValue(exchange, Exchange.class));
-            });
+        Map<String, Exchange> parsed = new LinkedHashMap<>();
+        try (InputStream in = ResourcesUtil.getResourceAsStream(Exchange.class, exchangesData);
+             JsonParser parser = mapper.createParser(new BufferedInputStream(in))) {
+            if (!moveToField(parser, "Data")) {
+                throw new NoSuchElementException("Data not found in " + exchangesData);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                Exchange exchange = mapper.readValue(parser, Exchange.class);
+                parsed.putIfAbsent(exchange.internalName().toLowerCase(), exchange);
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        return parsed;
+    }
 
+    /**
+     * Parses the pairs catalog in a single streaming pass. Symbols are kept as read: resolving them
+     * needs the assets, which may still be loading.
+     *
+     * @return quote symbols by base symbol by lower case exchange name
+     */
+    Map<String, Map<String, List<String>>> parsePairs() {
         log.info("Loading exchanges pairs from {}", exchangesPairsData);
-        try (InputStream in = ResourcesUtil.getResourceAsStream(Exchange.class, exchangesPairsData)) {
-            BufferedInputStream bufferedInputStream = new BufferedInputStream(in);
-            JsonNode jsonNode = mapper.readTree(bufferedInputStream);
-            JsonNode jsonNodeAssets = Optional.ofNullable(jsonNode.get("exchanges")).orElseThrow();
-            final List<String> assetsNotFound = new ArrayList<>();
-            final List<String> exchangesWithoutPairs = new ArrayList<>();
-            jsonNodeAssets.forEachEntry((exchangeName, jsonWithAssets) -> {
-                String exchangeSimpleName = exchangeName.toLowerCase();
-                Exchange exchange = exchanges.get(exchangeSimpleName);
-                if (exchange != null) {
-                    final Set<AssetPair> exchangePairs = exchange.assetPairs();
-                    jsonWithAssets.forEachEntry((base, quotes) -> {
-                        if (quotes.isArray()) {
-                            quotes.iterator().forEachRemaining(quote -> {
-                                Asset assetBase = assetService.assets().get(base);
-                                if (assetBase != null) {
-                                    Asset assetQuote = assetService.assets().get(quote.asText());
-                                    if (assetQuote != null) {
-                                        exchangePairs.add(AssetPair.builder().baseAsset(assetBase).quoteAsset(assetQuote).build());
-                                    }
-                                } else {
-                                    assetsNotFound.add(base);
-                                }
-                            });
+        Map<String, Map<String, List<String>>> parsed = new LinkedHashMap<>();
+        try (InputStream in = ResourcesUtil.getResourceAsStream(Exchange.class, exchangesPairsData);
+             JsonParser parser = mapper.createParser(new BufferedInputStream(in))) {
+            if (!moveToField(parser, "exchanges")) {
+                throw new NoSuchElementException("exchanges not found in " + exchangesPairsData);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Map<String, List<String>> quotesByBase = parsed.computeIfAbsent(parser.currentName().toLowerCase(),
+                        name -> new LinkedHashMap<>());
+                parser.nextToken();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String base = parser.currentName();
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    List<String> quotes = quotesByBase.computeIfAbsent(base, key -> new ArrayList<>());
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                            quotes.add(parser.getText());
                         }
-                    });
-                    if (exchange.assetPairs().isEmpty()) {
-                        exchangesWithoutPairs.add(exchangeSimpleName);
-                    } else {
-                        log.info("Exchange {} have {} asset pairs supported", exchange.name(), exchange.assetPairs().size());
+                        parser.skipChildren();
                     }
-                } else {
-                    exchangesWithoutPairs.add(exchangeSimpleName);
                 }
-            });
-            if (!exchangesWithoutPairs.isEmpty()) {
-                removeExchangeWithoutPairs(exchangesWithoutPairs);
-            }
-            log.info("{} exchanges loaded", exchanges.size());
-            if (!assetsNotFound.isEmpty()) {
-                log.warn("The following assets are not registered in AssetService and will be ignored: {}",
-                        assetsNotFound.stream().sorted().distinct().toList());
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
         }
+        return parsed;
+    }
+
+    private record ResolvedPairs(String exchangeName, boolean withoutPairs, List<String> assetsNotFound) {}
+
+    /**
+     * Adds the pairs of the catalog to the loaded exchanges, one fork-join task per exchange,
+     * and removes the exchanges left without pairs.
+     */
+    private void resolvePairs(Map<String, Exchange> exchanges, Map<String, Map<String, List<String>>> pairsCatalog) {
+        List<ResolvedPairs> resolved = pairsCatalog.entrySet().parallelStream()
+                .map(entry -> resolvePairs(exchanges.get(entry.getKey()), entry.getKey(), entry.getValue()))
+                .toList();
+        final List<String> exchangesWithoutPairs = new ArrayList<>();
+        final List<String> assetsNotFound = new ArrayList<>();
+        for (ResolvedPairs result : resolved) {
+            assetsNotFound.addAll(result.assetsNotFound());
+            if (result.withoutPairs()) {
+                exchangesWithoutPairs.add(result.exchangeName());
+            } else {
+                Exchange exchange = exchanges.get(result.exchangeName());
+                log.info("Exchange {} have {} asset pairs supported", exchange.name(), exchange.assetPairs().size());
+            }
+        }
+        if (!exchangesWithoutPairs.isEmpty()) {
+            removeExchangeWithoutPairs(exchanges, exchangesWithoutPairs);
+        }
+        log.info("{} exchanges loaded", exchanges.size());
+        if (!assetsNotFound.isEmpty()) {
+            log.warn("The following assets are not registered in AssetService and will be ignored: {}",
+                    assetsNotFound.stream().sorted().distinct().toList());
+        }
+    }
+
+    /**
+     * Pairs are built from the {@link AssetRef} of their assets, so resolving them hydrates no lazily indexed asset.
+     */
+    private ResolvedPairs resolvePairs(Exchange exchange, String exchangeName, Map<String, List<String>> quotesByBase) {
+        if (exchange == null) {
+            return new ResolvedPairs(exchangeName, true, List.of());
+        }
+        final List<String> assetsNotFound = new ArrayList<>();
+        final Set<AssetPair> exchangePairs = exchange.assetPairs();
+        quotesByBase.forEach((base, quotes) -> {
+            AssetRef assetBase = assetService.ref(base);
+            if (assetBase == null) {
+                quotes.forEach(quote -> assetsNotFound.add(base));
+                return;
+            }
+            for (String quote : quotes) {
+                AssetRef assetQuote = assetService.ref(quote);
+                if (assetQuote != null) {
+                    exchangePairs.add(AssetPair.builder().baseAsset(assetBase).quoteAsset(assetQuote).build());
+                }
+            }
+        });
+        return new ResolvedPairs(exchangeName, exchangePairs.isEmpty(), assetsNotFound);
+    }
+
+    /**
+     * Advances a parser positioned before the root object to the start of the object value of a root field,
+     * skipping the fields before it.
+     *
+     * @return false if the root has no such object field
+     */
+    private static boolean moveToField(JsonParser parser, String field) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            JsonToken value = parser.nextToken();
+            if (field.equals(parser.currentName()) && value == JsonToken.START_OBJECT) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
     }
 
-    private void removeExchangeWithoutPairs(List<String> exchangesWithoutPairs) {
+    private void removeExchangeWithoutPairs(Map<String, Exchange> exchanges, List<String> exchangesWithoutPairs) {
         log.warn("The following exchanges don't have asset pairs registered in AssetService and will be removed: {}", exchangesWithoutPairs);
         exchangesWithoutPairs.forEach(exchanges::remove);
     }
@@ -14,12 +14,113 @@
 
 package com.fibonsai.exsim.services;
 
+import com.fibonsai.exsim.catalog.CatalogDiff;
+import com.fibonsai.exsim.catalog.PairIndex;
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.marketdata.*;
+import com.fibonsai.exsim.matching.MatchListener;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Slf4j
 @Service
 public class MarketDataService extends AbstractService {
 
+    /**
+     * Chooses the tick source of a pair of an exchange.
+     */
+    @FunctionalInterface
+    public interface TickSourceFactory {
+        TickSource create(String exchange, AssetPair assetPair);
+    }
+
+    @Value("${exsim.marketdata.threads}")
+    int threads;
+
+    @Value("${exsim.marketdata.ring_size}")
+    int ringSize;
+
+    /**
+     * Idle streams of the tick ring taken by the pairs listed by a catalog reload, see {@link #apply}.
+     */
+    @Value("${exsim.marketdata.spare_streams}")
+    int spareStreams;
+
+    @Value("${exsim.marketdata.tick_interval_ms}")
+    long tickIntervalMillis;
+
+    @Value("${exsim.marketdata.model}")
+    TickModelType model;
+
+    @Value("${exsim.marketdata.initial_price}")
+    double initialPrice;
+
+    @Value("${exsim.marketdata.drift}")
+    double drift;
+
+    @Value("${exsim.marketdata.volatility}")
+    double volatility;
+
+    @Value("${exsim.marketdata.jump_intensity}")
+    double jumpIntensity;
+
+    @Value("${exsim.marketdata.jump_volatility}")
+    double jumpVolatility;
+
+    @Value("${exsim.marketdata.reversion_speed}")
+    double reversionSpeed;
+
+    @Value("${exsim.marketdata.seed}")
+    long seed;
+
+    @Value("${exsim.marketdata.replay_files}")
+    String replayFiles;
+
+    @Value("${exsim.marketdata.replay_speed}")
+    double replaySpeed;
+
+    @Value("${exsim.marketdata.depth_levels}")
+    int depthLevels;
+
+    @Value("${exsim.marketdata.depth_interval_ms}")
+    long depthIntervalMillis;
+
+    /**
+     * Depth frames buffered for a slow subscriber before its stream errors, see {@link DepthPublisher}.
+     */
+    @Value("${exsim.marketdata.depth_buffer_size}")
+    int depthBufferSize;
+
+    @Value("${exsim.marketdata.ticker_interval_ms}")
+    long tickerIntervalMillis;
+
+    private record BookKey(String exchange, AssetPair assetPair) {}
+
     private final AssetService assetService;
+    private final Map<BookKey, DepthTracker> depthTrackers = new ConcurrentHashMap<>();
+    private DepthPublisher depthPublisher;
+    private TickerPublisher tickerPublisher;
+    private volatile TickSourceFactory tickSourceFactory;
+    private volatile TickEngine tickEngine;
+    private volatile TickReplay tickReplay;
+    private volatile TickRing ticks;
+    private volatile Map<String, PairIndex> pairIndexes = Map.of();
+    private volatile Map<String, int[]> streamsByPairId = Map.of();
+    private final Deque<Integer> freeStreams = new ArrayDeque<>();
+    private int nextStream;
 
     public MarketDataService(AssetService assetService) {
         super();
@@ -30,7 +131,364 @@ public class MarketDataService extends AbstractService {
         assetService.init();
     }
 
-    public void start() {
+    /**
+     * Overrides the tick sources built from the {@code exsim.marketdata} properties. Applied on the next start.
+     */
+    public void tickSourceFactory(TickSourceFactory tickSourceFactory) {
+        this.tickSourceFactory = tickSourceFactory;
+    }
+
+    /**
+     * Starts the ticks of every indexed pair: replayed from {@code exsim.marketdata.replay_files} if set, generated
+     * otherwise. If the generator is already running, it is replaced and the pairs still indexed continue from their
+     * last price; a replay restarts from the beginning of the files.
+     */
+    public synchronized void start(Map<String, PairIndex> pairIndexes) {
+        if (replayFiles != null && !replayFiles.isBlank()) {
+            index(pairIndexes);
+            List<Path> files = replayPaths();
+            replay(files, replaySpeed).subscribe(
+                    count -> log.info("{} ticks replayed from {} files", count, files.size()),
+                    e -> log.error("Tick replay failed: {}", e.getMessage(), e));
+            return;
+        }
+        TickSourceFactory factory = tickSourceFactory != null ? tickSourceFactory : defaultTickSourceFactory();
+        List<TickSource> sources = new ArrayList<>();
+        List<Double> carried = new ArrayList<>();
+        Map<String, int[]> streams = new HashMap<>();
+        TickRing previousTicks = ticks;
+        pairIndexes.forEach((exchange, pairIndex) -> {
+            int[] exchangeStreams = new int[pairIndex.size()];
+            for (int pairId = 0; pairId < pairIndex.size(); pairId++) {
+                AssetPair pair = pairIndex.pair(pairId);
+                int previous = previousTicks == null ? -1 : streamId(exchange, pair);
+                exchangeStreams[pairId] = sources.size();
+                sources.add(factory.create(exchange, pair));
+                carried.add(previous >= 0 ? previousTicks.lastPrice(previous) : Double.NaN);
+            }
+            streams.put(exchange, exchangeStreams);
+        });
+        int threadCount = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        TickEngine engine = new TickEngine(sources, carried.stream().mapToDouble(Double::doubleValue).toArray(),
+                sources.size() + Math.max(0, spareStreams), threadCount, ringSize, seed);
+        stopTicks();
+        this.pairIndexes = Map.copyOf(pairIndexes);
+        this.streamsByPairId = Map.copyOf(streams);
+        freeStreams.clear();
+        nextStream = sources.size();
+        pruneDepthTrackers();
+        this.tickEngine = engine;
+        this.ticks = engine.ring();
+        engine.start();
+        log.info("Market data started for {} pairs of {} exchanges", sources.size(), streams.size());
+    }
+
+    /**
+     * Applies a catalog reload to the running generator without replacing its ring: the streams of delisted pairs
+     * are retired, listed pairs take an idle stream, and the pairs still listed keep their stream, their ticks and
+     * the cursors on them. Falls back to {@link #start} when ticks are replayed or when there are not enough idle
+     * streams left, see {@code exsim.marketdata.spare_streams}.
+     *
+     * @param pairIndexes pair indexes of the catalog the diff leads to
+     */
+    public synchronized void apply(CatalogDiff diff, Map<String, PairIndex> pairIndexes) {
+        TickEngine engine = tickEngine;
+        if (engine == null) {
+            start(pairIndexes);
+            return;
+        }
+        Map<String, PairIndex> previousIndexes = this.pairIndexes;
+        Map<String, int[]> previousStreams = this.streamsByPairId;
+        Map<String, int[]> streams = new HashMap<>();
+        Set<Integer> kept = new HashSet<>();
+        int unassigned = 0;
+        for (Map.Entry<String, PairIndex> entry : pairIndexes.entrySet()) {
+            String exchange = entry.getKey();
+            PairIndex pairIndex = entry.getValue();
+            PairIndex previousIndex = previousIndexes.get(exchange);
+            int[] exchangeStreams = previousStreams.get(exchange);
+            if (diff.changedExchanges().contains(exchange) || previousIndex == null
+                    || previousIndex.size() != pairIndex.size()) {
+                exchangeStreams = new int[pairIndex.size()];
+                for (int pairId = 0; pairId < exchangeStreams.length; pairId++) {
+                    exchangeStreams[pairId] = streamId(exchange, pairIndex.pair(pairId));
+                    unassigned += exchangeStreams[pairId] < 0 ? 1 : 0;
+                }
+            }
+            for (int stream : exchangeStreams) {
+                kept.add(stream);
+            }
+            streams.put(exchange, exchangeStreams);
+        }
+        if (unassigned > freeStreams.size() + engine.ring().streams() - nextStream) {
+            log.info("{} pairs listed with {} idle streams, restarting the market data", unassigned,
+                    freeStreams.size() + engine.ring().streams() - nextStream);
+            start(pairIndexes);
+            return;
+        }
+        TickSourceFactory factory = tickSourceFactory != null ? tickSourceFactory : defaultTickSourceFactory();
+        streams.forEach((exchange, exchangeStreams) -> {
+            for (int pairId = 0; pairId < exchangeStreams.length; pairId++) {
+                if (exchangeStreams[pairId] < 0) {
+                    // streams never used first, so a stream retired by this reload still holds the delisted pair
+                    int stream = nextStream < engine.ring().streams() ? nextStream++ : freeStreams.poll();
+                    engine.add(stream, factory.create(exchange, pairIndexes.get(exchange).pair(pairId)));
+                    exchangeStreams[pairId] = stream;
+                }
+            }
+        });
+        int retired = 0;
+        for (int[] exchangeStreams : previousStreams.values()) {
+            for (int stream : exchangeStreams) {
+                if (!kept.contains(stream)) {
+                    engine.retire(stream);
+                    freeStreams.add(stream);
+                    retired++;
+                }
+            }
+        }
+        this.pairIndexes = Map.copyOf(pairIndexes);
+        this.streamsByPairId = Map.copyOf(streams);
+        pruneDepthTrackers();
+        log.info("Catalog version {} applied to market data: {} streams added, {} retired", diff.toVersion(),
+                unassigned, retired);
+    }
+
+    /**
+     * Replays recorded ticks into {@link #ticks()} instead of generating them, see {@link TickReplay}. The files
+     * must have been recorded with the pair indexes the service was last started with; ticks of unknown exchanges
+     * or pairs are skipped.
+     *
+     * @param speed wall clock speed factor, zero or less to replay as fast as possible
+     * @return the number of ticks replayed, once the files are exhausted or the replay is stopped
+     */
+    public Mono<Long> replay(List<Path> files, double speed) {
+        return replay(files, speed, null);
+    }
+
+    /**
+     * Replays recorded ticks to the listener, or into {@link #ticks()} if the listener is null.
+     */
+    public Mono<Long> replay(List<Path> files, double speed, TickReplay.Listener listener) {
+        return Mono.fromCallable(() -> {
+            TickReplay replay;
+            TickReplay.Listener target = listener;
+            // opened under the lock so the pair ids of the files and the streams of the ring share one catalog
+            synchronized (this) {
+                List<TickFile> tickFiles = new ArrayList<>(files.size());
+                for (Path file : files) {
+                    tickFiles.add(TickFile.open(file, pairIndexes));
+                }
+                replay = new TickReplay(tickFiles, speed);
+                if (target == null) {
+                    stopTicks();
+                    target = ringListener(tickFiles);
+                }
+                tickReplay = replay;
+            }
+            return replay.run(target);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @return the listener mirroring the depth of the order book of the pair, see {@link #depth} and {@link #ticker}
+     */
+    public MatchListener bookListener(String exchange, AssetPair assetPair) {
+        return depthTrackers.computeIfAbsent(new BookKey(exchange, assetPair), key -> new DepthTracker());
+    }
+
+    /**
+     * L2 depth of the order book of the pair: the latest top {@code exsim.marketdata.depth_levels} snapshot, then
+     * one diff per {@code exsim.marketdata.depth_interval_ms} in which the book changed, see {@link DepthUpdate}.
+     */
+    public Flux<DepthUpdate> depth(String exchange, AssetPair assetPair) {
+        DepthTracker tracker = depthTrackers.get(new BookKey(exchange, assetPair));
+        if (tracker == null) {
+            return noBook(exchange, assetPair);
+        }
+        return depthPublisher().subscribe(tracker);
+    }
+
+    /**
+     * Conflated best bid, best ask and last trade of the order book of the pair. Each subscriber gets the latest
+     * value when it requests one, within {@code exsim.marketdata.ticker_interval_ms} of the change, and misses
+     * the values it was too slow to take.
+     */
+    public Flux<Ticker> ticker(String exchange, AssetPair assetPair) {
+        DepthTracker tracker = depthTrackers.get(new BookKey(exchange, assetPair));
+        if (tracker == null) {
+            return noBook(exchange, assetPair);
+        }
+        return tickerPublisher().subscribe(tracker.ticker());
+    }
+
+    private static <T> Flux<T> noBook(String exchange, AssetPair assetPair) {
+        return Flux.error(new IllegalArgumentException("No order book for %s on %s".formatted(assetPair, exchange)));
+    }
+
+    private synchronized DepthPublisher depthPublisher() {
+        if (depthPublisher == null) {
+            depthPublisher = new DepthPublisher(depthLevels, depthIntervalMillis, depthBufferSize);
+            depthPublisher.start();
+        }
+        return depthPublisher;
+    }
+
+    private synchronized TickerPublisher tickerPublisher() {
+        if (tickerPublisher == null) {
+            tickerPublisher = new TickerPublisher(tickerIntervalMillis);
+            tickerPublisher.start();
+        }
+        return tickerPublisher;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (depthPublisher != null) {
+            depthPublisher.stop();
+            depthPublisher = null;
+        }
+        if (tickerPublisher != null) {
+            tickerPublisher.stop();
+            tickerPublisher = null;
+        }
+        stopTicks();
+    }
+
+    private synchronized void stopTicks() {
+        if (tickEngine != null) {
+            tickEngine.stop();
+            tickEngine = null;
+        }
+        if (tickReplay != null) {
+            tickReplay.cancel();
+            tickReplay = null;
+        }
+    }
+
+    /**
+     * @return the ticks of the last start or replay, or null if the service was not started
+     */
+    public TickRing ticks() {
+        return ticks;
+    }
+
+    /**
+     * @param pairId id of the pair in the {@link PairIndex} of the exchange the service was last started or applied
+     *               with
+     * @return the stream of the pair in {@link #ticks()}, or -1 if the exchange or the pair is unknown
+     */
+    public int streamId(String exchange, int pairId) {
+        int[] streams = streamsByPairId.get(exchange);
+        return streams != null && pairId >= 0 && pairId < streams.length ? streams[pairId] : -1;
+    }
+
+    public int streamId(String exchange, AssetPair assetPair) {
+        PairIndex pairIndex = pairIndexes.get(exchange);
+        return pairIndex == null ? -1 : streamId(exchange, pairIndex.pairId(assetPair));
+    }
+
+    /**
+     * @return the last generated price of the pair, or NaN if it has none
+     */
+    public double lastPrice(String exchange, AssetPair assetPair) {
+        TickRing ring = ticks;
+        int stream = streamId(exchange, assetPair);
+        return ring == null || stream < 0 ? Double.NaN : ring.lastPrice(stream);
+    }
+
+    private void index(Map<String, PairIndex> pairIndexes) {
+        Map<String, int[]> streams = new HashMap<>();
+        int next = 0;
+        for (Map.Entry<String, PairIndex> entry : pairIndexes.entrySet()) {
+            int[] exchangeStreams = new int[entry.getValue().size()];
+            for (int pairId = 0; pairId < exchangeStreams.length; pairId++) {
+                exchangeStreams[pairId] = next++;
+            }
+            streams.put(entry.getKey(), exchangeStreams);
+        }
+        this.pairIndexes = Map.copyOf(pairIndexes);
+        this.streamsByPairId = Map.copyOf(streams);
+        freeStreams.clear();
+        nextStream = next;
+        pruneDepthTrackers();
+    }
+
+    /**
+     * Forgets the depth of the books of pairs no longer indexed, their books being removed by the trade service.
+     */
+    private void pruneDepthTrackers() {
+        depthTrackers.entrySet().removeIf(entry -> {
+            BookKey key = entry.getKey();
+            if (streamId(key.exchange(), key.assetPair()) >= 0) {
+                return false;
+            }
+            if (depthPublisher != null) {
+                depthPublisher.remove(entry.getValue());
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Writes the replayed ticks into a new ring, converting the price ticks with the price scale of the pair.
+     */
+    private TickReplay.Listener ringListener(List<TickFile> tickFiles) {
+        Map<String, PairIndex> indexes = pairIndexes;
+        Map<String, int[]> streamIds = streamsByPairId;
+        int streams = streamIds.values().stream().flatMapToInt(Arrays::stream).max().orElse(-1) + 1;
+        TickRing ring = new TickRing(streams, ringSize);
+        double[] priceUnits = new double[streams];
+        indexes.forEach((exchange, pairIndex) -> {
+            int[] exchangeStreams = streamIds.get(exchange);
+            for (int pairId = 0; pairId < pairIndex.size(); pairId++) {
+                priceUnits[exchangeStreams[pairId]] = Math.pow(10, -pairIndex.pair(pairId).priceScale());
+            }
+        });
+        int[][] fileStreams = new int[tickFiles.size()][];
+        for (int file = 0; file < fileStreams.length; file++) {
+            String exchange = tickFiles.get(file).exchange();
+            fileStreams[file] = streamIds.get(exchange);
+            if (fileStreams[file] == null) {
+                log.warn("Ticks of unknown exchange {} in {} are skipped", exchange, tickFiles.get(file).path());
+            }
+        }
+        ticks = ring;
+        return (file, timeMillis, pairId, priceTicks, size) -> {
+            int[] pairStreams = fileStreams[file];
+            if (pairStreams != null && pairId >= 0 && pairId < pairStreams.length) {
+                int stream = pairStreams[pairId];
+                ring.write(stream, timeMillis, priceTicks * priceUnits[stream]);
+            }
+        };
+    }
+
+    private List<Path> replayPaths() {
+        List<Path> files = new ArrayList<>();
+        for (String name : replayFiles.split(",")) {
+            Path path = Path.of(name.strip());
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    children.filter(child -> child.getFileName().toString().endsWith(TickFile.EXTENSION))
+                            .sorted()
+                            .forEach(files::add);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        return files;
+    }
 
+    private TickSourceFactory defaultTickSourceFactory() {
+        TickModel tickModel = switch (model) {
+            case GEOMETRIC_BROWNIAN_MOTION -> new GeometricBrownianMotion(drift, volatility);
+            case JUMP_DIFFUSION -> new JumpDiffusion(drift, volatility, jumpIntensity, 0.0, jumpVolatility);
+            case MEAN_REVERSION -> new MeanReversion(initialPrice, reversionSpeed, volatility);
+        };
+        TickSource source = new TickSource(tickModel, initialPrice, tickIntervalMillis);
+        return (exchange, assetPair) -> source;
     }
 }
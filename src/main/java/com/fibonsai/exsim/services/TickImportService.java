@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2025 fibonsai.com
+ * All rights reserved.
+ *
+ * This source is subject to the Apache License, Version 2.0.
+ * Please see the LICENSE file for more information.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.fibonsai.exsim.services;
+
+import com.fibonsai.exsim.catalog.PairIndex;
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.marketdata.TickFile;
+import com.fibonsai.exsim.util.AssetUtil;
+import com.fibonsai.exsim.util.FixedPointUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Imports recorded ticks from CSV files into {@link TickFile}s, one per exchange, for {@link MarketDataService}.
+ * <p>
+ * The CSV has a {@code time} (epoch millis, or epoch seconds with a fraction), {@code exchange}, {@code symbol}
+ * ({@code BTC/USDT}, {@code BTC-USDT} or {@code BTC_USDT}), {@code price} and {@code size} column. With a header
+ * line the columns are matched by name and may come in any order, without one they are expected in that order.
+ * Fields are not quoted.
+ * <p>
+ * The file is split in byte ranges ending on line boundaries, and each range is memory-mapped and parsed on the
+ * fork-join pool. Numbers are parsed from the bytes, and exchanges and symbols are resolved once per range through
+ * the pair indexes of the catalog snapshot the import started with, so parsing a row does not allocate. Each tick
+ * file holds the symbols of that pair index, see {@link TickFile}. Rows of unknown exchanges or
+ * pairs, malformed rows and prices or sizes with more decimal places than the pair supports are skipped.
+ */
+@Slf4j
+@Service
+public class TickImportService extends AbstractService {
+
+    /**
+     * @param ticks   ticks written by exchange
+     * @param skipped rows not imported
+     */
+    public record Result(long rows, long skipped, Map<String, Integer> ticks, List<Path> files) {}
+
+    private static final int TIME = 0;
+    private static final int EXCHANGE = 1;
+    private static final int SYMBOL = 2;
+    private static final int PRICE = 3;
+    private static final int SIZE = 4;
+    private static final int IGNORED = -1;
+    private static final Map<String, Integer> COLUMNS = Map.of(
+            "time", TIME, "timestamp", TIME,
+            "exchange", EXCHANGE, "market", EXCHANGE,
+            "symbol", SYMBOL, "pair", SYMBOL,
+            "price", PRICE,
+            "size", SIZE, "quantity", SIZE, "amount", SIZE);
+
+    @Value("${exsim.marketdata.import_chunk_size}")
+    int chunkSize;
+
+    private final ExchangeHubService exchangeHubService;
+
+    public TickImportService(ExchangeHubService exchangeHubService) {
+        super();
+        this.exchangeHubService = exchangeHubService;
+    }
+
+    /**
+     * Imports the CSV on a bounded elastic thread, writing {@code <exchange>.ticks} files into the directory.
+     * Ticks keep the order of the CSV, unless they are not sorted by time within an exchange.
+     */
+    public Mono<Result> importCsv(Path csv, Path outputDir) {
+        return Mono.fromCallable(() -> importFile(csv, outputDir)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    Result importFile(Path csv, Path outputDir) throws IOException {
+        long start = System.nanoTime();
+        final int[] roles;
+        final List<long[]> ranges;
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = channel.size();
+            String firstLine = firstLine(channel);
+            String names = firstLine.replace("\uFEFF", "").strip();
+            boolean header = !names.isEmpty() && !Character.isDigit(names.charAt(0));
+            roles = header ? roles(names) : new int[] {TIME, EXCHANGE, SYMBOL, PRICE, SIZE};
+            long dataStart = header ? Math.min(size, firstLine.getBytes(StandardCharsets.UTF_8).length + 1L) : 0L;
+            ranges = ranges(channel, dataStart, size, Math.max(1, chunkSize));
+        }
+        // one snapshot for every range, so the pair ids of all the ticks of an exchange index the same symbols
+        Map<String, PairIndex> pairIndexes = exchangeHubService.catalog().pairIndexes();
+        List<Chunk> chunks = IntStream.range(0, ranges.size()).parallel()
+                .mapToObj(index -> parse(csv, ranges.get(index), roles, pairIndexes))
+                .toList();
+
+        Map<String, List<Columns>> byExchange = new TreeMap<>();
+        long rows = 0;
+        long skipped = 0;
+        for (Chunk chunk : chunks) {
+            rows += chunk.rows;
+            skipped += chunk.skipped;
+            for (ChunkExchange exchange : chunk.exchanges) {
+                if (exchange.columns.size > 0) {
+                    byExchange.computeIfAbsent(exchange.name, name -> new ArrayList<>()).add(exchange.columns);
+                }
+            }
+        }
+        Files.createDirectories(outputDir);
+        Map<String, Integer> ticks = new TreeMap<>();
+        List<Path> files = byExchange.entrySet().parallelStream().map(entry -> {
+            Columns columns = Columns.concat(entry.getValue()).sortedByTime();
+            Path file = outputDir.resolve(entry.getKey() + TickFile.EXTENSION);
+            List<String> symbols = pairIndexes.get(entry.getKey()).pairs().stream().map(AssetPair::simpleName).toList();
+            try {
+                TickFile.write(file, entry.getKey(), symbols, columns.size, columns.times, columns.pairIds,
+                        columns.prices, columns.sizes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            synchronized (ticks) {
+                ticks.put(entry.getKey(), columns.size);
+            }
+            return file;
+        }).toList();
+        log.info("{} imported in {} ms: {} rows in {} chunks, {} skipped, {} tick files", csv,
+                (System.nanoTime() - start) / 1_000_000, rows, ranges.size(), skipped, files.size());
+        return new Result(rows, skipped, Collections.unmodifiableMap(ticks), files);
+    }
+
+    private static String firstLine(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        channel.read(buffer, 0L);
+        buffer.flip();
+        int end = 0;
+        while (end < buffer.limit() && buffer.get(end) != '\n') {
+            end++;
+        }
+        return new String(buffer.array(), 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static int[] roles(String header) {
+        String[] names = header.split(",");
+        int[] roles = new int[names.length];
+        BitSet found = new BitSet();
+        for (int i = 0; i < names.length; i++) {
+            roles[i] = COLUMNS.getOrDefault(names[i].strip().toLowerCase(), IGNORED);
+            if (roles[i] != IGNORED) {
+                found.set(roles[i]);
+            }
+        }
+        if (found.cardinality() != SIZE + 1) {
+            throw new IllegalArgumentException("Missing time, exchange, symbol, price or size column: " + header);
+        }
+        return roles;
+    }
+
+    /**
+     * Splits {@code [from, size)} in ranges of about {@code chunkSize} bytes, each ending after a line feed.
+     */
+    private static List<long[]> ranges(FileChannel channel, long from, long size, int chunkSize) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long start = from;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            while (end < size) {
+                buffer.clear();
+                int read = channel.read(buffer, end);
+                int newline = -1;
+                for (int i = 0; i < read && newline < 0; i++) {
+                    if (buffer.get(i) == '\n') {
+                        newline = i;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += Math.max(read, 0);
+                if (read <= 0) {
+                    end = size;
+                }
+            }
+            ranges.add(new long[] {start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    private static Chunk parse(Path csv, long[] range, int[] roles, Map<String, PairIndex> pairIndexes) {
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+            Chunk chunk = new Chunk(roles, pairIndexes);
+            chunk.parse(buffer);
+            return chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parser state of one byte range. Not thread safe.
+     */
+    private static final class Chunk {
+
+        private final int[] roles;
+        private final Map<String, PairIndex> pairIndexes;
+        private final List<ChunkExchange> exchanges = new ArrayList<>();
+        private final ByteTable exchangeSlots = new ByteTable();
+        private long rows;
+        private long skipped;
+
+        private long unscaled;
+        private int scale;
+
+        Chunk(int[] roles, Map<String, PairIndex> pairIndexes) {
+            this.roles = roles;
+            this.pairIndexes = pairIndexes;
+        }
+
+        void parse(MappedByteBuffer buffer) {
+            int limit = buffer.limit();
+            int position = 0;
+            while (position < limit) {
+                int end = position;
+                while (end < limit && buffer.get(end) != '\n') {
+                    end++;
+                }
+                int lineEnd = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+                if (lineEnd > position) {
+                    rows++;
+                    if (!parseLine(buffer, position, lineEnd)) {
+                        skipped++;
+                    }
+                }
+                position = end + 1;
+            }
+        }
+
+        private boolean parseLine(ByteBuffer buffer, int from, int to) {
+            long time = 0;
+            int exchangeFrom = -1, exchangeTo = -1, symbolFrom = -1, symbolTo = -1;
+            long price = 0, size = 0;
+            int priceScale = 0, sizeScale = 0;
+            int found = 0;
+            int column = 0;
+            int start = from;
+            while (start <= to && column < roles.length) {
+                int end = start;
+                while (end < to && buffer.get(end) != ',') {
+                    end++;
+                }
+                switch (roles[column]) {
+                    case TIME -> {
+                        if (!parseDecimal(buffer, start, end)) {
+                            return false;
+                        }
+                        time = scale == 0 ? unscaled : toMillis(unscaled, scale);
+                    }
+                    case EXCHANGE -> {
+                        exchangeFrom = start;
+                        exchangeTo = end;
+                    }
+                    case SYMBOL -> {
+                        symbolFrom = start;
+                        symbolTo = end;
+                    }
+                    case PRICE -> {
+                        if (!parseDecimal(buffer, start, end)) {
+                            return false;
+                        }
+                        price = unscaled;
+                        priceScale = scale;
+                    }
+                    case SIZE -> {
+                        if (!parseDecimal(buffer, start, end)) {
+                            return false;
+                        }
+                        size = unscaled;
+                        sizeScale = scale;
+                    }
+                    default -> {
+                        column++;
+                        start = end + 1;
+                        continue;
+                    }
+                }
+                found++;
+                column++;
+                start = end + 1;
+            }
+            if (found != SIZE + 1 || exchangeTo <= exchangeFrom || symbolTo <= symbolFrom) {
+                return false;
+            }
+            ChunkExchange exchange = exchange(buffer, exchangeFrom, exchangeTo);
+            if (exchange.pairIndex == null) {
+                return false;
+            }
+            int pairId = exchange.pairId(buffer, symbolFrom, symbolTo);
+            if (pairId == PairIndex.NO_PAIR) {
+                return false;
+            }
+            try {
+                exchange.columns.add(time, pairId,
+                        FixedPointUtil.toUnits(price, priceScale, exchange.priceScales[pairId]),
+                        FixedPointUtil.toUnits(size, sizeScale, exchange.quantityScales[pairId]));
+                return true;
+            } catch (ArithmeticException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Parses {@code [-]digits[.digits]} into {@link #unscaled} and {@link #scale}.
+         */
+        private boolean parseDecimal(ByteBuffer buffer, int from, int to) {
+            boolean negative = from < to && buffer.get(from) == '-';
+            int position = negative ? from + 1 : from;
+            long value = 0;
+            boolean any = false;
+            int digits = 0;
+            int fraction = -1;
+            for (; position < to; position++) {
+                byte b = buffer.get(position);
+                if (b >= '0' && b <= '9') {
+                    any = true;
+                    if (digits == FixedPointUtil.MAX_SCALE) {
+                        if (fraction < 0) {
+                            return false;
+                        }
+                        // digits beyond a long are dropped from the fraction
+                        continue;
+                    }
+                    value = value * 10 + (b - '0');
+                    if (value != 0) {
+                        digits++;
+                    }
+                    if (fraction >= 0) {
+                        fraction++;
+                    }
+                } else if (b == '.' && fraction < 0) {
+                    fraction = 0;
+                } else if (b != ' ') {
+                    return false;
+                }
+            }
+            unscaled = negative ? -value : value;
+            scale = Math.max(fraction, 0);
+            return any;
+        }
+
+        private static long toMillis(long unscaledSeconds, int scale) {
+            return scale <= 3 ? unscaledSeconds * pow10(3 - scale) : unscaledSeconds / pow10(scale - 3);
+        }
+
+        private static long pow10(int exponent) {
+            long value = 1;
+            for (int i = 0; i < exponent; i++) {
+                value *= 10;
+            }
+            return value;
+        }
+
+        private ChunkExchange exchange(ByteBuffer buffer, int from, int to) {
+            int slot = exchangeSlots.get(buffer, from, to);
+            if (slot < 0) {
+                String name = string(buffer, from, to).toLowerCase();
+                slot = exchanges.size();
+                exchanges.add(new ChunkExchange(name, pairIndexes.get(name)));
+                exchangeSlots.put(buffer, from, to, slot);
+            }
+            return exchanges.get(slot);
+        }
+    }
+
+    /**
+     * Ticks and symbol cache of one exchange in one chunk.
+     */
+    private static final class ChunkExchange {
+
+        private final String name;
+        private final PairIndex pairIndex;
+        private final int[] priceScales;
+        private final int[] quantityScales;
+        private final ByteTable symbols = new ByteTable();
+        private final Columns columns = new Columns(1024);
+
+        ChunkExchange(String name, PairIndex pairIndex) {
+            this.name = name;
+            this.pairIndex = pairIndex;
+            int size = pairIndex == null ? 0 : pairIndex.size();
+            this.priceScales = new int[size];
+            this.quantityScales = new int[size];
+            for (int pairId = 0; pairId < size; pairId++) {
+                AssetPair pair = pairIndex.pair(pairId);
+                priceScales[pairId] = pair.priceScale();
+                quantityScales[pairId] = pair.quantityScale();
+            }
+        }
+
+        int pairId(ByteBuffer buffer, int from, int to) {
+            int pairId = symbols.get(buffer, from, to);
+            if (pairId == ByteTable.MISSING) {
+                String symbol = string(buffer, from, to).toUpperCase()
+                        .replace('-', '/').replace('_', '/')
+                        .replace("/", AssetUtil.DEFAULT_SEPARATOR);
+                pairId = pairIndex.pairId(symbol);
+                symbols.put(buffer, from, to, pairId);
+            }
+            return pairId;
+        }
+    }
+
+    /**
+     * Open addressing map from byte ranges to ints. Keys are copied on insertion only, so lookups do not allocate.
+     */
+    private static final class ByteTable {
+
+        static final int MISSING = Integer.MIN_VALUE;
+
+        private byte[][] keys = new byte[16][];
+        private int[] values = new int[16];
+        private int size;
+
+        int get(ByteBuffer buffer, int from, int to) {
+            int mask = keys.length - 1;
+            for (int slot = hash(buffer, from, to) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                if (matches(keys[slot], buffer, from, to)) {
+                    return values[slot];
+                }
+            }
+            return MISSING;
+        }
+
+        void put(ByteBuffer buffer, int from, int to, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            byte[] key = new byte[to - from];
+            buffer.get(from, key);
+            insert(key, value);
+            size++;
+        }
+
+        private void insert(byte[] key, int value) {
+            int mask = keys.length - 1;
+            int slot = hash(ByteBuffer.wrap(key), 0, key.length) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new byte[oldKeys.length << 1][];
+            values = new int[oldKeys.length << 1];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(ByteBuffer buffer, int from, int to) {
+            int hash = 0x811C9DC5;
+            for (int i = from; i < to; i++) {
+                hash = (hash ^ buffer.get(i)) * 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer buffer, int from, int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Growable primitive tick columns.
+     */
+    private static final class Columns {
+
+        private long[] times;
+        private int[] pairIds;
+        private long[] prices;
+        private long[] sizes;
+        private int size;
+
+        Columns(int capacity) {
+            times = new long[capacity];
+            pairIds = new int[capacity];
+            prices = new long[capacity];
+            sizes = new long[capacity];
+        }
+
+        void add(long time, int pairId, long price, long quantity) {
+            if (size == times.length) {
+                int capacity = Math.multiplyExact(size, 2);
+                times = Arrays.copyOf(times, capacity);
+                pairIds = Arrays.copyOf(pairIds, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            times[size] = time;
+            pairIds[size] = pairId;
+            prices[size] = price;
+            sizes[size] = quantity;
+            size++;
+        }
+
+        static Columns concat(List<Columns> parts) {
+            if (parts.size() == 1) {
+                return parts.getFirst();
+            }
+            Columns all = new Columns(Math.max(1, parts.stream().mapToInt(part -> part.size).sum()));
+            for (Columns part : parts) {
+                System.arraycopy(part.times, 0, all.times, all.size, part.size);
+                System.arraycopy(part.pairIds, 0, all.pairIds, all.size, part.size);
+                System.arraycopy(part.prices, 0, all.prices, all.size, part.size);
+                System.arraycopy(part.sizes, 0, all.sizes, all.size, part.size);
+                all.size += part.size;
+            }
+            return all;
+        }
+
+        /**
+         * @return these columns if already sorted by time, else a stably sorted copy
+         */
+        Columns sortedByTime() {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) {
+                sorted = times[i - 1] <= times[i];
+            }
+            if (sorted) {
+                return this;
+            }
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            mergeSort(order, new int[size], 0, size);
+            Columns copy = new Columns(Math.max(1, size));
+            for (int i : order) {
+                copy.add(times[i], pairIds[i], prices[i], sizes[i]);
+            }
+            return copy;
+        }
+
+        private void mergeSort(int[] order, int[] buffer, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(order, buffer, from, middle);
+            mergeSort(order, buffer, middle, to);
+            System.arraycopy(order, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && times[buffer[left]] <= times[buffer[right]])) {
+                    order[i] = buffer[left++];
+                } else {
+                    order[i] = buffer[right++];
+                }
+            }
+        }
+    }
+
+    private static String string(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8).strip();
+    }
+}
@@ -14,16 +14,218 @@
 
 package com.fibonsai.exsim.services;
 
+import com.fibonsai.exsim.catalog.CatalogDiff;
+import com.fibonsai.exsim.catalog.CatalogSnapshot;
+import com.fibonsai.exsim.catalog.PairIndex;
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.matching.*;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+@Slf4j
 @Service
 public class TradeService extends AbstractService {
 
+    @Value("${exsim.matching.shards}")
+    int shards;
+
+    @Value("${exsim.matching.ring_size}")
+    int ringSize;
+
+    @Value("${exsim.matching.book_capacity}")
+    int bookCapacity;
+
+    /**
+     * Price levels pooled up front by every book, which grows its pool on demand.
+     */
+    @Value("${exsim.matching.book_level_capacity}")
+    int bookLevelCapacity;
+
+    private record BookKey(String exchange, AssetPair assetPair) {}
+    private final Map<BookKey, Integer> bookIds = new ConcurrentHashMap<>();
+    private final Map<String, int[]> booksByPairId = new ConcurrentHashMap<>();
+    private final AtomicLong orderIds = new AtomicLong();
+    private volatile MatchingEngine matchingEngine;
+    private volatile boolean stopped;
+    private List<Integer> removedBooks = List.of();
+    private volatile BiFunction<String, AssetPair, MatchListener> bookListeners = (exchange, pair) -> MatchListener.NOOP;
+
     public TradeService() {
         super();
     }
 
-    public void start() {
+    /**
+     * Sets the listener of the books registered from then on by {@link #start} and {@link #apply}.
+     */
+    public void bookListeners(BiFunction<String, AssetPair, MatchListener> bookListeners) {
+        this.bookListeners = bookListeners;
+    }
+
+    /**
+     * Registers the order book of every indexed pair.
+     *
+     * @return the order book id by pair id by exchange, see {@link CatalogSnapshot#bookIds()}
+     */
+    public Map<String, int[]> start(Map<String, PairIndex> pairIndexes) {
+        MatchingEngine engine = matchingEngine();
+        pairIndexes.forEach(this::indexBooks);
+        log.info("{} order books registered in {} matching shards", bookIds.size(), engine.shardCount());
+        return routing(pairIndexes);
+    }
+
+    /**
+     * Prepares a catalog reload: books are registered for listed pairs and the pair id routing of every changed
+     * exchange is rebuilt. Books of pairs still listed keep their id and their orders. The books of delisted pairs
+     * are kept until {@link #removeBooks}, so commands routed with the previous snapshot still reach them.
+     *
+     * @param pairIndexes pair indexes of the catalog the diff leads to
+     * @return the order book id by pair id of the pair indexes, see {@link CatalogSnapshot#bookIds()}
+     */
+    public Map<String, int[]> apply(CatalogDiff diff, Map<String, PairIndex> pairIndexes) {
+        matchingEngine();
+        for (String exchangeName : diff.changedExchanges()) {
+            PairIndex pairIndex = pairIndexes.get(exchangeName);
+            if (pairIndex == null) {
+                booksByPairId.remove(exchangeName);
+            } else {
+                indexBooks(exchangeName, pairIndex);
+            }
+        }
+        pairIndexes.forEach((exchangeName, pairIndex) -> {
+            if (!booksByPairId.containsKey(exchangeName)) {
+                indexBooks(exchangeName, pairIndex);
+            }
+        });
+        return routing(pairIndexes);
+    }
+
+    /**
+     * Removes the books of the pairs delisted by a catalog reload with their resting orders, once the snapshot
+     * routing to the remaining books is published. Later commands to them are rejected until the next reload,
+     * which releases them: by then the snapshots routing to them are two versions old, and their ids are reused.
+     */
+    public synchronized void removeBooks(CatalogDiff diff) {
+        MatchingEngine engine = matchingEngine();
+        removedBooks.forEach(engine::release);
+        List<Integer> removed = new ArrayList<>();
+        diff.removedPairs().forEach((exchangeName, pairs) -> pairs.forEach(pair -> {
+            Integer bookId = bookIds.remove(new BookKey(exchangeName, pair));
+            if (bookId != null) {
+                engine.remove(bookId);
+                removed.add(bookId);
+            }
+        }));
+        removedBooks = List.copyOf(removed);
+        log.info("Catalog version {} applied, {} order books registered", diff.toVersion(), bookIds.size());
+    }
+
+    private void indexBooks(String exchangeName, PairIndex pairIndex) {
+        int[] books = new int[pairIndex.size()];
+        BiFunction<String, AssetPair, MatchListener> listeners = bookListeners;
+        for (int pairId = 0; pairId < books.length; pairId++) {
+            AssetPair pair = pairIndex.pair(pairId);
+            books[pairId] = register(exchangeName, pair, listeners.apply(exchangeName, pair));
+        }
+        booksByPairId.put(exchangeName, books);
+    }
+
+    private Map<String, int[]> routing(Map<String, PairIndex> pairIndexes) {
+        Map<String, int[]> routing = new HashMap<>();
+        pairIndexes.keySet().forEach(exchangeName -> routing.put(exchangeName, booksByPairId.get(exchangeName)));
+        return routing;
+    }
+
+    /**
+     * Stops the matching engine and forgets its books. The book ids handed out before route to nothing afterward,
+     * so every later call that needs the engine is rejected.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        stopEngine();
+    }
+
+    private synchronized void stopEngine() {
+        if (matchingEngine != null) {
+            matchingEngine.stop();
+            matchingEngine = null;
+        }
+        removedBooks = List.of();
+        bookIds.clear();
+        booksByPairId.clear();
+    }
+
+    public long nextOrderId() {
+        return orderIds.incrementAndGet();
+    }
+
+    /**
+     * Creates the order book of the pair in the exchange if it does not exist yet.
+     * The listener is called from the matching shard thread owning the book.
+     *
+     * @return the book id
+     */
+    public int register(String exchange, AssetPair assetPair, MatchListener listener) {
+        return bookIds.computeIfAbsent(new BookKey(exchange, assetPair), key ->
+                matchingEngine().register(exchange, new OrderBook(assetPair, listener, bookCapacity, bookLevelCapacity)));
+    }
+
+    public Optional<Integer> bookId(String exchange, AssetPair assetPair) {
+        return Optional.ofNullable(bookIds.get(new BookKey(exchange, assetPair)));
+    }
+
+    /**
+     * Queues a limit order to the shard owning the book.
+     *
+     * @return false if the shard queue is full and the order was not accepted
+     */
+    public boolean submit(int bookId, long orderId, Side side, long priceTicks, long quantity, TimeInForce timeInForce) {
+        return matchingEngine().submit(bookId, orderId, side, priceTicks, quantity, timeInForce);
+    }
+
+    /**
+     * @return false if the shard queue is full and the cancel was not accepted
+     */
+    public boolean cancel(int bookId, long orderId) {
+        return matchingEngine().cancel(bookId, orderId);
+    }
+
+    /**
+     * Drops every book. Unlike {@link #stop}, the books registered afterward run in a new matching engine.
+     */
+    public synchronized void reset() {
+        log.warn("<<< Resetting trade service >>>");
+        stopEngine();
+        stopped = false;
+    }
 
+    private MatchingEngine matchingEngine() {
+        MatchingEngine engine = matchingEngine;
+        if (engine == null) {
+            synchronized (this) {
+                engine = matchingEngine;
+                if (engine == null) {
+                    if (stopped) {
+                        throw new IllegalStateException("Trade service is stopped");
+                    }
+                    int shardCount = shards > 0 ? shards : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+                    engine = new MatchingEngine(shardCount, ringSize);
+                    engine.start();
+                    matchingEngine = engine;
+                }
+            }
+        }
+        return engine;
     }
 }
@@ -14,38 +14,80 @@
 
 package com.fibonsai.exsim.services;
 
+import com.fibonsai.exsim.dto.BalanceMode;
 import com.fibonsai.exsim.dto.Event;
 import com.fibonsai.exsim.dto.Wallet;
+import com.fibonsai.exsim.dto.WalletBatchEvent;
+import com.fibonsai.exsim.dto.WalletEvent;
 import com.fibonsai.exsim.dto.WalletState;
 import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
 import com.fibonsai.exsim.types.FundsParams;
+import com.fibonsai.exsim.journal.EventJournal;
+import com.fibonsai.exsim.persistence.WalletLog;
+import com.fibonsai.exsim.types.WalletTransaction;
+import com.fibonsai.exsim.util.AssetIds;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
 
 import static com.fibonsai.exsim.dto.Event.EventType.ERROR;
 import static com.fibonsai.exsim.dto.Event.EventType.INFO;
 import static com.fibonsai.exsim.dto.Wallet.ADDRESS_DEFAULT;
 import static com.fibonsai.exsim.dto.WalletState.READ_ONLY;
-import static reactor.core.publisher.Sinks.EmitResult.FAIL_CANCELLED;
-import static reactor.core.publisher.Sinks.EmitResult.FAIL_NON_SERIALIZED;
 
 @Slf4j
 @Service
 public class WalletService extends AbstractService {
 
+    @Value("${exsim.wallet.balance_mode}")
+    BalanceMode balanceMode;
+
+    @Value("${exsim.wallet.events_retention}")
+    int eventsRetention;
+
+    @Value("${exsim.wallet.log_dir}")
+    String logDir;
+
+    @Value("${exsim.wallet.log_segment_size}")
+    int logSegmentSize;
+
+    @Value("${exsim.wallet.log_flush_interval_ms}")
+    long logFlushIntervalMs;
+
+    @Value("${exsim.wallet.snapshot_interval_s}")
+    long snapshotIntervalS;
+
     private final AssetService assetService;
 
     private record WalletKey(String owner, String address) {}
     private final Map<WalletKey, Wallet> wallets = new ConcurrentHashMap<>();
+    private record OwnerAssetKey(String owner, int assetId) {}
+    private final Map<OwnerAssetKey, List<Wallet>> walletsByAsset = new ConcurrentHashMap<>();
     private final Set<String> assetWithOneAddress = Collections.synchronizedSet(new HashSet<>());
-    private Sinks.Many<Event> events = Sinks.many().multicast().onBackpressureBuffer();
+    private volatile EventJournal<Event> events;
+    private final Map<WalletKey, Integer> walletLogIds = new ConcurrentHashMap<>();
+    @Nullable
+    private volatile WalletLog walletLog;
+    @Nullable
+    private Disposable snapshots;
 
 
     public WalletService(AssetService assetService) {
@@ -53,8 +95,127 @@ public class WalletService extends AbstractService {
         this.assetService = assetService;
     }
 
+    @PostConstruct
+    public void init() {
+        events = new EventJournal<>(eventsRetention);
+    }
+
+    /**
+     * Rebuilds the wallets from the latest snapshot and the write-ahead log in {@code exsim.wallet.log_dir},
+     * logs every change from then on and takes a snapshot every {@code exsim.wallet.snapshot_interval_s} seconds.
+     * Does nothing if no directory is configured. Requires the assets to be loaded.
+     */
+    public synchronized void start() {
+        if (walletLog != null || logDir == null || logDir.isBlank()) {
+            return;
+        }
+        Map<Integer, Wallet> recovered = new HashMap<>();
+        Map<Integer, Runnable> pendingUpdates = new HashMap<>();
+        try {
+            WalletLog opened = WalletLog.open(Path.of(logDir), logSegmentSize, logFlushIntervalMs, new WalletLog.Handler() {
+                @Override
+                public void created(int id, String owner, String assetSymbol, String address, BalanceMode mode) {
+                    AssetRef asset = assetService.ref(assetSymbol);
+                    if (asset == null) {
+                        log.warn("Wallet {} of {} not recovered: asset {} not found", address, owner, assetSymbol);
+                        return;
+                    }
+                    WalletKey key = new WalletKey(owner, address);
+                    Wallet wallet = new Wallet(owner, asset, address, mode, assetService::asset);
+                    if (register(key, wallet, false) != null) {
+                        // already loaded from the snapshot
+                        wallet = wallets.get(key);
+                    }
+                    recovered.put(id, wallet);
+                    walletLogIds.put(key, id);
+                    Runnable pending = pendingUpdates.remove(id);
+                    if (pending != null) {
+                        pending.run();
+                    }
+                }
+
+                @Override
+                public void updated(int id, WalletState state, BigDecimal amount, long version, long timestamp) {
+                    Wallet wallet = recovered.get(id);
+                    if (wallet != null) {
+                        wallet.restore(state, amount, version, timestamp);
+                    } else {
+                        // logged while the creation record was being written
+                        pendingUpdates.merge(id, () -> recovered.get(id).restore(state, amount, version, timestamp),
+                                (previous, next) -> () -> { previous.run(); next.run(); });
+                    }
+                }
+
+                @Override
+                public void assetsWithOneAddress(Set<String> assets) {
+                    assetWithOneAddress.clear();
+                    assetWithOneAddress.addAll(assets);
+                }
+            });
+            wallets.forEach((key, wallet) -> walletLogIds.computeIfAbsent(key, ignored -> {
+                int id = opened.nextId();
+                opened.created(id, wallet);
+                opened.updated(id, wallet);
+                return id;
+            }));
+            walletLog = opened;
+            log.info("Recovered {} wallets from {} log records", recovered.size(), opened.replayedRecords());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (snapshotIntervalS > 0) {
+            Duration interval = Duration.ofSeconds(snapshotIntervalS);
+            snapshots = Flux.interval(interval, interval, Schedulers.boundedElastic())
+                    .onBackpressureDrop()
+                    .subscribe(tick -> snapshot(), error -> log.error("Wallet snapshots stopped", error));
+        }
+    }
+
+    /**
+     * Writes a snapshot of every wallet and deletes the log records it covers, without pausing writers.
+     * Does nothing if the write-ahead log is disabled.
+     */
+    public synchronized void snapshot() {
+        WalletLog currentLog = walletLog;
+        if (currentLog == null) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long count = currentLog.snapshot(writer -> {
+                writer.assetsWithOneAddress(Set.copyOf(assetWithOneAddress));
+                walletLogIds.forEach((key, id) -> {
+                    Wallet wallet = wallets.get(key);
+                    if (wallet != null) {
+                        writer.wallet(id, wallet);
+                    }
+                });
+            });
+            log.info("Wallet snapshot: {} wallets in {} ms", count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            log.error("Wallet snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (snapshots != null) {
+            snapshots.dispose();
+            snapshots = null;
+        }
+        WalletLog current = walletLog;
+        if (current != null) {
+            if (snapshotIntervalS > 0) {
+                snapshot();
+            }
+            walletLog = null;
+            current.close();
+        }
+    }
+
     public Wallet nullWallet() {
-        return new Wallet("NULL_OWNER", assetService.defaultAsset(), UUID.randomUUID().toString()) {
+        return new Wallet("NULL_OWNER", assetRef(assetService.defaultAsset()), UUID.randomUUID().toString(),
+                BalanceMode.BIG_DECIMAL, assetService::asset) {
             public Wallet transaction(FundsParams params) {
                 return this;
             }
@@ -67,30 +228,83 @@ public class WalletService extends AbstractService {
     public void reset() {
         log.warn("<<< Resetting wallet service >>>");
         wallets.clear();
+        walletsByAsset.clear();
         assetWithOneAddress.clear();
-        events.tryEmitComplete();
-        events = Sinks.many().multicast().onBackpressureBuffer();
+        walletLogIds.clear();
+        synchronized (this) {
+            WalletLog currentLog = walletLog;
+            if (currentLog != null) {
+                try {
+                    currentLog.clear();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        EventJournal<Event> previous = events;
+        events = new EventJournal<>(eventsRetention, previous.lastSequence() + 1);
+        previous.close();
     }
 
     public void assetWithOneAddress(Set<String> assetWithOneAddress) {
         this.assetWithOneAddress.clear();
         this.assetWithOneAddress.addAll(Optional.ofNullable(assetWithOneAddress).orElse(Set.of()));
+        WalletLog currentLog = walletLog;
+        if (currentLog != null) {
+            currentLog.assetsWithOneAddress(Set.copyOf(this.assetWithOneAddress));
+        }
     }
 
+    /**
+     * Events still retained (since the last reset) followed by the new ones.
+     */
     public Flux<Event> events() {
-        return events.asFlux();
+        return Flux.defer(() -> events.replay());
+    }
+
+    /**
+     * Events starting at {@code fromSequence}, which must still be retained, followed by the new ones.
+     * Errors with {@link com.fibonsai.exsim.journal.JournalOverrunException} if the sequence is gone
+     * or the subscriber falls behind the retention.
+     */
+    public Flux<Event> events(long fromSequence) {
+        return Flux.defer(() -> events.replay(fromSequence));
+    }
+
+    /**
+     * @return the sequence of the last event sent
+     */
+    public long lastEventSequence() {
+        return events.lastSequence();
     }
 
-    private void send(Event event) {
-        Sinks.EmitResult result = events.tryEmitNext(event);
-        if (result.equals(FAIL_NON_SERIALIZED) || result.equals(FAIL_CANCELLED)) {
-            log.error("Problem to send event: {}", result);
+    /**
+     * Appends the event built for the journal sequence assigned to it.
+     *
+     * @return the event sequence
+     */
+    private long send(LongFunction<Event> event) {
+        try {
+            return events.append(event);
+        } catch (IllegalStateException e) {
+            log.error("Problem to send event: {}", e.getMessage());
+            return -1L;
         }
     }
 
+    /**
+     * Sends a {@link WalletEvent} snapshot of the wallet. The sequence number is used as trace id.
+     *
+     * @return the event sequence
+     */
+    private long send(Event.EventType type, Wallet wallet, @Nullable Throwable error) {
+        return send(sequence -> new Event(type, WalletEvent.of(sequence, wallet), Long.toString(sequence), error));
+    }
+
     public Mono<Wallet> setState(Wallet wallet, WalletState state) {
         wallet.setState(state);
-        send(new Event(INFO, wallet.toString()));
+        logUpdated(wallet);
+        send(INFO, wallet, null);
         return Mono.just(wallet);
     }
 
@@ -108,48 +322,128 @@ public class WalletService extends AbstractService {
 
     public Mono<Wallet> createWallet(String owner, Asset asset, String walletAddress) {
         WalletKey key = new WalletKey(owner, walletAddress);
-        if (wallets.containsKey(key)) {
-            var error = new IllegalArgumentException("Wallet %s already exists".formatted(key));
-            send(new Event(ERROR, error.getMessage(), null, error));
-            return Mono.error(error);
-        }
-        Optional<Wallet> walletFromRepository = getWallet(owner, asset).blockOptional();
-        if (walletFromRepository.isPresent() &&
-                assetWithOneAddress.contains(walletFromRepository.get().asset().symbol())) {
-            var error = new IllegalArgumentException(
-                    "Multiple wallets addresses not allowed using %s asset".formatted(asset.symbol()));
-            send(new Event(ERROR, error.getMessage(), null, error));
-            return Mono.error(error);
-        }
-        Wallet wallet = new Wallet(owner, asset, walletAddress);
-        wallets.putIfAbsent(key, wallet);
+        Wallet wallet = new Wallet(owner, assetRef(asset), walletAddress, balanceMode, assetService::asset);
+        WalletLog currentLog = walletLog;
+        int id = -1;
+        IllegalArgumentException error = null;
+        if (currentLog != null) {
+            try {
+                WalletLog.checkLoggable(wallet);
+            } catch (IllegalArgumentException e) {
+                error = e;
+            }
+        }
+        if (currentLog != null && error == null) {
+            // reserved before the wallet is reachable, so no update of it misses the log; an update logged before
+            // the creation record is applied once the record is replayed
+            id = currentLog.nextId();
+            if (walletLogIds.putIfAbsent(key, id) != null) {
+                id = -1;
+                error = new IllegalArgumentException("Wallet %s already exists".formatted(key));
+            }
+        }
+        if (error == null) {
+            error = register(key, wallet, true);
+        }
+        if (error != null) {
+            if (id >= 0) {
+                walletLogIds.remove(key, id);
+            }
+            IllegalArgumentException failure = error;
+            send(sequence -> new Event(ERROR, failure.getMessage(), Long.toString(sequence), failure));
+            return Mono.error(failure);
+        }
+        if (currentLog != null) {
+            currentLog.created(id, wallet);
+        }
         log.info("Created {} wallet to account {} with id {}", asset.symbol(), owner, walletAddress);
-        send(new Event(INFO, wallet.toString()));
+        send(INFO, wallet, null);
         return Mono.just(wallet);
     }
 
+    /**
+     * @return the registered view of the asset, so wallets do not hold the full asset
+     */
+    private AssetRef assetRef(Asset asset) {
+        AssetRef ref = assetService.ref(asset.symbol());
+        return ref != null ? ref : AssetRef.of(asset);
+    }
+
+    /**
+     * Adds the wallet to the indexes unless it already exists or, if {@code oneAddressCheck} is set,
+     * the asset allows a single address.
+     *
+     * @return the reason the wallet was not added, or null
+     */
+    @Nullable
+    private IllegalArgumentException register(WalletKey key, Wallet wallet, boolean oneAddressCheck) {
+        final IllegalArgumentException[] error = new IllegalArgumentException[1];
+        String assetSymbol = wallet.assetRef().symbol();
+        walletsByAsset.compute(new OwnerAssetKey(key.owner(), wallet.assetId()), (ownerAssetKey, ownerWallets) -> {
+            if (wallets.containsKey(key)) {
+                error[0] = new IllegalArgumentException("Wallet %s already exists".formatted(key));
+                return ownerWallets;
+            }
+            if (oneAddressCheck && ownerWallets != null && assetWithOneAddress.contains(assetSymbol)) {
+                error[0] = new IllegalArgumentException(
+                        "Multiple wallets addresses not allowed using %s asset".formatted(assetSymbol));
+                return ownerWallets;
+            }
+            // the bin lock only covers the owner and asset, wallets of other assets may race for the same key
+            if (wallets.putIfAbsent(key, wallet) != null) {
+                error[0] = new IllegalArgumentException("Wallet %s already exists".formatted(key));
+                return ownerWallets;
+            }
+            if (ownerWallets == null) {
+                return List.of(wallet);
+            }
+            List<Wallet> updated = new ArrayList<>(ownerWallets);
+            updated.add(wallet);
+            return List.copyOf(updated);
+        });
+        return error[0];
+    }
+
+    /**
+     * Logs the balance of the wallet if the write-ahead log is enabled.
+     */
+    private void logUpdated(Wallet wallet) {
+        WalletLog currentLog = walletLog;
+        if (currentLog == null) {
+            return;
+        }
+        Integer id = walletLogIds.get(new WalletKey(wallet.owner(), wallet.address()));
+        if (id != null) {
+            currentLog.updated(id, wallet);
+        }
+    }
+
     public Mono<Wallet> getDefaultWallet(String owner) {
         return getWallet(owner, assetService.defaultAsset());
     }
 
     public Mono<Wallet> getWallet(String owner, Asset asset) {
+        return getWallet(owner, AssetIds.find(asset.symbol()));
+    }
+
+    /**
+     * @param assetId {@link AssetIds} id of the asset
+     */
+    public Mono<Wallet> getWallet(String owner, int assetId) {
         return Mono.fromCallable(() -> {
-                var locatedWallets = wallets.values().stream()
-                        .filter(wallet -> wallet.asset().equals(asset))
-                        .filter(wallet -> wallet.owner().equals(owner))
-                        .collect(Collectors.toSet());
-                if (locatedWallets.isEmpty()) {
-                    return nullWallet();
+                List<Wallet> locatedWallets = walletsByAsset.get(new OwnerAssetKey(owner, assetId));
+                if (locatedWallets == null) {
+                    return null;
                 }
                 if (locatedWallets.size() > 1) {
+                    String asset = AssetIds.symbol(assetId);
                     throw new IllegalArgumentException(
                             "Cannot return a single %s wallet when multiple wallets have the same %s asset."
                             .formatted(asset, asset));
                 }
-                return locatedWallets.iterator().next();
+                return locatedWallets.getFirst();
             })
-            .doOnError(error -> log.error(error.getMessage(), error))
-            .filter(wallet -> !wallet.equals(nullWallet()));
+            .doOnError(error -> log.error(error.getMessage(), error));
     }
 
     public Mono<Wallet> getWallet(String owner, String walletAddress) {
@@ -160,31 +454,87 @@ public class WalletService extends AbstractService {
         })).filter(wallet -> wallet.owner().equals(owner));
     }
 
-    private Mono<Wallet> getWallet(String owner, Object walletId, String traceid) {
+    private Mono<Wallet> getWallet(String owner, Object walletId) {
         return switch (walletId) {
             case String walletAddress -> getWallet(owner, walletAddress);
             case Asset asset -> getWallet(owner, asset);
             default -> {
-                log.error("{}: Unexpected value: {}", traceid, walletId);
+                log.error("Unexpected value: {}", walletId);
                 yield Mono.just(nullWallet());
             }
         };
     }
 
+    /**
+     * Applies the transactions grouped by wallet: each wallet is resolved once and its transactions are applied
+     * in arrival order. A single event summarizing the batch is sent when the batch completes.
+     *
+     * @return the wallets touched by the batch
+     */
+    public Flux<Wallet> transactionBatch(Flux<WalletTransaction> transactions) {
+        return transactions
+            .collect(LinkedHashMap<WalletGroupKey, List<FundsParams>>::new, (groups, transaction) ->
+                groups.computeIfAbsent(new WalletGroupKey(transaction.owner(), transaction.walletId()),
+                        key -> new ArrayList<>()).add(transaction.params()))
+            .flatMapMany(groups -> {
+                List<Wallet> touched = new ArrayList<>(groups.size());
+                int applied = 0;
+                int failed = 0;
+                for (var group : groups.entrySet()) {
+                    Wallet wallet = lookupWallet(group.getKey().owner(), group.getKey().walletId());
+                    if (wallet == null) {
+                        failed += group.getValue().size();
+                        continue;
+                    }
+                    for (FundsParams params : group.getValue()) {
+                        try {
+                            wallet.transaction(params);
+                            applied++;
+                        } catch (Exception e) {
+                            failed++;
+                            log.debug("Batch transaction error: wallet ({}) owned by {}: {}",
+                                    wallet.address(), wallet.owner(), e.getMessage());
+                        }
+                    }
+                    touched.add(wallet);
+                    logUpdated(wallet);
+                }
+                int wallets = touched.size();
+                int appliedCount = applied;
+                int failedCount = failed;
+                long sequence = send(seq -> new Event(failedCount == 0 ? INFO : ERROR,
+                        new WalletBatchEvent(seq, wallets, appliedCount, failedCount), Long.toString(seq)));
+                log.info("{}: Transaction batch: {} wallets, {} applied, {} failed", sequence, wallets, applied, failed);
+                return Flux.fromIterable(touched);
+            });
+    }
+
+    private record WalletGroupKey(String owner, Object walletId) {}
+
+    private Wallet lookupWallet(String owner, Object walletId) {
+        return switch (walletId) {
+            case String walletAddress -> wallets.get(new WalletKey(owner, walletAddress));
+            case Asset asset -> {
+                List<Wallet> locatedWallets =
+                        walletsByAsset.get(new OwnerAssetKey(owner, AssetIds.find(asset.symbol())));
+                yield locatedWallets != null && locatedWallets.size() == 1 ? locatedWallets.getFirst() : null;
+            }
+            default -> null;
+        };
+    }
+
     @SuppressWarnings("unused")
     public Mono<Wallet> transaction(String owner, Object walletId, FundsParams params) {
-        final String traceId = UUID.randomUUID().toString();
-        var monoWallet = getWallet(owner, walletId, traceId);
-        return monoWallet.flatMap(wallet -> {
+        return getWallet(owner, walletId).flatMap(wallet -> {
             try {
                 wallet.transaction(params);
-                log.info("{}: Transaction successful: wallet ({}) owned by {}", traceId, wallet.address(), owner);
-                send(new Event(INFO, wallet.toString()));
+                logUpdated(wallet);
+                long sequence = send(INFO, wallet, null);
+                log.debug("{}: Transaction successful: wallet ({}) owned by {}", sequence, wallet.address(), owner);
                 return Mono.just(wallet);
             } catch (Throwable e) {
-                String errorMessage = "%s: Transaction error: wallet (%s) owned by %s".formatted(traceId, wallet.address(), owner);
-                log.warn(errorMessage);
-                send(new Event(ERROR, wallet.toString()));
+                long sequence = send(ERROR, wallet, e);
+                log.warn("{}: Transaction error: wallet ({}) owned by {}", sequence, wallet.address(), owner);
                 return Mono.error(e);
             }
         });
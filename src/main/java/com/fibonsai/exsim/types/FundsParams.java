@@ -15,14 +15,23 @@
 package com.fibonsai.exsim.types;
 
 import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.util.AssetIds;
 import com.fibonsai.exsim.util.AssetUtil;
 
 import java.math.BigDecimal;
-import java.util.Currency;
 
 public interface FundsParams {
     default Asset getAsset() {
-        return AssetUtil.fromCurrency(Currency.getInstance("USD"));
+        return AssetUtil.DEFAULT_QUOTE;
+    }
+
+    /**
+     * {@link AssetIds} id of the asset, compared on the wallet transaction path. Looked up without allocating,
+     * {@link AssetIds#NO_ID} if the symbol was never interned.
+     */
+    default int getAssetId() {
+        Asset asset = getAsset();
+        return asset == null ? AssetIds.NO_ID : AssetIds.find(asset.symbol());
     }
 
     default BigDecimal getAmount() {
@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2025 fibonsai.com
+ * All rights reserved.
+ *
+ * This source is subject to the Apache License, Version 2.0.
+ * Please see the LICENSE file for more information.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.fibonsai.exsim.types;
+
+/**
+ * A transaction of a batch.
+ *
+ * @param walletId wallet address (String) or {@link com.fibonsai.exsim.dto.asset.Asset}
+ */
+public record WalletTransaction(String owner, Object walletId, FundsParams params) {
+}
@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.util;
+
+import com.fibonsai.exsim.dto.asset.Asset;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns asset symbols into dense int ids, assigned from 0 in first use order, so hot paths can hash and compare
+ * assets as ints. An id only stands for its symbol: it carries no metadata, so it never goes stale and stays valid
+ * across catalog reloads and {@link AssetRegistry} instances. Ids are not stable across runs and must not be
+ * persisted.
+ */
+public final class AssetIds {
+
+    public static final int NO_ID = -1;
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] symbols = new String[256];
+    private static int size;
+
+    private AssetIds() {
+    }
+
+    /**
+     * @return the id of the symbol, assigning the next id if it is new, or {@link #NO_ID} for a null symbol
+     */
+    public static int idOf(String symbol) {
+        if (symbol == null) {
+            return NO_ID;
+        }
+        Integer id = IDS.get(symbol);
+        return id != null ? id : intern(symbol);
+    }
+
+    public static int idOf(Asset asset) {
+        return asset == null ? NO_ID : idOf(asset.symbol());
+    }
+
+    /**
+     * @return the id of the symbol, or {@link #NO_ID} if it was never interned
+     */
+    public static int find(String symbol) {
+        return symbol == null ? NO_ID : IDS.getOrDefault(symbol, NO_ID);
+    }
+
+    /**
+     * @return the symbol of the id, or null
+     */
+    public static String symbol(int id) {
+        String[] current = symbols;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public static int size() {
+        return IDS.size();
+    }
+
+    private static synchronized int intern(String symbol) {
+        Integer id = IDS.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+        }
+        symbols[size] = symbol;
+        // published after the slot, a reader that finds the id also sees its symbol
+        IDS.put(symbol, size);
+        return size++;
+    }
+}
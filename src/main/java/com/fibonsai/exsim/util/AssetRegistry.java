@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.util;
+
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
+import com.fibonsai.exsim.dto.asset.AssetType;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Metadata of the registered assets by {@link AssetIds} id: the {@link AssetRef} of every asset and the full
+ * {@link Asset} of those kept resident, in arrays looked up in constant time. Owned by the
+ * {@link com.fibonsai.exsim.services.AssetService}, which registers the loaded assets again on reload: the latest
+ * registration of a symbol replaces the previous one, and {@link #clear()} forgets every asset.
+ */
+@Component
+public class AssetRegistry {
+
+    private volatile AtomicReferenceArray<Asset> assets = new AtomicReferenceArray<>(256);
+    private volatile AtomicReferenceArray<AssetRef> refs = new AtomicReferenceArray<>(256);
+    private volatile Function<String, Asset> hydrator;
+
+    /**
+     * Registers the asset, replacing the asset and the {@link AssetRef} previously registered for its symbol.
+     *
+     * @return the id of the asset
+     */
+    public synchronized int register(Asset asset) {
+        return register(asset.symbol(), asset.assetDecimalPoints(), asset.assetType(), asset);
+    }
+
+    /**
+     * Registers the symbol without keeping a full asset, replacing what was registered for it:
+     * {@link #asset(int)} resolves it through the {@link #hydrator(Function) hydrator}.
+     *
+     * @return the id of the symbol
+     */
+    public synchronized int register(String symbol, BigDecimal decimalPoints, AssetType type) {
+        return register(symbol, decimalPoints, type, null);
+    }
+
+    /**
+     * Each slot is overwritten in a single store, so a concurrent lookup sees the previous or the new registration,
+     * never an empty slot.
+     */
+    private int register(String symbol, BigDecimal decimalPoints, AssetType type, @Nullable Asset asset) {
+        int id = AssetIds.idOf(symbol);
+        if (id == AssetIds.NO_ID) {
+            return id;
+        }
+        ensureCapacity(id);
+        refs.set(id, AssetRef.of(symbol, decimalPoints, type));
+        assets.set(id, asset);
+        return id;
+    }
+
+    /**
+     * Forgets every registered asset.
+     */
+    public synchronized void clear() {
+        assets = new AtomicReferenceArray<>(assets.length());
+        refs = new AtomicReferenceArray<>(refs.length());
+    }
+
+    /**
+     * Sets the function resolving the symbols registered without a full asset.
+     */
+    public void hydrator(Function<String, Asset> hydrator) {
+        this.hydrator = hydrator;
+    }
+
+    /**
+     * @return the view of the asset registered for the id, or null
+     */
+    public AssetRef ref(int id) {
+        AtomicReferenceArray<AssetRef> current = refs;
+        return id >= 0 && id < current.length() ? current.get(id) : null;
+    }
+
+    /**
+     * @return the view of the asset registered for the symbol, or null
+     */
+    public AssetRef ref(String symbol) {
+        return ref(AssetIds.find(symbol));
+    }
+
+    /**
+     * @return the asset registered for the id, hydrated if it was registered without one, or null
+     */
+    public Asset asset(int id) {
+        AssetRef ref = ref(id);
+        if (ref == null) {
+            return null;
+        }
+        AtomicReferenceArray<Asset> current = assets;
+        Asset asset = id < current.length() ? current.get(id) : null;
+        Function<String, Asset> currentHydrator = hydrator;
+        return asset != null || currentHydrator == null ? asset : currentHydrator.apply(ref.symbol());
+    }
+
+    private void ensureCapacity(int id) {
+        int length = refs.length();
+        if (id < length) {
+            return;
+        }
+        int grownLength = Math.max(length * 2, id + 1);
+        AtomicReferenceArray<Asset> grown = new AtomicReferenceArray<>(grownLength);
+        AtomicReferenceArray<AssetRef> grownRefs = new AtomicReferenceArray<>(grownLength);
+        for (int i = 0; i < length; i++) {
+            grown.set(i, assets.get(i));
+            grownRefs.set(i, refs.get(i));
+        }
+        assets = grown;
+        refs = grownRefs;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between {@link BigDecimal} values and scaled {@code long} units
+ * (e.g. price ticks or the smallest unit of an asset).
+ */
+public class FixedPointUtil {
+
+    public static final int MAX_SCALE = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    /**
+     * Converts a decimal value into units of {@code 10^-scale}.
+     *
+     * @throws ArithmeticException if the value has more fractional digits than {@code scale}
+     *                             or does not fit into a {@code long}
+     */
+    public static long toUnits(BigDecimal value, int scale) {
+        checkScale(scale);
+        int valueScale = value.scale();
+        if (valueScale >= 0 && valueScale <= scale && value.precision() <= MAX_SCALE) {
+            long unscaled = value.unscaledValue().longValue();
+            try {
+                return Math.multiplyExact(unscaled, POWERS_OF_TEN[scale - valueScale]);
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("Overflow: %s does not fit in %d decimal places units".formatted(value, scale));
+            }
+        }
+        final BigDecimal scaled;
+        try {
+            scaled = value.setScale(scale, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Scale mismatch: %s has more than %d decimal places".formatted(value, scale));
+        }
+        try {
+            return scaled.unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Overflow: %s does not fit in %d decimal places units".formatted(value, scale));
+        }
+    }
+
+    /**
+     * Converts {@code unscaled * 10^-valueScale} into units of {@code 10^-scale} without going through
+     * {@link BigDecimal}, for parsers reading the digits themselves. Trailing zeros beyond {@code scale} are dropped.
+     *
+     * @throws ArithmeticException if the value has more significant fractional digits than {@code scale}
+     *                             or does not fit into a {@code long}
+     */
+    public static long toUnits(long unscaled, int valueScale, int scale) {
+        checkScale(scale);
+        while (valueScale > scale && unscaled % 10 == 0) {
+            unscaled /= 10;
+            valueScale--;
+        }
+        if (valueScale > scale || valueScale < 0) {
+            throw new ArithmeticException("Scale mismatch: %d decimal places for %d".formatted(valueScale, scale));
+        }
+        return Math.multiplyExact(unscaled, POWERS_OF_TEN[scale - valueScale]);
+    }
+
+    public static BigDecimal fromUnits(long units, int scale) {
+        checkScale(scale);
+        return BigDecimal.valueOf(units, scale);
+    }
+
+    /**
+     * Converts a scale spec (as stored in asset and pair specs) into an int.
+     */
+    public static int scaleOf(BigDecimal scale, int defaultScale) {
+        if (scale == null || scale.signum() < 0) {
+            return defaultScale;
+        }
+        int value = scale.intValue();
+        checkScale(value);
+        return value;
+    }
+
+    /**
+     * Checks a scale, negative values meaning not defined.
+     */
+    public static int scaleOf(int scale, int defaultScale) {
+        if (scale < 0) {
+            return defaultScale;
+        }
+        checkScale(scale);
+        return scale;
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Unsupported scale %d (0..%d)".formatted(scale, MAX_SCALE));
+        }
+    }
+}
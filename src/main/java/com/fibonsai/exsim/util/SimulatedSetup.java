@@ -19,10 +19,12 @@ import com.fibonsai.exsim.services.AccountService;
 import com.fibonsai.exsim.services.ExchangeHubService;
 import com.fibonsai.exsim.services.WalletService;
 import com.fibonsai.exsim.types.DepositFundsParams;
+import com.fibonsai.exsim.types.WalletTransaction;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
 
@@ -30,6 +32,8 @@ import java.math.BigDecimal;
 @Component
 public class SimulatedSetup implements ApplicationListener<ApplicationReadyEvent> {
 
+    private static final int SIMULATED_ACCOUNTS = 10;
+
     private final ExchangeHubService exchangeHubService;
     private final AccountService accountService;
     private final WalletService walletService;
@@ -48,18 +52,17 @@ public class SimulatedSetup implements ApplicationListener<ApplicationReadyEvent
         walletService.events().subscribe(event -> log.info(event.toString()));
         exchangeHubService.start().subscribe(instant -> {
             log.info("setup executed {}", instant);
-            for (int i = 0; i < 10; i++) {
-                var account = "account" + i;
-                accountService.addAccount(account).subscribe(acc -> {
-                    walletService.getDefaultWallet(acc).flatMap(wallet ->
-                        walletService.setState(wallet, WalletState.ONLINE)
-                    ).subscribe(wallet -> {
-                        walletService.transaction(acc, wallet.address(), new DepositFundsParams() {
-                            public BigDecimal getAmount() { return BigDecimal.TEN; }
-                        }).subscribe();
-                    });
-                });
-            }
+            Flux.range(0, SIMULATED_ACCOUNTS)
+                .map(i -> "account" + i)
+                .flatMap(accountService::addAccount)
+                .flatMap(walletService::getDefaultWallet)
+                .flatMap(wallet -> walletService.setState(wallet, WalletState.ONLINE))
+                .map(wallet -> new WalletTransaction(wallet.owner(), wallet.address(), new DepositFundsParams() {
+                    public BigDecimal getAmount() { return BigDecimal.TEN; }
+                }))
+                .as(walletService::transactionBatch)
+                .count()
+                .subscribe(count -> log.info("{} simulated wallets funded", count));
         });
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2025 fibonsai.com
+ * All rights reserved.
+ *
+ * This source is subject to the Apache License, Version 2.0.
+ * Please see the LICENSE file for more information.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.fibonsai.exsim.benchmark;
+
+import com.fibonsai.exsim.dto.BalanceMode;
+import com.fibonsai.exsim.dto.Wallet;
+import com.fibonsai.exsim.dto.WalletState;
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.types.DepositFundsParams;
+import com.fibonsai.exsim.types.WithdrawFundsParams;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deposit and withdraw round trip for each {@link BalanceMode}.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.fibonsai.exsim.benchmark.WalletBalanceBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalletBalanceBenchmark {
+
+    private static final Asset USD = AssetUtil.fromCurrency(Currency.getInstance("USD"));
+
+    @Param({"BIG_DECIMAL", "FIXED_POINT"})
+    BalanceMode balanceMode;
+
+    private Wallet wallet;
+
+    private final DepositFundsParams deposit = new DepositFundsParams() {
+        private final BigDecimal amount = new BigDecimal("12.34");
+        public BigDecimal getAmount() { return amount; }
+        public Asset getAsset() { return USD; }
+    };
+
+    private final WithdrawFundsParams withdraw = new WithdrawFundsParams() {
+        private final BigDecimal amount = new BigDecimal("12.34");
+        public BigDecimal getAmount() { return amount; }
+        public Asset getAsset() { return USD; }
+    };
+
+    @Setup
+    public void setUp() {
+        wallet = new Wallet("benchmark", USD, Wallet.ADDRESS_DEFAULT, balanceMode);
+        wallet.setState(WalletState.ONLINE);
+    }
+
+    @Benchmark
+    public Wallet depositAndWithdraw() throws Exception {
+        wallet.transaction(deposit);
+        return wallet.transaction(withdraw);
+    }
+
+    @Benchmark
+    public BigDecimal depositAndReadAmount() throws Exception {
+        wallet.transaction(deposit);
+        return wallet.amount();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WalletBalanceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.benchmark;
+
+import com.fibonsai.exsim.dto.BalanceMode;
+import com.fibonsai.exsim.dto.Wallet;
+import com.fibonsai.exsim.dto.WalletState;
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.persistence.WalletLog;
+import com.fibonsai.exsim.types.DepositFundsParams;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Deposit with and without logging the resulting balance to a {@link WalletLog}.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.fibonsai.exsim.benchmark.WalletLogBenchmark}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalletLogBenchmark {
+
+    private static final Asset USD = AssetUtil.fromCurrency(Currency.getInstance("USD"));
+
+    @Param({"BIG_DECIMAL", "FIXED_POINT"})
+    BalanceMode balanceMode;
+
+    private Path dir;
+    private WalletLog walletLog;
+    private Wallet wallet;
+    private int walletId;
+
+    private final DepositFundsParams deposit = new DepositFundsParams() {
+        private final BigDecimal amount = new BigDecimal("0.01");
+        public BigDecimal getAmount() { return amount; }
+        public Asset getAsset() { return USD; }
+    };
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("wallet-log-benchmark");
+        walletLog = WalletLog.open(dir, 256 * 1024 * 1024, 10L, new WalletLog.Handler() {
+            public void created(int id, String owner, String assetSymbol, String address, BalanceMode mode) {}
+            public void updated(int id, WalletState state, BigDecimal amount, long version, long timestamp) {}
+            public void assetsWithOneAddress(Set<String> assets) {}
+        });
+        wallet = new Wallet("benchmark", USD, Wallet.ADDRESS_DEFAULT, balanceMode);
+        wallet.setState(WalletState.ONLINE);
+        walletId = walletLog.nextId();
+        walletLog.created(walletId, wallet);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        walletLog.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Wallet deposit() throws Exception {
+        return wallet.transaction(deposit);
+    }
+
+    @Benchmark
+    public Wallet depositAndLog() throws Exception {
+        wallet.transaction(deposit);
+        walletLog.updated(walletId, wallet);
+        return wallet;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WalletLogBenchmark.class.getSimpleName()).build()).run();
+    }
+}
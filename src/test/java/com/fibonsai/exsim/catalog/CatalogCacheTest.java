@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
+import com.fibonsai.exsim.dto.exchange.Exchange;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final Asset usd = AssetUtil.fromCurrency(Currency.getInstance("USD"));
+    private final Asset eur = AssetUtil.fromCurrency(Currency.getInstance("EUR"));
+
+    private CatalogCache.Catalog catalog() {
+        Exchange exchange = Exchange.builder().id(1L).name("Test").internalName("Test").sortOrder(1)
+                .gradePoints(new BigDecimal("12.5")).build();
+        exchange.assetPairs().add(AssetPair.builder().baseAsset(eur).quoteAsset(usd).build());
+        return new CatalogCache.Catalog(List.of(usd, eur), List.of(exchange));
+    }
+
+    private static byte[] key(String value) {
+        byte[] key = new byte[32];
+        key[0] = (byte) value.hashCode();
+        return key;
+    }
+
+    @Test
+    void store_thenLoadSameCatalog() throws IOException {
+        CatalogCache cache = new CatalogCache(dir);
+        cache.store(key("a"), catalog());
+
+        CatalogCache.Catalog loaded = cache.load(key("a")).orElseThrow();
+
+        assertEquals(List.of(usd, eur), loaded.assets());
+        Exchange exchange = loaded.exchanges().getFirst();
+        assertEquals("Test", exchange.internalName());
+        assertEquals(new BigDecimal("12.5"), exchange.gradePoints());
+        AssetPair pair = exchange.assetPairs().iterator().next();
+        assertEquals("EUR", pair.baseAsset().symbol());
+        assertEquals(AssetRef.of(loaded.assets().get(0)), pair.quoteAsset());
+    }
+
+    @Test
+    void load_emptyForOtherKey() throws IOException {
+        CatalogCache cache = new CatalogCache(dir);
+        cache.store(key("a"), catalog());
+
+        assertTrue(cache.load(key("b")).isEmpty());
+    }
+
+    @Test
+    void store_replacesCachesOfOtherKeys() throws IOException {
+        CatalogCache cache = new CatalogCache(dir);
+        cache.store(key("a"), catalog());
+        cache.store(key("b"), catalog());
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+        assertTrue(cache.load(key("a")).isEmpty());
+        assertTrue(cache.load(key("b")).isPresent());
+    }
+
+    @Test
+    void load_emptyWhenDamaged() throws IOException {
+        CatalogCache cache = new CatalogCache(dir);
+        cache.store(key("a"), catalog());
+        Path file;
+        try (Stream<Path> files = Files.list(dir)) {
+            file = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+        assertTrue(cache.load(key("a")).isEmpty());
+    }
+
+    @Test
+    void load_emptyWhenPayloadCorrupted() throws IOException {
+        CatalogCache cache = new CatalogCache(dir);
+        cache.store(key("a"), catalog());
+        Path file;
+        try (Stream<Path> files = Files.list(dir)) {
+            file = files.findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Arrays.fill(bytes, 44, bytes.length, (byte) 0x7F);
+        Files.write(file, bytes);
+
+        assertTrue(cache.load(key("a")).isEmpty());
+    }
+
+    @Test
+    void key_dependsOnResourceContent() {
+        ClassLoader classLoader = getClass().getClassLoader();
+        byte[] exchanges = CatalogCache.key(classLoader, "exchanges.json");
+
+        assertArrayEquals(exchanges, CatalogCache.key(classLoader, "exchanges.json"));
+        assertFalse(Arrays.equals(exchanges, CatalogCache.key(classLoader, "pairs_by_exchange.json")));
+        assertFalse(Arrays.equals(CatalogCache.key(classLoader, "missing.json"),
+                CatalogCache.key(classLoader, "exchanges.json")));
+    }
+}
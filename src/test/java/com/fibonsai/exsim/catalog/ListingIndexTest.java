@@ -0,0 +1,76 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.util.AssetIds;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListingIndexTest {
+
+    private final Asset usd = AssetUtil.fromCurrency(Currency.getInstance("USD"));
+    private final Asset eur = AssetUtil.fromCurrency(Currency.getInstance("EUR"));
+    private final Asset gbp = AssetUtil.fromCurrency(Currency.getInstance("GBP"));
+    private final Asset jpy = AssetUtil.fromCurrency(Currency.getInstance("JPY"));
+
+    @Test
+    void of_indexesPairsAndAssets() {
+        ListingIndex index = ListingIndex.of(Map.of(
+                "b", PairIndex.of(List.of(new AssetPair(eur, usd), new AssetPair(gbp, usd))),
+                "a", PairIndex.of(List.of(new AssetPair(eur, usd))),
+                "c", PairIndex.of(List.of(new AssetPair(eur, gbp)))));
+
+        assertEquals(3, index.exchangeCount());
+        assertEquals("a", index.exchange(0));
+        assertEquals(2, index.exchangeId("c"));
+        assertEquals(ListingIndex.NO_EXCHANGE, index.exchangeId("d"));
+        assertEquals(List.of("a", "b"), index.exchanges(index.exchangesListing("EUR/USD")));
+        assertEquals(List.of("b"), index.exchanges(index.exchangesListing(
+                AssetIds.idOf(gbp), AssetIds.idOf(usd))));
+        assertEquals(List.of("a", "b", "c"), index.exchanges(index.exchangesListingAsset(AssetIds.idOf(eur))));
+        assertEquals(List.of("b", "c"), index.exchanges(index.exchangesListingAsset(AssetIds.idOf(gbp))));
+        assertTrue(index.exchangesListingAsset(AssetIds.idOf(jpy)).isEmpty());
+        assertTrue(index.exchangesListing("USD/EUR").isEmpty());
+        assertTrue(index.lists(2, AssetIds.idOf(eur), AssetIds.idOf(gbp)));
+        assertFalse(index.lists(0, AssetIds.idOf(eur), AssetIds.idOf(gbp)));
+        assertFalse(index.listsAsset(0, AssetIds.idOf(gbp)));
+    }
+
+    @Test
+    void of_moreExchangesThanAWord() {
+        Map<String, PairIndex> pairIndexes = new HashMap<>();
+        for (int i = 0; i < 130; i++) {
+            pairIndexes.put("exchange-%03d".formatted(i), PairIndex.of(i % 2 == 0
+                    ? List.of(new AssetPair(eur, usd)) : List.of(new AssetPair(jpy, usd))));
+        }
+        ListingIndex index = ListingIndex.of(pairIndexes);
+
+        BitSet listingEurUsd = index.exchangesListing("EUR/USD");
+        assertEquals(65, listingEurUsd.cardinality());
+        assertTrue(listingEurUsd.get(128));
+        assertTrue(index.lists(129, AssetIds.idOf(jpy), AssetIds.idOf(usd)));
+        assertEquals(130, index.exchangesListingAsset(AssetIds.idOf(usd)).cardinality());
+    }
+}
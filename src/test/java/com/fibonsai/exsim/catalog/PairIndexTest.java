@@ -0,0 +1,70 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.catalog;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.util.AssetIds;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PairIndexTest {
+
+    private final Asset usd = AssetUtil.fromCurrency(Currency.getInstance("USD"));
+    private final Asset eur = AssetUtil.fromCurrency(Currency.getInstance("EUR"));
+    private final Asset gbp = AssetUtil.fromCurrency(Currency.getInstance("GBP"));
+
+    @Test
+    void of_numbersPairsInOrder() {
+        PairIndex index = PairIndex.of(List.of(new AssetPair(gbp, usd), new AssetPair(eur, usd),
+                new AssetPair(eur, gbp), new AssetPair(eur, usd)));
+
+        assertEquals(3, index.size());
+        assertEquals(List.of("EUR/GBP", "EUR/USD", "GBP/USD"),
+                index.pairs().stream().map(AssetPair::simpleName).toList());
+        for (int pairId = 0; pairId < index.size(); pairId++) {
+            assertEquals(pairId, index.pairId(index.pair(pairId).simpleName()));
+            assertEquals(pairId, index.pairId(index.pair(pairId)));
+        }
+    }
+
+    @Test
+    void pairId_byAssetIds() {
+        PairIndex index = PairIndex.of(List.of(new AssetPair(eur, usd), new AssetPair(gbp, usd)));
+
+        assertEquals(1, index.pairId(AssetIds.idOf(gbp), AssetIds.idOf(usd)));
+        assertEquals(PairIndex.NO_PAIR, index.pairId(AssetIds.idOf(usd), AssetIds.idOf(gbp)));
+        assertEquals(PairIndex.NO_PAIR, index.pairId("USD/GBP"));
+        assertEquals(PairIndex.NO_PAIR, index.pairId(AssetIds.NO_ID, AssetIds.idOf(usd)));
+    }
+
+    @Test
+    void of_emptyAndManyPairs() {
+        assertEquals(PairIndex.NO_PAIR, PairIndex.of(List.of()).pairId("EUR/USD"));
+
+        List<AssetPair> pairs = Currency.getAvailableCurrencies().stream()
+                .map(currency -> new AssetPair(AssetUtil.fromCurrency(currency), usd))
+                .toList();
+        PairIndex index = PairIndex.of(pairs);
+        for (AssetPair pair : pairs) {
+            assertEquals(pair, index.pair(index.pairId(pair)));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2025 fibonsai.com
+ * All rights reserved.
+ *
+ * This source is subject to the Apache License, Version 2.0.
+ * Please see the LICENSE file for more information.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.fibonsai.exsim.dto;
+
+import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.types.DepositFundsParams;
+import com.fibonsai.exsim.types.WithdrawFundsParams;
+import com.fibonsai.exsim.util.AssetIds;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.naming.InsufficientResourcesException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletTest {
+
+    private final Asset USD = AssetUtil.fromCurrency(Currency.getInstance("USD"));
+
+    private Wallet wallet;
+
+    private DepositFundsParams deposit(String amount) {
+        return new DepositFundsParams() {
+            public BigDecimal getAmount() { return new BigDecimal(amount); }
+            public Asset getAsset() { return USD; }
+        };
+    }
+
+    private WithdrawFundsParams withdraw(String amount) {
+        return new WithdrawFundsParams() {
+            public BigDecimal getAmount() { return new BigDecimal(amount); }
+            public Asset getAsset() { return USD; }
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        wallet = new Wallet("owner", USD, Wallet.ADDRESS_DEFAULT, BalanceMode.FIXED_POINT);
+        wallet.setState(WalletState.ONLINE);
+    }
+
+    @Test
+    void asset_returnsTheAssetGivenToTheConstructor() {
+        assertSame(USD, wallet.asset());
+        assertSame(USD, new Wallet("owner", USD, Wallet.ADDRESS_DEFAULT).asset());
+        assertEquals(USD.symbol(), wallet.assetRef().symbol());
+    }
+
+    @Test
+    void transaction_rejectsParamsOfAnotherAsset() {
+        Asset eur = AssetUtil.fromCurrency(Currency.getInstance("EUR"));
+        AssetIds.idOf(eur);
+        DepositFundsParams depositEur = new DepositFundsParams() {
+            public BigDecimal getAmount() { return BigDecimal.ONE; }
+            public Asset getAsset() { return eur; }
+        };
+
+        assertEquals(AssetIds.find("USD"), deposit("1").getAssetId());
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> wallet.transaction(depositEur));
+        assertTrue(error.getMessage().contains("USD != EUR"));
+        assertEquals(0L, wallet.units());
+    }
+
+    @Test
+    void fixedPoint_usesTheQuantityScaleOfPairsForZeroDecimalAssets() {
+        Asset shares = Asset.builder().symbol("SHARES").assetDecimalPoints(BigDecimal.ZERO).build();
+        Wallet sharesWallet = new Wallet("owner", shares, Wallet.ADDRESS_DEFAULT, BalanceMode.FIXED_POINT);
+
+        assertEquals(0, sharesWallet.balance().decimalPoints());
+        assertEquals(0, new AssetPair(shares, USD).quantityScale());
+    }
+
+    @Test
+    void fixedPoint_keepsUnitsOfAssetDecimalPoints() throws Exception {
+        wallet.transaction(deposit("10.25"));
+        wallet.transaction(withdraw("0.5"));
+
+        assertEquals(975L, wallet.units());
+        assertEquals(new BigDecimal("9.75"), wallet.amount());
+        assertSame(wallet.amount(), wallet.amount());
+    }
+
+    @Test
+    void fixedPoint_rejectsScaleMismatch() {
+        ArithmeticException error = assertThrows(ArithmeticException.class, () -> wallet.transaction(deposit("0.001")));
+        assertTrue(error.getMessage().contains("Scale mismatch"));
+        assertEquals(0L, wallet.units());
+    }
+
+    @Test
+    void fixedPoint_rejectsOverflow() throws Exception {
+        wallet.transaction(deposit(BigDecimal.valueOf(Long.MAX_VALUE, 2).toPlainString()));
+
+        ArithmeticException error = assertThrows(ArithmeticException.class, () -> wallet.transaction(deposit("0.01")));
+        assertTrue(error.getMessage().contains("Overflow"));
+        assertThrows(ArithmeticException.class, () -> wallet.transaction(deposit("1e20")));
+        assertEquals(Long.MAX_VALUE, wallet.units());
+    }
+
+    @Test
+    void fixedPoint_throwIfFundsIsInsufficient() throws Exception {
+        wallet.transaction(deposit("1"));
+
+        assertThrows(InsufficientResourcesException.class, () -> wallet.transaction(withdraw("1.01")));
+        assertEquals(new BigDecimal("1.00"), wallet.amount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(BalanceMode.class)
+    void transaction_concurrentUpdatesKeepBalanceInvariant(BalanceMode balanceMode) throws Exception {
+        Wallet concurrentWallet = new Wallet("owner", USD, Wallet.ADDRESS_DEFAULT, balanceMode);
+        concurrentWallet.setState(WalletState.ONLINE);
+        concurrentWallet.transaction(deposit("100"));
+        int threads = 8;
+        int iterations = 2_000;
+        AtomicInteger withdrawals = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean depositor = t % 4 == 0;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        if (depositor) {
+                            concurrentWallet.transaction(deposit("1"));
+                        } else {
+                            try {
+                                concurrentWallet.transaction(withdraw("1"));
+                                withdrawals.incrementAndGet();
+                            } catch (InsufficientResourcesException e) {
+                                rejected.incrementAndGet();
+                            }
+                        }
+                        assertTrue(concurrentWallet.amount().signum() >= 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int deposits = threads / 4 * iterations;
+        assertEquals(threads * iterations - deposits, withdrawals.get() + rejected.get());
+        assertEquals(0, BigDecimal.valueOf(100L + deposits - withdrawals.get()).compareTo(concurrentWallet.amount()));
+        assertEquals(1L + threads * iterations - rejected.get() + 1L, concurrentWallet.version());
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.journal;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    @Test
+    void capacity_roundedUpToPowerOfTwo() {
+        assertEquals(8, new EventJournal<String>(5).capacity());
+        assertEquals(1, new EventJournal<String>(1).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new EventJournal<String>(0));
+    }
+
+    @Test
+    void append_assignsMonotonicSequences() {
+        EventJournal<String> journal = new EventJournal<>(4, 10L);
+
+        assertEquals(10L, journal.append(seq -> "e" + seq));
+        assertEquals(11L, journal.append("e11"));
+        assertEquals(11L, journal.lastSequence());
+        assertEquals(10L, journal.firstRetainedSequence());
+    }
+
+    @Test
+    void replay_fromRetainedSequenceThenLive() {
+        EventJournal<String> journal = new EventJournal<>(8);
+        for (int i = 0; i < 5; i++) {
+            journal.append(seq -> "e" + seq);
+        }
+
+        StepVerifier.create(journal.replay(3L))
+                .expectNext("e3", "e4", "e5")
+                .then(() -> journal.append(seq -> "e" + seq))
+                .expectNext("e6")
+                .then(journal::close)
+                .verifyComplete();
+    }
+
+    @Test
+    void replay_respectsDownstreamDemand() {
+        EventJournal<String> journal = new EventJournal<>(8);
+        for (int i = 0; i < 4; i++) {
+            journal.append(seq -> "e" + seq);
+        }
+
+        StepVerifier.create(journal.replay(), 0)
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(10))
+                .thenRequest(2)
+                .expectNext("e1", "e2")
+                .thenRequest(2)
+                .expectNext("e3", "e4")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void replay_errorsWhenSequenceNoLongerRetained() {
+        EventJournal<String> journal = new EventJournal<>(4);
+        for (int i = 0; i < 10; i++) {
+            journal.append(seq -> "e" + seq);
+        }
+
+        assertEquals(7L, journal.firstRetainedSequence());
+        StepVerifier.create(journal.replay(2L))
+                .expectErrorSatisfies(e -> {
+                    JournalOverrunException overrun = assertInstanceOf(JournalOverrunException.class, e);
+                    assertEquals(2L, overrun.sequence());
+                    assertEquals(7L, overrun.firstRetainedSequence());
+                })
+                .verify();
+    }
+
+    @Test
+    void replay_slowSubscriberOverrun() {
+        EventJournal<String> journal = new EventJournal<>(4);
+        journal.append("e1");
+
+        StepVerifier.create(journal.replay(), 0)
+                .expectSubscription()
+                .then(() -> {
+                    for (int i = 0; i < 8; i++) {
+                        journal.append(seq -> "e" + seq);
+                    }
+                })
+                .thenRequest(1)
+                .expectError(JournalOverrunException.class)
+                .verify();
+    }
+
+    @Test
+    void close_completesAfterPendingEventsAndRejectsAppends() {
+        EventJournal<String> journal = new EventJournal<>(4);
+        journal.append("e1");
+        journal.append("e2");
+        journal.close();
+
+        StepVerifier.create(journal.replay())
+                .expectNext("e1", "e2")
+                .verifyComplete();
+        assertThrows(IllegalStateException.class, () -> journal.append("e3"));
+    }
+
+    @Test
+    void append_doesNotRunSubscribersOnProducerThread() throws InterruptedException {
+        EventJournal<String> journal = new EventJournal<>(16);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(3);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        journal.replay().subscribe(event -> {
+            threads.add(Thread.currentThread());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.countDown();
+        });
+
+        // the subscriber blocks on the first event, the producer keeps appending
+        for (int i = 0; i < 3; i++) {
+            journal.append(seq -> "e" + seq);
+        }
+        assertEquals(3L, journal.lastSequence());
+        release.countDown();
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertFalse(threads.contains(Thread.currentThread()));
+        journal.close();
+    }
+
+    @Test
+    void append_schedulesNothingWithoutSubscribers() {
+        AtomicInteger scheduled = new AtomicInteger();
+        Scheduler immediate = Schedulers.immediate();
+        Scheduler counting = new Scheduler() {
+            public Disposable schedule(Runnable task) {
+                scheduled.incrementAndGet();
+                return immediate.schedule(task);
+            }
+
+            public Worker createWorker() {
+                return immediate.createWorker();
+            }
+        };
+        EventJournal<String> journal = new EventJournal<>(8, 1L, counting);
+        for (int i = 0; i < 3; i++) {
+            journal.append(seq -> "e" + seq);
+        }
+        assertEquals(0, scheduled.get());
+
+        StepVerifier.create(journal.replay(1L))
+                .expectNext("e1", "e2", "e3")
+                .then(() -> journal.append(seq -> "e" + seq))
+                .expectNext("e4")
+                .thenCancel()
+                .verify();
+    }
+}
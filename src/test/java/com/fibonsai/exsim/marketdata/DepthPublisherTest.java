@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import com.fibonsai.exsim.matching.Side;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepthPublisherTest {
+
+    @Test
+    void subscribe_emitsSnapshotThenCoalescedDiffs() {
+        DepthTracker tracker = new DepthTracker();
+        tracker.onLevelChanged(Side.BUY, 99L, 5L);
+        tracker.onLevelChanged(Side.BUY, 98L, 2L);
+        tracker.onLevelChanged(Side.SELL, 101L, 3L);
+        DepthPublisher publisher = new DepthPublisher(2, 100L, 16);
+        List<DepthUpdate> updates = new CopyOnWriteArrayList<>();
+        Disposable subscription = publisher.subscribe(tracker).subscribe(updates::add);
+
+        DepthUpdate snapshot = updates.getFirst();
+        assertTrue(snapshot.snapshot());
+        assertEquals(2, snapshot.bidCount());
+        assertEquals(99L, snapshot.bidPrice(0));
+        assertEquals(2L, snapshot.bidQuantity(1));
+        assertEquals(1, snapshot.askCount());
+        assertEquals(101L, snapshot.askPrice(0));
+
+        // several changes of the same level and a level outside the top 2 collapse into one diff
+        tracker.onLevelChanged(Side.BUY, 99L, 4L);
+        tracker.onLevelChanged(Side.BUY, 99L, 1L);
+        tracker.onLevelChanged(Side.BUY, 97L, 8L);
+        tracker.onLevelChanged(Side.SELL, 101L, 0L);
+        tracker.onLevelChanged(Side.SELL, 102L, 6L);
+        publisher.publish();
+        publisher.publish();
+
+        assertEquals(2, updates.size());
+        DepthUpdate diff = updates.get(1);
+        assertFalse(diff.snapshot());
+        assertEquals(snapshot.sequence() + 1, diff.sequence());
+        assertEquals(1, diff.bidCount());
+        assertEquals(99L, diff.bidPrice(0));
+        assertEquals(1L, diff.bidQuantity(0));
+        assertEquals(2, diff.askCount());
+        assertEquals(101L, diff.askPrice(0));
+        assertEquals(0L, diff.askQuantity(0));
+        assertEquals(102L, diff.askPrice(1));
+        assertEquals(6L, diff.askQuantity(1));
+
+        // a level leaving the top pulls the next one in
+        tracker.onLevelChanged(Side.BUY, 98L, 0L);
+        publisher.publish();
+        DepthUpdate pulled = updates.get(2);
+        assertEquals(2, pulled.bidCount());
+        assertEquals(98L, pulled.bidPrice(0));
+        assertEquals(0L, pulled.bidQuantity(0));
+        assertEquals(97L, pulled.bidPrice(1));
+        assertEquals(8L, pulled.bidQuantity(1));
+        subscription.dispose();
+    }
+
+    @Test
+    void publish_sharesFramesAndSendsLateSubscribersTheLatestSnapshot() {
+        DepthTracker tracker = new DepthTracker();
+        DepthPublisher publisher = new DepthPublisher(5, 100L, 16);
+        List<DepthUpdate> first = new CopyOnWriteArrayList<>();
+        List<DepthUpdate> second = new CopyOnWriteArrayList<>();
+        publisher.subscribe(tracker).subscribe(first::add);
+        publisher.subscribe(tracker).subscribe(second::add);
+
+        tracker.onLevelChanged(Side.SELL, 105L, 7L);
+        publisher.publish();
+
+        assertEquals(2, first.size());
+        assertSame(first.get(1), second.get(1));
+        List<DepthUpdate> late = new CopyOnWriteArrayList<>();
+        publisher.subscribe(tracker).subscribe(late::add);
+        assertEquals(1, late.size());
+        assertTrue(late.getFirst().snapshot());
+        assertEquals(first.get(1).sequence(), late.getFirst().sequence());
+        assertEquals(105L, late.getFirst().askPrice(0));
+        assertEquals(7L, late.getFirst().askQuantity(0));
+
+        publisher.start();
+        publisher.stop();
+        assertThrows(IllegalArgumentException.class, () -> new DepthPublisher(0, 100L, 16));
+        assertThrows(IllegalArgumentException.class, () -> new DepthPublisher(5, 100L, 0));
+    }
+
+    @Test
+    void subscribe_errorsOnOverflowAndReleasesChannels() {
+        DepthTracker tracker = new DepthTracker();
+        DepthPublisher publisher = new DepthPublisher(5, 100L, 2);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        BaseSubscriber<DepthUpdate> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // no demand
+            }
+
+            @Override
+            protected void hookOnError(Throwable throwable) {
+                error.set(throwable);
+            }
+        };
+        publisher.subscribe(tracker).subscribe(stalled);
+        assertEquals(1, publisher.channels());
+
+        for (long quantity = 1; quantity <= 3; quantity++) {
+            tracker.onLevelChanged(Side.BUY, 99L, quantity);
+            publisher.publish();
+        }
+
+        assertTrue(Exceptions.isOverflow(error.get()));
+        assertEquals(0, publisher.channels());
+
+        DepthTracker removed = new DepthTracker();
+        AtomicBoolean completed = new AtomicBoolean();
+        publisher.subscribe(removed).subscribe(update -> {}, e -> {}, () -> completed.set(true));
+        assertEquals(1, publisher.channels());
+        publisher.remove(removed);
+        assertTrue(completed.get());
+        assertEquals(0, publisher.channels());
+    }
+}
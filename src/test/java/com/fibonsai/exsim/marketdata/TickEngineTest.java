@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickEngineTest {
+
+    private static final double ONE_SECOND = 1.0 / TickModel.SECONDS_PER_YEAR;
+
+    @Test
+    void generate_ticksDueStreamsOnly() {
+        TickSource fast = new TickSource(new GeometricBrownianMotion(0.0, 0.8), 100.0, 10L);
+        TickSource slow = new TickSource(new GeometricBrownianMotion(0.0, 0.8), 50.0, 86_400_000L);
+        TickEngine engine = new TickEngine(List.of(fast, slow, fast), null, 2, 16, 7L);
+        TickRing ring = engine.ring();
+        assertEquals(2, engine.partitionCount());
+        assertEquals(100.0, ring.lastPrice(0));
+        assertEquals(50.0, ring.lastPrice(1));
+
+        long now = System.currentTimeMillis() + 20L;
+        assertEquals(1, engine.generate(0, now));
+        assertEquals(1, engine.generate(1, now));
+        assertEquals(0, engine.generate(0, now));
+        assertEquals(2L, ring.sequence(0));
+        assertEquals(1L, ring.sequence(1));
+        assertEquals(2L, ring.sequence(2));
+        assertNotEquals(100.0, ring.lastPrice(0));
+        assertEquals(now, ring.lastTime(0));
+    }
+
+    @Test
+    void generate_isReproducibleAndCarriesPrices() {
+        List<TickSource> sources = List.of(new TickSource(new JumpDiffusion(0.0, 0.6, 1_000.0, 0.0, 0.1), 10.0, 1L));
+        TickEngine first = new TickEngine(sources, null, 1, 16, 3L);
+        TickEngine second = new TickEngine(sources, null, 1, 16, 3L);
+        long now = System.currentTimeMillis() + 10L;
+        for (int i = 0; i < 8; i++) {
+            first.generate(0, now + i);
+            second.generate(0, now + i);
+        }
+        assertEquals(first.ring().lastPrice(0), second.ring().lastPrice(0));
+
+        TickEngine carried = new TickEngine(sources, new double[] {first.ring().lastPrice(0)}, 1, 16, 3L);
+        assertEquals(first.ring().lastPrice(0), carried.ring().lastPrice(0));
+    }
+
+    @Test
+    void addAndRetire_changeSpareStreamsOfTheSameRing() {
+        TickSource fast = new TickSource(new GeometricBrownianMotion(0.0, 0.8), 100.0, 10L);
+        TickEngine engine = new TickEngine(List.of(fast), null, 3, 1, 16, 7L);
+        TickRing ring = engine.ring();
+        TickCursor cursor = ring.cursor(0);
+        assertEquals(3, ring.streams());
+        assertEquals(0L, ring.sequence(1));
+
+        engine.add(1, new TickSource(new GeometricBrownianMotion(0.0, 0.8), 50.0, 10L));
+        long now = System.currentTimeMillis() + 20L;
+        assertEquals(1, engine.generate(0, now));
+        assertEquals(50.0, ring.lastPrice(1));
+        assertEquals(2, engine.generate(0, now + 10L));
+
+        engine.retire(0);
+        assertEquals(1, engine.generate(0, now + 20L));
+        long retired = ring.sequence(0);
+        assertEquals(1, engine.generate(0, now + 30L));
+        assertEquals(retired, ring.sequence(0));
+        assertSame(ring, engine.ring());
+        assertEquals(retired - 1, cursor.poll(new long[16], new double[16]));
+        assertEquals(0L, ring.sequence(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.retire(3));
+    }
+
+    @Test
+    void models_followTheirProcess() {
+        SplittableRandom random = new SplittableRandom(11L);
+        assertEquals(100.0, new GeometricBrownianMotion(0.0, 0.0).next(100.0, ONE_SECOND, random), 1e-9);
+
+        MeanReversion meanReversion = new MeanReversion(50.0, 1_000.0, 0.2);
+        double price = 200.0;
+        for (int i = 0; i < 10_000; i++) {
+            price = meanReversion.next(price, ONE_SECOND * 60, random);
+        }
+        assertEquals(50.0, price, 5.0);
+
+        // one expected jump per tick, with jumps always taken and no diffusion
+        double jumpsPerYear = 1.0 / ONE_SECOND;
+        JumpDiffusion jumps = new JumpDiffusion(0.0, 0.0, jumpsPerYear, -0.5, 0.0);
+        double compensation = Math.exp(-0.5) - 1;
+        assertEquals(100.0 * Math.exp(-compensation - 0.5), jumps.next(100.0, ONE_SECOND, random), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> new GeometricBrownianMotion(0.0, -1.0));
+        assertThrows(IllegalArgumentException.class, () -> new TickSource(meanReversion, 0.0, 1L));
+    }
+}
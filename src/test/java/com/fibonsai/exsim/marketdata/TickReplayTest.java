@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickReplayTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String exchange, long... times) throws IOException {
+        int count = times.length;
+        int[] pairIds = new int[count];
+        long[] prices = new long[count];
+        long[] sizes = new long[count];
+        for (int i = 0; i < count; i++) {
+            pairIds[i] = i % 3;
+            prices[i] = 1_000 + times[i];
+            sizes[i] = i + 1;
+        }
+        Path path = dir.resolve(name + TickFile.EXTENSION);
+        TickFile.write(path, exchange, List.of("EUR/USD", "GBP/USD", "CHF/USD"), count, times, pairIds, prices, sizes);
+        return path;
+    }
+
+    @Test
+    void tickFile_roundTripsColumns() throws IOException {
+        TickFile file = TickFile.open(write("bitstamp", "bitstamp", 5L, 7L, 11L));
+
+        assertEquals("bitstamp", file.exchange());
+        assertEquals(3, file.count());
+        assertEquals(7L, file.time(1));
+        assertEquals(List.of("EUR/USD", "GBP/USD", "CHF/USD"), file.pairs());
+        assertEquals(2, file.pairId(2));
+        assertEquals(1_011L, file.priceTicks(2));
+        assertEquals(1L, file.size(0));
+
+        Path truncated = dir.resolve("truncated" + TickFile.EXTENSION);
+        byte[] bytes = Files.readAllBytes(file.path());
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 4));
+        assertThrows(IllegalArgumentException.class, () -> TickFile.open(truncated));
+    }
+
+    @Test
+    void run_mergesFilesInTimeOrder() throws IOException {
+        List<TickFile> files = List.of(
+                TickFile.open(write("a", "bitstamp", 1L, 4L, 4L, 9L)),
+                TickFile.open(write("b", "kraken")),
+                TickFile.open(write("c", "coinbase", 2L, 4L, 10L)));
+        List<String> replayed = new ArrayList<>();
+
+        long count = new TickReplay(files, 0.0).run((file, time, pairId, priceTicks, size) -> {
+            assertEquals(1_000 + time, priceTicks);
+            replayed.add(file + "@" + time);
+        });
+
+        assertEquals(7L, count);
+        assertEquals(List.of("0@1", "2@2", "0@4", "0@4", "2@4", "0@9", "2@10"), replayed);
+    }
+
+    @Test
+    void run_followsScaledWallClock() throws IOException {
+        List<TickFile> files = List.of(TickFile.open(write("a", "bitstamp", 1_000L, 1_100L, 1_200L)));
+
+        long start = System.nanoTime();
+        assertEquals(3L, new TickReplay(files, 2.0).run((file, time, pairId, priceTicks, size) -> {}));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void cancel_stopsWallClockReplay() throws Exception {
+        TickReplay replay = new TickReplay(List.of(TickFile.open(write("a", "bitstamp", 0L, 60_000L))), 1.0);
+        Thread canceller = Thread.ofPlatform().start(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            replay.cancel();
+        });
+
+        assertEquals(1L, replay.run((file, time, pairId, priceTicks, size) -> {}));
+        canceller.join();
+    }
+}
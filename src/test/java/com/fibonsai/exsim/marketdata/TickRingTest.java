@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickRingTest {
+
+    @Test
+    void write_publishesLastTick() {
+        TickRing ring = new TickRing(2, 4);
+        assertTrue(Double.isNaN(ring.lastPrice(0)));
+        assertEquals(-1L, ring.lastTime(0));
+
+        ring.write(0, 10L, 1.5);
+        ring.write(0, 20L, 2.5);
+
+        assertEquals(2L, ring.sequence(0));
+        assertEquals(2.5, ring.lastPrice(0));
+        assertEquals(20L, ring.lastTime(0));
+        assertEquals(0L, ring.sequence(1));
+        assertThrows(IllegalArgumentException.class, () -> new TickRing(1, 3));
+    }
+
+    @Test
+    void cursor_pollsNewTicksAndCountsOverwritten() {
+        TickRing ring = new TickRing(1, 4);
+        TickCursor cursor = ring.cursor(0);
+        long[] times = new long[8];
+        double[] prices = new double[8];
+
+        ring.write(0, 1L, 1.0);
+        ring.write(0, 2L, 2.0);
+        assertEquals(2, cursor.poll(times, prices));
+        assertArrayEquals(new double[] {1.0, 2.0}, Arrays.copyOf(prices, 2));
+        assertEquals(0, cursor.poll(times, prices));
+
+        for (int i = 3; i <= 8; i++) {
+            ring.write(0, i, i);
+        }
+        // the slot being written is never read, so 3 of the 6 new ticks are retained
+        assertEquals(3, cursor.poll(times, prices));
+        assertEquals(6L, times[0]);
+        assertEquals(8.0, prices[2]);
+        assertEquals(3L, cursor.lost());
+        assertEquals(8L, cursor.next());
+    }
+
+    @Test
+    void cursor_neverReturnsTornTicks() throws InterruptedException {
+        TickRing ring = new TickRing(1, 8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (long i = 1; running.get(); i++) {
+                ring.write(0, i, i);
+            }
+        });
+        TickCursor cursor = ring.cursor(0);
+        long[] times = new long[16];
+        double[] prices = new double[16];
+        try {
+            for (int polls = 0; polls < 100_000; polls++) {
+                int count = cursor.poll(times, prices);
+                for (int i = 0; i < count; i++) {
+                    assertEquals((double) times[i], prices[i]);
+                    if (i > 0) {
+                        assertEquals(times[i - 1] + 1, times[i]);
+                    }
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
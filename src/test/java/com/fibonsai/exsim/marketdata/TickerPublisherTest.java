@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.marketdata;
+
+import com.fibonsai.exsim.matching.Side;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickerPublisherTest {
+
+    @Test
+    void tracker_writesBestLevelsAndLastTrade() {
+        DepthTracker tracker = new DepthTracker();
+        TickerSlot slot = tracker.ticker();
+        assertNull(slot.read());
+
+        tracker.onLevelChanged(Side.BUY, 99L, 5L);
+        tracker.onLevelChanged(Side.BUY, 98L, 2L);
+        tracker.onLevelChanged(Side.SELL, 101L, 3L);
+        tracker.onTrade(1L, 2L, Side.BUY, 101L, 3L, 0L, 0L);
+        tracker.onLevelChanged(Side.SELL, 101L, 0L);
+
+        Ticker ticker = slot.read();
+        // the level behind the best bid does not change the top of book
+        assertEquals(4L, slot.sequence());
+        assertEquals(4L, ticker.sequence());
+        assertEquals(99L, ticker.bidPrice());
+        assertEquals(5L, ticker.bidQuantity());
+        assertEquals(0L, ticker.askQuantity());
+        assertEquals(101L, ticker.lastPrice());
+        assertEquals(3L, ticker.lastQuantity());
+    }
+
+    @Test
+    void subscribe_sendsOnlyTheLatestValueOnDemand() {
+        TickerSlot slot = new TickerSlot();
+        TickerPublisher publisher = new TickerPublisher(100L);
+
+        StepVerifier.create(publisher.subscribe(slot), 0)
+                .then(() -> {
+                    for (long i = 1; i <= 1_000; i++) {
+                        slot.quote(100L - i, i, 100L + i, i, i);
+                    }
+                    publisher.publish();
+                })
+                .expectNoEvent(Duration.ofMillis(10))
+                .thenRequest(1)
+                .assertNext(ticker -> {
+                    assertEquals(1_000L, ticker.sequence());
+                    assertEquals(1_100L, ticker.askPrice());
+                })
+                .thenRequest(1)
+                .then(publisher::publish)
+                .expectNoEvent(Duration.ofMillis(10))
+                .then(() -> {
+                    slot.trade(105L, 2L, 2_000L);
+                    publisher.publish();
+                })
+                .assertNext(ticker -> {
+                    assertEquals(1_001L, ticker.sequence());
+                    assertEquals(105L, ticker.lastPrice());
+                    assertEquals(1_100L, ticker.askPrice());
+                })
+                .thenCancel()
+                .verify();
+        assertThrows(IllegalArgumentException.class, () -> new TickerPublisher(0L));
+    }
+
+    @Test
+    void start_publishesOnInterval() {
+        TickerSlot slot = new TickerSlot();
+        TickerPublisher publisher = new TickerPublisher(1L);
+        publisher.start();
+        try {
+            StepVerifier.create(publisher.subscribe(slot))
+                    .then(() -> slot.quote(99L, 1L, 101L, 1L, 1L))
+                    .assertNext(ticker -> assertEquals(99L, ticker.bidPrice()))
+                    .then(publisher::stop)
+                    .verifyComplete();
+        } finally {
+            publisher.stop();
+        }
+    }
+}
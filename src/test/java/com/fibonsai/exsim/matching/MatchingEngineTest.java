@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2025 fibonsai.com
+ * All rights reserved.
+ *
+ * This source is subject to the Apache License, Version 2.0.
+ * Please see the LICENSE file for more information.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineTest {
+
+    private MatchingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new MatchingEngine(4, 1024);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    private static AssetPair pair(String base, String quote) {
+        return AssetPair.builder()
+                .baseAsset(AssetUtil.fromCurrency(Currency.getInstance(base)))
+                .quoteAsset(AssetUtil.fromCurrency(Currency.getInstance(quote)))
+                .build();
+    }
+
+    @Test
+    void register_routesBooksToTheirShard() {
+        AssetPair eurUsd = pair("EUR", "USD");
+        int first = engine.register("bitstamp", new OrderBook(eurUsd, MatchListener.NOOP));
+        int second = engine.register("kraken", new OrderBook(eurUsd, MatchListener.NOOP));
+
+        assertEquals(engine.shardOf("bitstamp", eurUsd), first % engine.shardCount());
+        assertEquals(engine.shardOf("kraken", eurUsd), second % engine.shardCount());
+        assertThrows(IllegalStateException.class, () -> {
+            engine.stop();
+            engine.register("binance", new OrderBook(eurUsd, MatchListener.NOOP));
+        });
+    }
+
+    @Test
+    void submit_fromManyProducers_matchesEveryOrder() throws InterruptedException {
+        int producers = 4;
+        int ordersPerProducer = 5_000;
+        AtomicLong traded = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers * ordersPerProducer / 2);
+        int bookId = engine.register("bitstamp", new OrderBook(pair("EUR", "USD"), new MatchListener() {
+            public void onTrade(long takerOrderId, long makerOrderId, Side takerSide, long priceTicks, long quantity,
+                                long takerRemaining, long makerRemaining) {
+                traded.addAndGet(quantity);
+                done.countDown();
+            }
+        }));
+
+        AtomicLong orderIds = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Side side = p % 2 == 0 ? Side.BUY : Side.SELL;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < ordersPerProducer; i++) {
+                    long orderId = orderIds.incrementAndGet();
+                    while (!engine.submit(bookId, orderId, side, 100, 1, TimeInForce.GTC)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(producers * ordersPerProducer / 2, traded.get());
+    }
+
+    @Test
+    void remove_dropsBookAndItsRestingOrders() throws InterruptedException {
+        AssetPair eurUsd = pair("EUR", "USD");
+        AtomicLong removedTrades = new AtomicLong();
+        List<String> rejected = new CopyOnWriteArrayList<>();
+        int removed = engine.register("bitstamp", new OrderBook(eurUsd, new MatchListener() {
+            public void onTrade(long takerOrderId, long makerOrderId, Side takerSide, long priceTicks, long quantity,
+                                long takerRemaining, long makerRemaining) {
+                removedTrades.incrementAndGet();
+            }
+
+            public void onOrderRejected(long orderId, RejectReason reason) {
+                rejected.add(orderId + ":" + reason);
+            }
+        }));
+        CountDownLatch traded = new CountDownLatch(1);
+        // same exchange and pair, so the same shard and the same command order
+        int kept = engine.register("bitstamp", new OrderBook(eurUsd, new MatchListener() {
+            public void onTrade(long takerOrderId, long makerOrderId, Side takerSide, long priceTicks, long quantity,
+                                long takerRemaining, long makerRemaining) {
+                traded.countDown();
+            }
+        }));
+        assertEquals(removed % engine.shardCount(), kept % engine.shardCount());
+
+        assertTrue(engine.submit(removed, 1, Side.BUY, 100, 1, TimeInForce.GTC));
+        engine.remove(removed);
+        assertTrue(engine.submit(removed, 2, Side.SELL, 100, 1, TimeInForce.GTC));
+        assertTrue(engine.submit(kept, 3, Side.BUY, 100, 1, TimeInForce.GTC));
+        assertTrue(engine.submit(kept, 4, Side.SELL, 100, 1, TimeInForce.GTC));
+
+        assertTrue(traded.await(10, TimeUnit.SECONDS));
+        assertEquals(0, removedTrades.get());
+        // the rejection precedes the kept book trades in the shard command order
+        assertEquals(List.of("2:UNKNOWN_BOOK"), rejected);
+    }
+
+    @Test
+    void release_reusesTheIdOfARemovedBook() throws InterruptedException {
+        AssetPair eurUsd = pair("EUR", "USD");
+        List<String> rejected = new CopyOnWriteArrayList<>();
+        int removed = engine.register("bitstamp", new OrderBook(eurUsd, new MatchListener() {
+            public void onOrderRejected(long orderId, RejectReason reason) {
+                rejected.add(orderId + ":" + reason);
+            }
+        }));
+        engine.remove(removed);
+        CountDownLatch applied = new CountDownLatch(1);
+        int registered = engine.register("bitstamp", new OrderBook(eurUsd, new MatchListener() {
+            public void onOrderRested(long orderId, Side side, long priceTicks, long remaining) {
+                applied.countDown();
+            }
+        }));
+        assertNotEquals(removed, registered);
+
+        engine.release(removed);
+        // resting an order on the same shard waits for the release to be applied
+        assertTrue(engine.submit(registered, 1, Side.BUY, 100, 1, TimeInForce.GTC));
+        assertTrue(applied.await(10, TimeUnit.SECONDS));
+        CountDownLatch rested = new CountDownLatch(1);
+        int reused = engine.register("bitstamp", new OrderBook(eurUsd, new MatchListener() {
+            public void onOrderRested(long orderId, Side side, long priceTicks, long remaining) {
+                rested.countDown();
+            }
+        }));
+        assertEquals(removed, reused);
+        assertTrue(engine.submit(reused, 1, Side.BUY, 100, 1, TimeInForce.GTC));
+
+        assertTrue(rested.await(10, TimeUnit.SECONDS));
+        assertTrue(rejected.isEmpty());
+    }
+
+    @Test
+    void release_keepsTheIdOfABookNotRemoved() throws InterruptedException {
+        AssetPair eurUsd = pair("EUR", "USD");
+        CountDownLatch rested = new CountDownLatch(1);
+        int live = engine.register("bitstamp", new OrderBook(eurUsd, new MatchListener() {
+            public void onOrderRested(long orderId, Side side, long priceTicks, long remaining) {
+                rested.countDown();
+            }
+        }));
+
+        engine.release(live);
+        assertTrue(engine.submit(live, 1, Side.BUY, 100, 1, TimeInForce.GTC));
+        assertTrue(rested.await(10, TimeUnit.SECONDS));
+
+        assertNotEquals(live, engine.register("bitstamp", new OrderBook(eurUsd, MatchListener.NOOP)));
+    }
+
+    @Test
+    void ring_rejectsWhenFull() {
+        OrderCommandRing ring = new OrderCommandRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offerCancel(0, i));
+        }
+        assertFalse(ring.offerCancel(0, 4));
+
+        List<Long> consumed = new ArrayList<>();
+        assertEquals(4, ring.drain(command -> consumed.add(command.orderId()), 10));
+        assertEquals(List.of(0L, 1L, 2L, 3L), consumed);
+        assertTrue(ring.offerCancel(0, 5));
+    }
+}
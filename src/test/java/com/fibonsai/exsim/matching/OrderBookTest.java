@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2025 fibonsai.com
+ * All rights reserved.
+ *
+ * This source is subject to the Apache License, Version 2.0.
+ * Please see the LICENSE file for more information.
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.fibonsai.exsim.matching;
+
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static com.fibonsai.exsim.matching.Side.BUY;
+import static com.fibonsai.exsim.matching.Side.SELL;
+import static com.fibonsai.exsim.matching.TimeInForce.GTC;
+import static com.fibonsai.exsim.matching.TimeInForce.IOC;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private record Trade(long taker, long maker, long price, long quantity) {}
+
+    private final List<Trade> trades = new ArrayList<>();
+    private final List<Long> cancelled = new ArrayList<>();
+    private final List<RejectReason> rejected = new ArrayList<>();
+    private final List<String> levels = new ArrayList<>();
+
+    private OrderBook book;
+
+    @BeforeEach
+    void setUp() {
+        AssetPair pair = AssetPair.builder()
+                .baseAsset(AssetUtil.fromCurrency(Currency.getInstance("EUR")))
+                .quoteAsset(AssetUtil.fromCurrency(Currency.getInstance("USD")))
+                .priceScale(BigDecimal.valueOf(4))
+                .build();
+        book = new OrderBook(pair, new MatchListener() {
+            public void onTrade(long takerOrderId, long makerOrderId, Side takerSide, long priceTicks, long quantity,
+                                long takerRemaining, long makerRemaining) {
+                trades.add(new Trade(takerOrderId, makerOrderId, priceTicks, quantity));
+            }
+            public void onOrderCancelled(long orderId, long remaining) {
+                cancelled.add(orderId);
+            }
+            public void onOrderRejected(long orderId, RejectReason reason) {
+                rejected.add(reason);
+            }
+            public void onLevelChanged(Side side, long priceTicks, long quantity) {
+                levels.add(side + "@" + priceTicks + "=" + quantity);
+            }
+        }, 4);
+    }
+
+    @Test
+    void submit_restsWhenNotCrossing() {
+        assertTrue(book.submit(1, BUY, 100, 10, GTC));
+        assertTrue(book.submit(2, BUY, 101, 10, GTC));
+        assertTrue(book.submit(3, SELL, 105, 5, GTC));
+        assertTrue(book.submit(4, SELL, 103, 5, GTC));
+
+        assertEquals(101, book.bestBid());
+        assertEquals(103, book.bestAsk());
+        assertEquals(100, book.levelPrice(BUY, 1));
+        assertEquals(105, book.levelPrice(SELL, 1));
+        assertEquals(2, book.depth(BUY));
+        assertEquals(4, book.orderCount());
+        assertTrue(trades.isEmpty());
+    }
+
+    @Test
+    void submit_matchesPriceThenTimePriority() {
+        book.submit(1, SELL, 101, 5, GTC);
+        book.submit(2, SELL, 100, 5, GTC);
+        book.submit(3, SELL, 100, 5, GTC);
+
+        book.submit(4, BUY, 101, 12, GTC);
+
+        assertEquals(List.of(new Trade(4, 2, 100, 5), new Trade(4, 3, 100, 5), new Trade(4, 1, 101, 2)), trades);
+        assertEquals(101, book.bestAsk());
+        assertEquals(3, book.remaining(1));
+        assertEquals(OrderBook.NO_PRICE, book.bestBid());
+        assertEquals(1, book.orderCount());
+    }
+
+    @Test
+    void submit_reportsEachTouchedLevelOnce() {
+        book.submit(1, SELL, 100, 5, GTC);
+        book.submit(2, SELL, 100, 5, GTC);
+        book.submit(3, SELL, 101, 5, GTC);
+        levels.clear();
+
+        book.submit(4, BUY, 101, 12, GTC);
+        book.cancel(3);
+
+        assertEquals(List.of("SELL@100=0", "SELL@101=3", "SELL@101=0"), levels);
+        book.submit(5, BUY, 99, 4, GTC);
+        assertEquals("BUY@99=4", levels.getLast());
+    }
+
+    @Test
+    void submit_restsRemainderAfterSweep() {
+        book.submit(1, BUY, 100, 5, GTC);
+        book.submit(2, SELL, 99, 8, GTC);
+
+        assertEquals(List.of(new Trade(2, 1, 100, 5)), trades);
+        assertEquals(OrderBook.NO_PRICE, book.bestBid());
+        assertEquals(99, book.bestAsk());
+        assertEquals(3, book.quantityAt(SELL, 99));
+    }
+
+    @Test
+    void submit_iocCancelsRemainder() {
+        book.submit(1, SELL, 100, 5, GTC);
+        book.submit(2, BUY, 100, 8, IOC);
+
+        assertEquals(1, trades.size());
+        assertEquals(List.of(2L), cancelled);
+        assertEquals(0, book.orderCount());
+    }
+
+    @Test
+    void submit_rejectsInvalidOrders() {
+        book.submit(1, BUY, 100, 5, GTC);
+
+        assertFalse(book.submit(1, BUY, 100, 5, GTC));
+        assertFalse(book.submit(2, BUY, 0, 5, GTC));
+        assertFalse(book.submit(3, BUY, 100, 0, GTC));
+        assertEquals(List.of(RejectReason.DUPLICATE_ORDER_ID, RejectReason.INVALID_PRICE, RejectReason.INVALID_QUANTITY),
+                rejected);
+    }
+
+    @Test
+    void cancel_removesOrderAndEmptyLevel() {
+        book.submit(1, BUY, 100, 5, GTC);
+        book.submit(2, BUY, 100, 5, GTC);
+
+        assertTrue(book.cancel(1));
+        assertEquals(5, book.quantityAt(BUY, 100));
+        assertTrue(book.cancel(2));
+        assertEquals(0, book.depth(BUY));
+        assertFalse(book.cancel(2));
+        assertEquals(List.of(RejectReason.UNKNOWN_ORDER), rejected);
+    }
+
+    @Test
+    void submit_reusesPooledNodes() {
+        for (long id = 1; id <= 10_000; id++) {
+            book.submit(id, id % 2 == 0 ? BUY : SELL, 1000 + (id % 50), 3, GTC);
+        }
+        // every order has the same quantity, so each trade fully fills both sides
+        assertEquals(10_000, 2 * trades.size() + book.orderCount());
+        assertTrue(book.bestBid() == OrderBook.NO_PRICE || book.bestAsk() == OrderBook.NO_PRICE
+                || book.bestBid() < book.bestAsk());
+    }
+
+    @Test
+    void submit_growsLevelPoolBeyondInitialCapacity() {
+        OrderBook small = new OrderBook(book.assetPair(), MatchListener.NOOP, 4, 2);
+        for (long id = 1; id <= 100; id++) {
+            assertTrue(small.submit(id, BUY, 1000 + id, 1, GTC));
+        }
+        assertEquals(100, small.depth(BUY));
+        assertEquals(1100, small.bestBid());
+        assertEquals(1001, small.levelPrice(BUY, 99));
+    }
+
+    @Test
+    void decimalConversion_usesPairScale() {
+        assertEquals(1_2345L, book.priceTicks(new BigDecimal("1.2345")));
+        assertEquals(new BigDecimal("1.2345"), book.price(1_2345L));
+        assertThrows(ArithmeticException.class, () -> book.priceTicks(new BigDecimal("1.23456")));
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    private static final WriteAheadLog.RecordHandler IGNORE = (type, payload) -> {};
+    /** Frame of a long record: length, checksum, type and payload, padded to a multiple of 4. */
+    private static final int FRAME = 20;
+
+    @TempDir
+    Path dir;
+
+    private static void appendLong(WriteAheadLog wal, long value) {
+        wal.append((byte) 1, out -> out.putLong(value));
+    }
+
+    private List<Long> replay() throws IOException {
+        List<Long> values = new ArrayList<>();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 1024, 1L, (type, payload) -> {
+            assertEquals(1, type);
+            values.add(payload.getLong());
+        })) {
+            return values;
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void open_replaysRecordsInOrder() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 1024, 1L, IGNORE)) {
+            for (long i = 0; i < 10; i++) {
+                appendLong(wal, i);
+            }
+        }
+
+        assertEquals(IntStream.range(0, 10).mapToObj(i -> (long) i).toList(), replay());
+    }
+
+    @Test
+    void append_rollsToNewSegmentWhenFull() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 64, 1L, IGNORE)) {
+            for (long i = 0; i < 20; i++) {
+                appendLong(wal, i);
+            }
+        }
+
+        assertTrue(segments().size() > 5);
+        List<Long> values = new ArrayList<>();
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 64, 1L, (type, payload) -> values.add(payload.getLong()))) {
+            assertEquals(20, wal.replayedRecords());
+        }
+        assertEquals(IntStream.range(0, 20).mapToObj(i -> (long) i).toList(), values);
+    }
+
+    @Test
+    void append_concurrentWritersKeepEveryRecord() throws Exception {
+        int threads = 4;
+        int perThread = 10_000;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 64 * 1024, 1L, IGNORE)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = (long) t * perThread;
+                writers.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        appendLong(wal, base + i);
+                    }
+                }));
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        List<Long> values = new ArrayList<>();
+        WriteAheadLog.open(dir, "test", 64 * 1024, 1L, (type, payload) -> values.add(payload.getLong())).close();
+        assertEquals(threads * perThread, values.size());
+        assertEquals(threads * perThread, values.stream().distinct().count());
+    }
+
+    @Test
+    void open_stopsAtDamagedRecord() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 1024, 1L, IGNORE)) {
+            for (long i = 0; i < 3; i++) {
+                appendLong(wal, i);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(segments().getFirst(), StandardOpenOption.WRITE)) {
+            // last byte of the second record payload, frames being padded to FRAME bytes
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFF}), 2L * FRAME - 4);
+        }
+
+        assertEquals(List.of(0L), replay());
+    }
+
+    @Test
+    void open_skipsUnfinishedFrameBeforeCompletedOnes() throws IOException {
+        appendAndClose(4);
+        try (FileChannel channel = FileChannel.open(segments().getFirst(), StandardOpenOption.WRITE)) {
+            // claimed with its provisional header, content partially copied
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, -(1 + Long.BYTES)), FRAME);
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0}), FRAME + 8L);
+        }
+
+        assertEquals(List.of(0L, 2L, 3L), replay());
+    }
+
+    @Test
+    void open_scansPastFrameWithZeroLength() throws IOException {
+        appendAndClose(4);
+        try (FileChannel channel = FileChannel.open(segments().getFirst(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), FRAME);
+        }
+
+        assertEquals(List.of(0L, 2L, 3L), replay());
+
+        try (FileChannel channel = FileChannel.open(segments().getFirst(), StandardOpenOption.WRITE)) {
+            // claimed before the crash, nothing written
+            channel.write(ByteBuffer.allocate(FRAME), 2L * FRAME);
+        }
+        assertEquals(List.of(0L, 3L), replay());
+    }
+
+    private void appendAndClose(int count) throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 1024, 1L, IGNORE)) {
+            for (long i = 0; i < count; i++) {
+                appendLong(wal, i);
+            }
+        }
+    }
+
+    @Test
+    void append_rejectsRecordLargerThanSegment() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 32, 1L, IGNORE)) {
+            assertThrows(IllegalArgumentException.class, () -> wal.append((byte) 1, out -> out.put(new byte[64])));
+        }
+    }
+
+    @Test
+    void clear_deletesPreviousRecords() throws IOException {
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 1024, 1L, IGNORE)) {
+            appendLong(wal, 1L);
+            wal.clear();
+            appendLong(wal, 2L);
+        }
+
+        assertEquals(List.of(2L), replay());
+    }
+
+    @Test
+    void truncate_dropsSegmentsBeforeRoll() throws IOException {
+        long tail;
+        try (WriteAheadLog wal = WriteAheadLog.open(dir, "test", 1024, 1L, IGNORE)) {
+            appendLong(wal, 1L);
+            tail = wal.roll();
+            appendLong(wal, 2L);
+            wal.truncate(tail);
+        }
+
+        List<Long> values = new ArrayList<>();
+        WriteAheadLog.open(dir, "test", 1024, 1L, tail, (type, payload) -> values.add(payload.getLong())).close();
+        assertEquals(List.of(2L), values);
+    }
+
+    @Test
+    void append_failsWhenClosed() throws IOException {
+        WriteAheadLog wal = WriteAheadLog.open(dir, "test", 1024, 1L, IGNORE);
+        wal.close();
+
+        assertThrows(IllegalStateException.class, () -> appendLong(wal, 1L));
+    }
+}
@@ -16,18 +16,26 @@
 package com.fibonsai.exsim.services;
 
 import com.fibonsai.exsim.config.JacksonMapperConfigurator;
+import com.fibonsai.exsim.dto.AssetPair;
 import com.fibonsai.exsim.dto.asset.Asset;
+import com.fibonsai.exsim.dto.asset.AssetRef;
+import com.fibonsai.exsim.dto.asset.AssetType;
+import com.fibonsai.exsim.util.AssetIds;
+import com.fibonsai.exsim.util.AssetRegistry;
+import com.fibonsai.exsim.util.AssetUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.Currency;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest(classes = {AssetService.class, JacksonMapperConfigurator.class})
+@SpringBootTest(classes = {AssetService.class, AssetRegistry.class, JacksonMapperConfigurator.class})
 class AssetServiceTest {
 
     @Autowired
@@ -75,4 +83,116 @@ class AssetServiceTest {
         Map<String, Asset> assets = assetService.assets();
         assertThrows(UnsupportedOperationException.class, () -> assets.put("test", Asset.builder().build()));
     }
+
+    @Test
+    void testAssetId_resolvesRegisteredAsset() {
+        Asset asset = Asset.builder().symbol("IDTEST").build();
+        assetService.add(asset);
+
+        int id = assetService.assetId("IDTEST");
+        assertTrue(id >= 0);
+        assertSame(asset, assetService.asset(id));
+        assertEquals(id, AssetIds.idOf(Asset.builder().symbol("IDTEST").build()));
+        assertEquals(AssetIds.NO_ID, assetService.assetId("NOT_REGISTERED"));
+    }
+
+    @Test
+    void testAssetPair_comparesAssetIds() {
+        Asset eur = assetService.assets().get("EUR");
+        Asset usd = assetService.assets().get("USD");
+        AssetPair pair = AssetPair.builder().baseAsset(eur).quoteAsset(usd).build();
+
+        assertEquals(assetService.assetId("EUR"), pair.baseAssetId());
+        assertEquals(assetService.assetId("USD"), pair.quoteAssetId());
+        assertEquals(pair, new AssetPair(eur, usd));
+        assertNotEquals(pair, new AssetPair(usd, eur));
+        assertTrue(pair.compareTo(new AssetPair(usd, eur)) < 0);
+        assertEquals(0, pair.compareTo(new AssetPair(eur, usd)));
+    }
+
+    @Test
+    void testAssetRef_compactViewOfRegisteredAsset() {
+        Asset eur = assetService.assets().get("EUR");
+        AssetRef ref = AssetRef.of(eur);
+
+        assertEquals("EUR", ref.symbol());
+        assertEquals(2, ref.decimalPoints());
+        assertEquals(AssetType.FIAT, ref.type());
+        assertEquals(assetService.assetId("EUR"), ref.id());
+        assertEquals(ref, AssetRef.of(AssetUtil.fromCurrency(Currency.getInstance("EUR"))));
+        assertEquals(ref, assetService.ref("EUR"));
+        assertSame(eur, assetService.asset(ref.id()));
+        assertThrows(IllegalArgumentException.class, () -> new AssetRef(ref.id() + 1, "EUR", 2, AssetType.FIAT));
+    }
+
+    @Test
+    void testAdd_keepsFirstAsset_replaceUpdatesMetadata() {
+        Asset first = Asset.builder().symbol("RELOAD").assetDecimalPoints(BigDecimal.valueOf(2)).build();
+        assetService.add(first);
+        assetService.add(Asset.builder().symbol("RELOAD").assetDecimalPoints(BigDecimal.valueOf(4)).build());
+        assertSame(first, assetService.asset(assetService.assetId("RELOAD")));
+        assertEquals(2, assetService.ref("RELOAD").decimalPoints());
+
+        Asset reloaded = Asset.builder().symbol("RELOAD").assetDecimalPoints(BigDecimal.valueOf(6)).build();
+        assetService.replace(reloaded);
+        assetService.replace(Asset.builder().symbol("USD").assetDecimalPoints(BigDecimal.valueOf(6)).build());
+
+        assertEquals(2, assetService.ref("USD").decimalPoints());
+        assertEquals(6, assetService.ref("RELOAD").decimalPoints());
+        assertSame(reloaded, assetService.asset(assetService.assetId("RELOAD")));
+        assertEquals(6, AssetRef.of(reloaded).decimalPoints());
+
+        assetService.init();
+        assertNull(assetService.ref("RELOAD"));
+        assertEquals(AssetIds.NO_ID, assetService.assetId("RELOAD"));
+    }
+
+    private static AssetService lazyAssetService(int cacheSize) {
+        AssetService service = new AssetService(new JacksonMapperConfigurator().objectMapper(), new AssetRegistry());
+        service.pairsData = "test_assets.json";
+        service.lazyAssets = true;
+        service.assetsCacheSize = cacheSize;
+        service.init();
+        return service;
+    }
+
+    @Test
+    void testLazyAssets_hydratedOnAccess() throws IOException {
+        AssetService service = lazyAssetService(8);
+
+        assertTrue(service.assets().containsKey("BTC"));
+        AssetRef eth = service.ref("ETH");
+        assertEquals(18, eth.decimalPoints());
+        assertEquals(AssetType.BLOCKCHAIN, eth.type());
+        assertEquals(0, service.hydratedAssets());
+
+        Asset btc = service.assets().get("BTC");
+        assertEquals("Bitcoin", btc.name());
+        assertEquals(1, btc.layerTwoSolutions().size());
+        assertSame(btc, service.assets().get("BTC"));
+        assertEquals("Ethereum", service.asset(eth.id()).name());
+        assertEquals(2, service.hydratedAssets());
+        assertEquals(AssetType.FIAT, service.assets().get("USD").assetType());
+
+        AssetRef noDecimalPoints = service.ref("NODP");
+        assertEquals(-1, noDecimalPoints.decimalPoints());
+        assertEquals(noDecimalPoints, AssetRef.of(service.assets().get("NODP")));
+        service.close();
+    }
+
+    @Test
+    void testLazyAssets_evictsLeastRecentlyUsed() throws IOException {
+        AssetService service = lazyAssetService(2);
+
+        Asset btc = service.assets().get("BTC");
+        service.assets().get("ETH");
+        service.assets().get("BTC");
+        service.assets().get("USDT");
+
+        assertEquals(2, service.hydratedAssets());
+        assertSame(btc, service.assets().get("BTC"));
+        assertEquals("Ethereum", service.assets().get("ETH").name());
+        assertEquals(2, service.hydratedAssets());
+        service.close();
+    }
 }
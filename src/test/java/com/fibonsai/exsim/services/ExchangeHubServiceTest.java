@@ -0,0 +1,391 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fibonsai.exsim.catalog.CatalogDiff;
+import com.fibonsai.exsim.catalog.CatalogSnapshot;
+import com.fibonsai.exsim.catalog.ListingIndex;
+import com.fibonsai.exsim.catalog.PairIndex;
+import com.fibonsai.exsim.config.JacksonMapperConfigurator;
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.dto.BalanceMode;
+import com.fibonsai.exsim.dto.exchange.Exchange;
+import com.fibonsai.exsim.marketdata.TickModelType;
+import com.fibonsai.exsim.matching.MatchListener;
+import com.fibonsai.exsim.matching.Side;
+import com.fibonsai.exsim.matching.TimeInForce;
+import com.fibonsai.exsim.util.AssetRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeHubServiceTest {
+
+    private ExchangeHubService exchangeHubService;
+    private AssetService assetService;
+    private ObjectMapper mapper;
+    private MarketDataService marketDataService;
+    private TradeService tradeService;
+
+    @BeforeEach
+    void setUp() {
+        mapper = new JacksonMapperConfigurator().objectMapper();
+        assetService = new AssetService(mapper, new AssetRegistry());
+        assetService.loadFiatAssets();
+        marketDataService = marketDataService();
+        tradeService = tradeService();
+        exchangeHubService = new ExchangeHubService(new AccountService(walletService()), marketDataService,
+                tradeService, assetService, mapper);
+        exchangeHubService.exchangesData = "exchanges.json";
+        exchangeHubService.exchangesPairsData = "pairs_by_exchange.json";
+    }
+
+    @AfterEach
+    void tearDown() {
+        marketDataService.stop();
+        tradeService.stop();
+    }
+
+    @Test
+    void testLoadExchangesFromFile() {
+        exchangeHubService.loadExchangesFromFile();
+
+        Exchange bitstamp = exchangeHubService.exchanges().get("bitstamp");
+        assertNotNull(bitstamp);
+        assertEquals("Bitstamp", bitstamp.name());
+        assertEquals(2431L, bitstamp.id());
+        assertFalse(bitstamp.itemTypes().isEmpty());
+        assertTrue(bitstamp.assetPairs().stream().anyMatch(pair ->
+                pair.baseAsset().symbol().equals("EUR") && pair.quoteAsset().symbol().equals("USD")));
+    }
+
+    @Test
+    void testLoadExchangesFromFile_removesExchangesWithoutPairs() {
+        exchangeHubService.loadExchangesFromFile();
+
+        assertFalse(exchangeHubService.exchanges().isEmpty());
+        // listed in pairs_by_exchange.json without pairs
+        assertNull(exchangeHubService.exchanges().get("aax"));
+        for (Exchange exchange : exchangeHubService.exchanges().values()) {
+            for (AssetPair pair : exchange.assetPairs()) {
+                assertNotNull(pair.baseAsset());
+                assertNotNull(pair.quoteAsset());
+            }
+        }
+    }
+
+    @Test
+    void testLoadExchangesFromFile_indexesListings() {
+        exchangeHubService.loadExchangesFromFile();
+        ListingIndex listings = exchangeHubService.listingIndex();
+
+        List<String> listingEurUsd = exchangeHubService.exchanges().entrySet().stream()
+                .filter(entry -> entry.getValue().assetPairs().stream()
+                        .anyMatch(pair -> pair.simpleName().equals("EUR/USD")))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        assertFalse(listingEurUsd.isEmpty());
+        assertEquals(listingEurUsd, listings.exchanges(listings.exchangesListing("EUR/USD")));
+        int eur = assetService.assetId("EUR");
+        int usd = assetService.assetId("USD");
+        assertEquals(listings.exchangesListing("EUR/USD"), listings.exchangesListing(eur, usd));
+        assertTrue(listings.lists(listings.exchangeId("bitstamp"), eur, usd));
+
+        List<String> listingEur = exchangeHubService.exchanges().entrySet().stream()
+                .filter(entry -> entry.getValue().assetPairs().stream()
+                        .anyMatch(pair -> pair.baseAssetId() == eur || pair.quoteAssetId() == eur))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        assertEquals(listingEur, listings.exchanges(listings.exchangesListingAsset(eur)));
+        assertTrue(listings.exchangesListing("EUR/NOT_LISTED").isEmpty());
+    }
+
+    @Test
+    void testLoadExchangesFromFile_lazyAssetsStayIndexed() {
+        AssetService lazyAssets = new AssetService(mapper, new AssetRegistry());
+        lazyAssets.pairsData = "test_assets.json";
+        lazyAssets.lazyAssets = true;
+        lazyAssets.assetsCacheSize = 8;
+        lazyAssets.init();
+        exchangeHubService = new ExchangeHubService(new AccountService(walletService()), marketDataService,
+                tradeService, lazyAssets, mapper);
+        exchangeHubService.exchangesData = "exchanges.json";
+        exchangeHubService.exchangesPairsData = "pairs_by_exchange.json";
+
+        exchangeHubService.loadExchangesFromFile();
+
+        AssetPair btcUsd = exchangeHubService.exchanges().values().stream()
+                .flatMap(exchange -> exchange.assetPairs().stream())
+                .filter(pair -> pair.simpleName().equals("BTC/USD"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(lazyAssets.ref("BTC"), btcUsd.baseAsset());
+        assertEquals(0, lazyAssets.hydratedAssets());
+    }
+
+    @Test
+    void testLoadExchangesFromFile_publishesImmutableSnapshot() {
+        exchangeHubService.loadExchangesFromFile();
+        CatalogSnapshot snapshot = exchangeHubService.catalog();
+
+        assertEquals(1L, snapshot.version());
+        assertSame(snapshot.exchanges(), exchangeHubService.exchanges());
+        Exchange bitstamp = snapshot.exchanges().get("bitstamp");
+        assertThrows(UnsupportedOperationException.class, () -> bitstamp.assetPairs().clear());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.exchanges().remove("bitstamp"));
+        assertSame(snapshot.pairIndexes().get("bitstamp"), exchangeHubService.pairIndex("bitstamp"));
+    }
+
+    @Test
+    void testReload_publishesNewVersion() {
+        exchangeHubService.loadExchangesFromFile();
+        CatalogSnapshot previous = exchangeHubService.catalog();
+
+        CatalogDiff diff = exchangeHubService.reload().block();
+
+        assertNotNull(diff);
+        assertTrue(diff.isEmpty());
+        CatalogSnapshot reloaded = exchangeHubService.catalog();
+        assertEquals(previous.version() + 1, reloaded.version());
+        assertEquals(reloaded.version(), diff.toVersion());
+        assertEquals(previous.exchanges().keySet(), reloaded.exchanges().keySet());
+        assertNotSame(previous.exchanges(), reloaded.exchanges());
+        assertNotNull(previous.exchanges().get("bitstamp"));
+    }
+
+    @Test
+    void testReload_appliesDiffToOrderBooks() {
+        ExchangeHubService hub = new ExchangeHubService(new AccountService(walletService()),
+                marketDataService, tradeService, assetService, mapper);
+        hub.exchangesData = "exchanges.json";
+        hub.exchangesPairsData = "test_pairs.json";
+        AssetPair eurUsd = pair("EUR", "USD");
+        AssetPair gbpUsd = pair("GBP", "USD");
+        AssetPair chfUsd = pair("CHF", "USD");
+        try {
+            hub.loadExchangesFromFile();
+            tradeService.start(hub.pairIndexes());
+            int bitstampEurUsd = tradeService.bookId("bitstamp", eurUsd).orElseThrow();
+            assertTrue(tradeService.bookId("kraken", eurUsd).isPresent());
+
+            hub.exchangesPairsData = "test_pairs_reloaded.json";
+            CatalogDiff diff = hub.reload().block();
+
+            assertNotNull(diff);
+            assertEquals(Set.of("coinbase"), diff.addedExchanges());
+            assertEquals(Set.of("kraken"), diff.removedExchanges());
+            assertEquals(Map.of("bitstamp", Set.of(chfUsd), "coinbase", Set.of(eurUsd)), diff.addedPairs());
+            assertEquals(Map.of("bitstamp", Set.of(gbpUsd), "kraken", Set.of(eurUsd)), diff.removedPairs());
+            assertEquals(Set.of("CHF"), diff.addedAssets());
+            assertEquals(Set.of("GBP"), diff.removedAssets());
+
+            assertEquals(Optional.of(bitstampEurUsd), tradeService.bookId("bitstamp", eurUsd));
+            assertTrue(tradeService.bookId("bitstamp", gbpUsd).isEmpty());
+            assertTrue(tradeService.bookId("kraken", eurUsd).isEmpty());
+            assertTrue(tradeService.bookId("coinbase", eurUsd).isPresent());
+            PairIndex bitstamp = hub.pairIndex("bitstamp");
+            assertEquals(tradeService.bookId("bitstamp", chfUsd).orElseThrow(),
+                    hub.bookId("bitstamp", bitstamp.pairId(chfUsd)));
+            assertEquals(tradeService.bookId("bitstamp", eurUsd).orElseThrow(),
+                    hub.bookId("bitstamp", bitstamp.pairId(eurUsd)));
+            assertEquals(-1, hub.bookId("kraken", 0));
+        } finally {
+            tradeService.stop();
+        }
+    }
+
+    @Test
+    void testStop_rejectsCallsWithBookIdsOfTheStoppedEngine() {
+        ExchangeHubService hub = new ExchangeHubService(new AccountService(walletService()),
+                marketDataService, tradeService, assetService, mapper);
+        hub.exchangesData = "exchanges.json";
+        hub.exchangesPairsData = "test_pairs.json";
+        hub.loadExchangesFromFile();
+        tradeService.start(hub.pairIndexes());
+        AssetPair eurUsd = pair("EUR", "USD");
+        int bookId = tradeService.bookId("bitstamp", eurUsd).orElseThrow();
+
+        tradeService.stop();
+
+        assertTrue(tradeService.bookId("bitstamp", eurUsd).isEmpty());
+        assertThrows(IllegalStateException.class,
+                () -> tradeService.submit(bookId, 1, Side.BUY, 100, 1, TimeInForce.GTC));
+        assertThrows(IllegalStateException.class, () -> tradeService.cancel(bookId, 1));
+        assertThrows(IllegalStateException.class,
+                () -> tradeService.register("bitstamp", eurUsd, MatchListener.NOOP));
+    }
+
+    @Test
+    void testReload_routesPairIdsOfEverySnapshotToTheirBook() throws InterruptedException {
+        ExchangeHubService hub = new ExchangeHubService(new AccountService(walletService()),
+                marketDataService, tradeService, assetService, mapper);
+        hub.exchangesData = "exchanges.json";
+        hub.exchangesPairsData = "test_pairs.json";
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        AtomicReference<String> misrouted = new AtomicReference<>();
+        Thread router = new Thread(() -> {
+            while (reloading.get() && misrouted.get() == null) {
+                CatalogSnapshot snapshot = hub.catalog();
+                PairIndex bitstamp = snapshot.pairIndexes().get("bitstamp");
+                for (int pairId = 0; bitstamp != null && pairId < bitstamp.size(); pairId++) {
+                    AssetPair pair = bitstamp.pair(pairId);
+                    int routed = snapshot.bookId("bitstamp", pairId);
+                    // while the snapshot is current, a book other than the one of the pair is a misrouting
+                    Optional<Integer> book = tradeService.bookId("bitstamp", pair);
+                    if (routed < 0 || book.isPresent() && book.get() != routed && hub.catalog() == snapshot) {
+                        misrouted.set("%s routed to book %d in version %d".formatted(pair, routed,
+                                snapshot.version()));
+                    }
+                }
+            }
+        });
+        try {
+            hub.loadExchangesFromFile();
+            tradeService.start(hub.pairIndexes());
+            hub.exchangesPairsData = "test_pairs_reloaded.json";
+            hub.reload().block();
+            router.start();
+            for (int reload = 0; reload < 50; reload++) {
+                hub.exchangesPairsData = reload % 2 == 0 ? "test_pairs.json" : "test_pairs_reloaded.json";
+                hub.reload().block();
+            }
+        } finally {
+            reloading.set(false);
+            router.join();
+            tradeService.stop();
+        }
+        assertNull(misrouted.get());
+    }
+
+    private AssetPair pair(String base, String quote) {
+        return AssetPair.builder()
+                .baseAsset(assetService.assets().get(base))
+                .quoteAsset(assetService.assets().get(quote))
+                .build();
+    }
+
+    @Test
+    void testLoadExchangesFromFile_missingFile() {
+        exchangeHubService.exchangesData = "missing.json";
+
+        assertThrows(RuntimeException.class, exchangeHubService::loadExchangesFromFile);
+    }
+
+    private ExchangeHubService exchangeHubService(TradeService tradeService, String catalogCacheDir) {
+        ExchangeHubService hub = new ExchangeHubService(new AccountService(walletService()),
+                marketDataService, tradeService, assetService, mapper);
+        hub.exchangesData = "exchanges.json";
+        hub.exchangesPairsData = "pairs_by_exchange.json";
+        hub.pairsData = "top_assets_with_metadata.json";
+        hub.catalogCacheDir = catalogCacheDir;
+        return hub;
+    }
+
+    private WalletService walletService() {
+        WalletService walletService = new WalletService(assetService);
+        walletService.balanceMode = BalanceMode.BIG_DECIMAL;
+        walletService.eventsRetention = 16;
+        walletService.logDir = "";
+        walletService.init();
+        return walletService;
+    }
+
+    private MarketDataService marketDataService() {
+        MarketDataService marketDataService = new MarketDataService(assetService);
+        marketDataService.threads = 1;
+        marketDataService.ringSize = 16;
+        marketDataService.tickIntervalMillis = 1_000L;
+        marketDataService.model = TickModelType.GEOMETRIC_BROWNIAN_MOTION;
+        marketDataService.initialPrice = 100.0;
+        marketDataService.volatility = 0.6;
+        return marketDataService;
+    }
+
+    private static TradeService tradeService() {
+        TradeService tradeService = new TradeService();
+        tradeService.shards = 1;
+        tradeService.ringSize = 1024;
+        tradeService.bookCapacity = 16;
+        tradeService.bookLevelCapacity = 16;
+        return tradeService;
+    }
+
+    @Test
+    void testStart_reportsPhaseTimings() {
+        ExchangeHubService hub = exchangeHubService(tradeService, "");
+
+        try {
+            assertNotNull(hub.start().block());
+
+            assertEquals(Set.of("assets", "exchanges", "pairs", "resolve", "index", "market data", "matching",
+                    "publish", "accounts"), hub.startupTimings().keySet());
+            assertFalse(hub.exchanges().get("bitstamp").assetPairs().isEmpty());
+            AssetPair pair = hub.exchanges().get("bitstamp").assetPairs().iterator().next();
+            assertTrue(tradeService.bookId("bitstamp", pair).isPresent());
+            PairIndex pairIndex = hub.pairIndex("bitstamp");
+            assertEquals(hub.exchanges().get("bitstamp").assetPairs().size(), pairIndex.size());
+            int pairId = pairIndex.pairId(pair.simpleName());
+            assertEquals(pairId, pairIndex.pairId(pair));
+            assertEquals(tradeService.bookId("bitstamp", pair).orElseThrow(), hub.bookId("bitstamp", pairId));
+            assertTrue(marketDataService.lastPrice("bitstamp", pair) > 0);
+            assertEquals(marketDataService.streamId("bitstamp", pair), marketDataService.streamId("bitstamp", pairId));
+        } finally {
+            tradeService.stop();
+        }
+    }
+
+    @Test
+    void testStart_usesCatalogCacheOnRestart(@TempDir Path cacheDir) {
+        TradeService firstTradeService = tradeService();
+        ExchangeHubService first = exchangeHubService(firstTradeService, cacheDir.toString());
+        try {
+            first.start().block();
+        } finally {
+            firstTradeService.stop();
+        }
+        assertTrue(first.startupTimings().containsKey("catalog store"));
+
+        AssetService firstAssetService = assetService;
+        assetService = new AssetService(mapper, new AssetRegistry());
+        TradeService secondTradeService = tradeService();
+        ExchangeHubService second = exchangeHubService(secondTradeService, cacheDir.toString());
+        try {
+            second.start().block();
+        } finally {
+            secondTradeService.stop();
+        }
+
+        assertTrue(second.startupTimings().containsKey("catalog"));
+        assertFalse(second.startupTimings().containsKey("exchanges"));
+        assertEquals(first.exchanges().keySet(), second.exchanges().keySet());
+        first.exchanges().forEach((name, exchange) ->
+                assertEquals(exchange.assetPairs(), second.exchanges().get(name).assetPairs(), name));
+        assertEquals(firstAssetService.assets().keySet(), assetService.assets().keySet());
+    }
+}
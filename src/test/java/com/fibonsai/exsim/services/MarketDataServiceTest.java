@@ -0,0 +1,182 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.services;
+
+import com.fibonsai.exsim.catalog.CatalogDiff;
+import com.fibonsai.exsim.catalog.PairIndex;
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.marketdata.DepthUpdate;
+import com.fibonsai.exsim.marketdata.TickFile;
+import com.fibonsai.exsim.marketdata.TickModelType;
+import com.fibonsai.exsim.marketdata.TickRing;
+import com.fibonsai.exsim.marketdata.Ticker;
+import com.fibonsai.exsim.matching.Side;
+import com.fibonsai.exsim.util.AssetUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataServiceTest {
+
+    private MarketDataService marketDataService;
+    private PairIndex pairIndex;
+
+    @BeforeEach
+    void setUp() {
+        marketDataService = new MarketDataService(null);
+        marketDataService.threads = 1;
+        marketDataService.ringSize = 8;
+        marketDataService.tickIntervalMillis = 1L;
+        marketDataService.model = TickModelType.MEAN_REVERSION;
+        marketDataService.initialPrice = 100.0;
+        marketDataService.volatility = 0.5;
+        marketDataService.reversionSpeed = 10.0;
+        marketDataService.depthLevels = 5;
+        marketDataService.depthIntervalMillis = 1L;
+        marketDataService.depthBufferSize = 16;
+        marketDataService.tickerIntervalMillis = 1L;
+        pairIndex = PairIndex.of(List.of(pair("EUR", "USD"), pair("GBP", "USD")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        marketDataService.stop();
+    }
+
+    private static AssetPair pair(String base, String quote) {
+        return AssetPair.builder()
+                .baseAsset(AssetUtil.fromCurrency(Currency.getInstance(base)))
+                .quoteAsset(AssetUtil.fromCurrency(Currency.getInstance(quote)))
+                .build();
+    }
+
+    @Test
+    void start_generatesTicksForEveryPair() throws InterruptedException {
+        marketDataService.start(Map.of("bitstamp", pairIndex));
+
+        int stream = marketDataService.streamId("bitstamp", pair("GBP", "USD"));
+        assertEquals(marketDataService.streamId("bitstamp", 1), stream);
+        assertEquals(-1, marketDataService.streamId("kraken", 0));
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (marketDataService.ticks().sequence(stream) < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(marketDataService.ticks().sequence(stream) >= 4);
+        assertTrue(marketDataService.lastPrice("bitstamp", pair("GBP", "USD")) > 0);
+    }
+
+    @Test
+    void apply_keepsTheRingAndTheStreamsOfListedPairs() {
+        marketDataService.spareStreams = 1;
+        marketDataService.start(Map.of("bitstamp", pairIndex));
+        TickRing ring = marketDataService.ticks();
+        int eurUsd = marketDataService.streamId("bitstamp", pair("EUR", "USD"));
+        int gbpUsd = marketDataService.streamId("bitstamp", pair("GBP", "USD"));
+
+        PairIndex reloaded = PairIndex.of(List.of(pair("CHF", "USD"), pair("EUR", "USD")));
+        marketDataService.apply(diff(Map.of("bitstamp", Set.of(pair("CHF", "USD"))),
+                Map.of("bitstamp", Set.of(pair("GBP", "USD")))), Map.of("bitstamp", reloaded));
+
+        assertSame(ring, marketDataService.ticks());
+        assertEquals(eurUsd, marketDataService.streamId("bitstamp", pair("EUR", "USD")));
+        assertEquals(eurUsd, marketDataService.streamId("bitstamp", reloaded.pairId(pair("EUR", "USD"))));
+        int chfUsd = marketDataService.streamId("bitstamp", pair("CHF", "USD"));
+        assertEquals(2, chfUsd);
+        assertEquals(-1, marketDataService.streamId("bitstamp", pair("GBP", "USD")));
+
+        // the stream retired by the previous reload is taken once the spare stream is used
+        marketDataService.apply(diff(Map.of("bitstamp", Set.of(pair("GBP", "USD"))), Map.of()),
+                Map.of("bitstamp", PairIndex.of(List.of(pair("CHF", "USD"), pair("EUR", "USD"), pair("GBP", "USD")))));
+        assertSame(ring, marketDataService.ticks());
+        assertEquals(gbpUsd, marketDataService.streamId("bitstamp", pair("GBP", "USD")));
+
+        marketDataService.apply(diff(Map.of("kraken", Set.of(pair("EUR", "USD"))), Map.of()),
+                Map.of("bitstamp", pairIndex, "kraken", PairIndex.of(List.of(pair("EUR", "USD")))));
+        assertNotSame(ring, marketDataService.ticks());
+        assertTrue(marketDataService.streamId("kraken", pair("EUR", "USD")) >= 0);
+    }
+
+    private static CatalogDiff diff(Map<String, Set<AssetPair>> added, Map<String, Set<AssetPair>> removed) {
+        return new CatalogDiff(1L, 2L, Set.of(), Set.of(), added, removed, Set.of(), Set.of());
+    }
+
+    @Test
+    void replay_writesRecordedTicksIntoTheRing(@TempDir Path dir) {
+        marketDataService.start(Map.of("bitstamp", pairIndex));
+        AssetPair eurUsd = pair("EUR", "USD");
+        int eurUsdId = pairIndex.pairId(eurUsd);
+        Path file = dir.resolve("bitstamp" + TickFile.EXTENSION);
+        List<String> symbols = pairIndex.pairs().stream().map(AssetPair::simpleName).toList();
+        long[] times = {1_000L, 2_000L, 3_000L};
+        int[] pairIds = {eurUsdId, eurUsdId, 7};
+        long[] prices = {105_000L, 107_500L, 1L};
+        assertDoesNotThrow(() -> TickFile.write(file, "bitstamp", symbols, 3, times, pairIds,
+                prices, new long[3]));
+
+        assertEquals(3L, marketDataService.replay(List.of(file), 0.0).block());
+
+        int stream = marketDataService.streamId("bitstamp", eurUsd);
+        assertEquals(2L, marketDataService.ticks().sequence(stream));
+        assertEquals(2_000L, marketDataService.ticks().lastTime(stream));
+        assertEquals(107_500L * Math.pow(10, -eurUsd.priceScale()), marketDataService.lastPrice("bitstamp", eurUsd),
+                1e-9);
+    }
+
+    @Test
+    void replay_mapsThePairsOfTheFileToTheCurrentPairIndex(@TempDir Path dir) {
+        marketDataService.start(Map.of("bitstamp", pairIndex));
+        AssetPair gbpUsd = pair("GBP", "USD");
+        Path file = dir.resolve("bitstamp" + TickFile.EXTENSION);
+        // recorded with another pair index: GBP/USD first, and a pair the exchange no longer lists
+        List<String> symbols = List.of("GBP/USD", "CHF/USD");
+        assertDoesNotThrow(() -> TickFile.write(file, "bitstamp", symbols, 2, new long[]{1_000L, 2_000L},
+                new int[]{0, 1}, new long[]{127_000L, 1L}, new long[2]));
+
+        assertEquals(2L, marketDataService.replay(List.of(file), 0.0).block());
+
+        assertEquals(1L, marketDataService.ticks().sequence(marketDataService.streamId("bitstamp", gbpUsd)));
+        assertEquals(0L, marketDataService.ticks().sequence(marketDataService.streamId("bitstamp",
+                pair("EUR", "USD"))));
+    }
+
+    @Test
+    void depth_andTicker_streamTheBooksOfIndexedPairs() {
+        marketDataService.bookListener("bitstamp", pair("EUR", "USD")).onLevelChanged(Side.BUY, 99L, 5L);
+        marketDataService.start(Map.of("bitstamp", pairIndex));
+
+        DepthUpdate snapshot = marketDataService.depth("bitstamp", pair("EUR", "USD")).blockFirst();
+        assertNotNull(snapshot);
+        assertTrue(snapshot.snapshot());
+        assertEquals(99L, snapshot.bidPrice(0));
+        Ticker ticker = marketDataService.ticker("bitstamp", pair("EUR", "USD")).blockFirst();
+        assertNotNull(ticker);
+        assertEquals(99L, ticker.bidPrice());
+        assertThrows(IllegalArgumentException.class,
+                () -> marketDataService.depth("kraken", pair("EUR", "USD")).blockFirst());
+
+        marketDataService.start(Map.of("kraken", pairIndex));
+        assertThrows(IllegalArgumentException.class,
+                () -> marketDataService.depth("bitstamp", pair("EUR", "USD")).blockFirst());
+    }
+}
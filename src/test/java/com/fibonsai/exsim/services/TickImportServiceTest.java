@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2025 fibonsai.com
+ *  All rights reserved.
+ *
+ *  This source is subject to the Apache License, Version 2.0.
+ *  Please see the LICENSE file for more information.
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.fibonsai.exsim.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fibonsai.exsim.config.JacksonMapperConfigurator;
+import com.fibonsai.exsim.dto.AssetPair;
+import com.fibonsai.exsim.marketdata.TickFile;
+import com.fibonsai.exsim.util.AssetRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickImportServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ExchangeHubService exchangeHubService;
+    private TickImportService tickImportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new JacksonMapperConfigurator().objectMapper();
+        AssetService assetService = new AssetService(mapper, new AssetRegistry());
+        assetService.loadFiatAssets();
+        exchangeHubService = new ExchangeHubService(new AccountService(new WalletService(assetService)),
+                new MarketDataService(assetService), new TradeService(), assetService, mapper);
+        exchangeHubService.exchangesData = "exchanges.json";
+        exchangeHubService.exchangesPairsData = "test_pairs.json";
+        exchangeHubService.loadExchangesFromFile();
+        tickImportService = new TickImportService(exchangeHubService);
+        tickImportService.chunkSize = 64;
+    }
+
+    @Test
+    void importCsv_writesOneTickFilePerExchange() throws IOException {
+        Path csv = dir.resolve("ticks.csv");
+        Files.writeString(csv, String.join("\r\n",
+                "symbol,Exchange,time,price,size,side",
+                "EUR/USD,Bitstamp,1700000000000,1.0850,1000,buy",
+                "GBP-USD,bitstamp,1700000000001,1.2701,250.5,sell",
+                "EUR/USD,kraken,1700000000.002,1.0851,10,buy",
+                "EUR/USD,bitstamp,1699999999999,1.0849,5,sell",
+                "EUR/USD,unknown,1700000000003,1.0850,1,buy",
+                "CHF/USD,bitstamp,1700000000004,1.1000,1,buy",
+                "EUR/USD,bitstamp,not a time,1.0850,1,buy",
+                "EUR/USD,bitstamp,1700000000005,1.0850",
+                "EUR/USD,kraken,1700000000006,1.08500000,2,sell",
+                ""));
+
+        TickImportService.Result result = tickImportService.importCsv(csv, dir.resolve("ticks")).block();
+
+        assertNotNull(result);
+        assertEquals(9L, result.rows());
+        assertEquals(4L, result.skipped());
+        assertEquals(Map.of("bitstamp", 3, "kraken", 2), result.ticks());
+
+        TickFile bitstamp = TickFile.open(dir.resolve("ticks").resolve("bitstamp" + TickFile.EXTENSION));
+        assertEquals("bitstamp", bitstamp.exchange());
+        assertEquals(3, bitstamp.count());
+        assertEquals(exchangeHubService.pairIndex("bitstamp").pairs().stream().map(AssetPair::simpleName).toList(),
+                bitstamp.pairs());
+        // sorted by time
+        assertEquals(1699999999999L, bitstamp.time(0));
+        assertEquals(1700000000000L, bitstamp.time(1));
+        AssetPair gbpUsd = exchangeHubService.pairIndex("bitstamp").pair(bitstamp.pairId(2));
+        assertEquals("GBP/USD", gbpUsd.simpleName());
+        assertEquals(12701L * (long) Math.pow(10, gbpUsd.priceScale() - 4), bitstamp.priceTicks(2));
+        assertEquals(2505L * (long) Math.pow(10, gbpUsd.quantityScale() - 1), bitstamp.size(2));
+
+        TickFile kraken = TickFile.open(dir.resolve("ticks").resolve("kraken" + TickFile.EXTENSION));
+        assertEquals(1700000000002L, kraken.time(0));
+        assertEquals(kraken.priceTicks(1) * 10851, kraken.priceTicks(0) * 10850);
+    }
+
+    @Test
+    void importCsv_rejectsHeaderWithoutRequiredColumns() throws IOException {
+        Path csv = dir.resolve("ticks.csv");
+        Files.writeString(csv, "time,exchange,symbol,price\n1,bitstamp,EUR/USD,1\n");
+
+        assertThrows(IllegalArgumentException.class, () -> tickImportService.importCsv(csv, dir).block());
+    }
+}
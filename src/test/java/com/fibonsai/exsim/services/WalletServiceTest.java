@@ -14,21 +14,35 @@
 
 package com.fibonsai.exsim.services;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fibonsai.exsim.dto.Event;
 import com.fibonsai.exsim.dto.Wallet;
+import com.fibonsai.exsim.dto.WalletEvent;
 import com.fibonsai.exsim.dto.asset.Asset;
 import com.fibonsai.exsim.types.DepositFundsParams;
+import com.fibonsai.exsim.types.WalletTransaction;
 import com.fibonsai.exsim.types.WithdrawFundsParams;
 import com.fibonsai.exsim.util.AssetUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
 import javax.naming.InsufficientResourcesException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static com.fibonsai.exsim.dto.Event.EventType.ERROR;
 import static com.fibonsai.exsim.dto.WalletState.*;
@@ -98,7 +112,7 @@ public class WalletServiceTest {
                 })
                 .verifyComplete()
             )
-            .expectNextMatches(event -> event.event() instanceof String e && e.contains(owner))
+            .expectNextMatches(event -> event.event() instanceof WalletEvent e && e.owner().equals(owner))
             .thenCancel()
             .verify();
     }
@@ -118,7 +132,7 @@ public class WalletServiceTest {
                 })
                 .verifyComplete()
             )
-            .expectNextMatches(event -> event.event() instanceof String e && e.contains(owner))
+            .expectNextMatches(event -> event.event() instanceof WalletEvent e && e.owner().equals(owner))
             .thenCancel()
             .verify();
     }
@@ -139,7 +153,7 @@ public class WalletServiceTest {
                 })
                 .verifyComplete()
             )
-            .expectNextMatches(event -> event.event() instanceof String e && e.contains(owner))
+            .expectNextMatches(event -> event.event() instanceof WalletEvent e && e.owner().equals(owner))
             .thenCancel()
             .verify();
     }
@@ -172,25 +186,80 @@ public class WalletServiceTest {
             .verify();
     }
 
+    @Test
+    void createWallet_concurrentAssetsOnSameAddress_onlyOneCreated() throws Exception {
+        String owner = "testOwnerRace";
+        String address = UUID.randomUUID().toString();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch ready = new CountDownLatch(1);
+            List<Future<Boolean>> created = Stream.of(USD, EUR)
+                    .map(asset -> executor.submit(() -> {
+                        ready.await();
+                        return walletService.createWallet(owner, asset, address)
+                                .map(wallet -> true)
+                                .onErrorReturn(false)
+                                .block();
+                    }))
+                    .toList();
+            ready.countDown();
+
+            assertTrue(created.get(0).get() ^ created.get(1).get());
+        } finally {
+            executor.shutdown();
+        }
+        int wallets = Stream.of(USD, EUR)
+                .mapToInt(asset -> walletService.getWallet(owner, asset).hasElement().block() ? 1 : 0)
+                .sum();
+        assertEquals(1, wallets);
+    }
+
     @Test
     void createWallet_throwIfNotAllowedMultiAddress() {
         String owner = "testOwner";
         walletService.assetWithOneAddress(Set.of(USD.name()));
 
-        StepVerifier.create(walletService.events().take(1)).then(() ->
-            StepVerifier.create(walletService.createWallet(owner, USD)).then(() ->
-                StepVerifier.create(walletService.createWallet(owner, USD))
-                    .consumeErrorWith(error -> {
-                        assertTrue(error.getMessage().contains("already exists"));
-                        assertInstanceOf(error.getClass(), IllegalArgumentException.class);
-                    })
-                    .verify()
-                )
-            )
+        StepVerifier.create(walletService.createWallet(owner, USD))
+                .consumeNextWith(wallet -> assertEquals(owner, wallet.owner()))
+                .verifyComplete();
+        StepVerifier.create(walletService.createWallet(owner, USD))
+                .consumeErrorWith(error -> {
+                    assertTrue(error.getMessage().contains("Multiple wallets addresses not allowed"));
+                    assertInstanceOf(IllegalArgumentException.class, error);
+                })
+                .verify();
+
+        StepVerifier.create(walletService.events().take(2))
+            .consumeNextWith(event -> assertNotEquals(ERROR, event.type()))
             .consumeNextWith(event -> assertEquals(IllegalArgumentException.class, Objects.requireNonNull(event.error()).getClass()))
             .verifyComplete();
     }
 
+    @Test
+    void getWallet_byAsset_emptyWhenMissing() {
+        String owner = "testOwner";
+
+        StepVerifier.create(walletService.getWallet(owner, USD)).verifyComplete();
+
+        StepVerifier.create(walletService.createWallet(owner, USD))
+                .consumeNextWith(wallet -> assertEquals(USD, wallet.asset()))
+                .verifyComplete();
+        StepVerifier.create(walletService.getWallet(owner, USD))
+                .consumeNextWith(wallet -> assertEquals(owner, wallet.owner()))
+                .verifyComplete();
+        StepVerifier.create(walletService.getWallet(owner, EUR)).verifyComplete();
+
+        StepVerifier.create(walletService.createWallet(owner, USD))
+                .consumeNextWith(wallet -> assertEquals(USD, wallet.asset()))
+                .verifyComplete();
+        StepVerifier.create(walletService.getWallet(owner, USD))
+                .consumeErrorWith(error -> assertInstanceOf(IllegalArgumentException.class, error))
+                .verify();
+
+        walletService.reset();
+        StepVerifier.create(walletService.getWallet(owner, USD)).verifyComplete();
+    }
+
     @Test
     void transaction_throwIllegalStateException() {
         String owner = "testOwner";
@@ -323,4 +392,180 @@ public class WalletServiceTest {
             .thenCancel()
             .verify();
     }
+
+    @Test
+    void transactionBatch_appliesPerWalletAndSendsOneEvent() {
+        String owner = "testOwner";
+        String otherOwner = "otherOwner";
+        Wallet usdWallet = walletService.createWallet(owner, USD).block();
+        Wallet otherWallet = walletService.createDefaultWallet(otherOwner).block();
+        assertNotNull(usdWallet);
+        assertNotNull(otherWallet);
+        usdWallet.setState(ONLINE);
+        otherWallet.setState(ONLINE);
+
+        var batch = Flux.just(
+                new WalletTransaction(owner, usdWallet.address(), depositTenUsd),
+                new WalletTransaction(otherOwner, USD, deposit100Usd),
+                new WalletTransaction(owner, usdWallet.address(), withdrawTenUsd),
+                new WalletTransaction(owner, usdWallet.address(), withdrawTenUsd),
+                new WalletTransaction(owner, "unknown", depositTenUsd),
+                new WalletTransaction(otherOwner, USD, withdrawTenUsd));
+
+        StepVerifier.create(walletService.transactionBatch(batch))
+                .expectNext(usdWallet, otherWallet)
+                .verifyComplete();
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(usdWallet.amount()));
+        assertEquals(0, BigDecimal.valueOf(90).compareTo(otherWallet.amount()));
+        StepVerifier.create(walletService.events().take(3))
+                .expectNextCount(2)
+                .consumeNextWith(event -> {
+                    assertEquals(ERROR, event.type());
+                    assertTrue(event.event().toString().contains("\"applied\": 4, \"failed\": 2"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void events_areSequencedWalletSnapshots() throws Exception {
+        String owner = "testOwner";
+        Wallet wallet = walletService.createWallet(owner, USD).block();
+        assertNotNull(wallet);
+        walletService.setState(wallet, ONLINE).block();
+        walletService.transaction(owner, USD, depositTenUsd).block();
+
+        List<Event> events = walletService.events().take(3).collectList().block();
+
+        assertNotNull(events);
+        List<WalletEvent> walletEvents = events.stream().map(event -> (WalletEvent) event.event()).toList();
+        assertTrue(walletEvents.get(0).sequence() < walletEvents.get(1).sequence());
+        assertTrue(walletEvents.get(1).sequence() < walletEvents.get(2).sequence());
+        assertEquals(String.valueOf(walletEvents.get(2).sequence()), events.get(2).traceId());
+        assertEquals(OFFLINE, walletEvents.get(0).state());
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletEvents.get(1).amount()));
+        assertEquals(0, BigDecimal.TEN.compareTo(walletEvents.get(2).amount()));
+
+        JsonNode json = new ObjectMapper().readTree(walletEvents.get(2).toJson());
+        assertEquals(owner, json.get("owner").asText());
+        assertEquals("ONLINE", json.get("state").asText());
+        assertEquals("USD", json.get("asset").asText());
+    }
+
+    @Test
+    void events_replayFromSequence() {
+        String owner = "testOwner";
+        Wallet wallet = walletService.createWallet(owner, USD).block();
+        assertNotNull(wallet);
+        walletService.setState(wallet, ONLINE).block();
+        long from = walletService.lastEventSequence();
+        walletService.transaction(owner, USD, depositTenUsd).block();
+
+        StepVerifier.create(walletService.events(from).take(2))
+                .assertNext(event -> assertEquals(String.valueOf(from), event.traceId()))
+                .assertNext(event -> assertEquals(0, BigDecimal.TEN.compareTo(((WalletEvent) event.event()).amount())))
+                .verifyComplete();
+    }
+
+    private WalletService walletServiceWithLog(Path logDir) {
+        WalletService service = new WalletService(assetService);
+        service.balanceMode = walletService.balanceMode;
+        service.eventsRetention = 16;
+        service.logDir = logDir.toString();
+        service.logSegmentSize = 4096;
+        service.logFlushIntervalMs = 1L;
+        service.init();
+        service.start();
+        return service;
+    }
+
+    @Test
+    void start_recoversWalletsFromLog(@TempDir Path logDir) throws Exception {
+        String owner = "testOwner";
+        WalletService first = walletServiceWithLog(logDir);
+        Wallet created = first.createWallet(owner, USD).block();
+        assertNotNull(created);
+        first.setState(created, ONLINE).block();
+        first.transaction(owner, USD, deposit100Usd).block();
+        first.transaction(owner, USD, withdrawTenUsd).block();
+        first.stop();
+
+        WalletService second = walletServiceWithLog(logDir);
+        Wallet recovered = second.getWallet(owner, USD).block();
+
+        assertNotNull(recovered);
+        assertEquals(created.address(), recovered.address());
+        assertEquals(ONLINE, recovered.state());
+        assertEquals(created.version(), recovered.version());
+        assertEquals(0, new BigDecimal("90").compareTo(recovered.amount()));
+
+        second.transaction(owner, USD, withdrawTenUsd).block();
+        second.stop();
+        WalletService third = walletServiceWithLog(logDir);
+        assertEquals(0, new BigDecimal("80").compareTo(third.getWallet(owner, USD).block().amount()));
+        third.stop();
+    }
+
+    @Test
+    void createWallet_rejectsAddressTooLongToLog(@TempDir Path logDir) {
+        String owner = "testOwner";
+        WalletService service = walletServiceWithLog(logDir);
+
+        StepVerifier.create(service.createWallet(owner, USD, "a".repeat(0x10000)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(service.getWallet(owner, USD)).verifyComplete();
+        service.stop();
+
+        WalletService restarted = walletServiceWithLog(logDir);
+        StepVerifier.create(restarted.getWallet(owner, USD)).verifyComplete();
+        restarted.stop();
+    }
+
+    @Test
+    void createWallet_rejectsOwnerAndAddressTooLongToLogTogether(@TempDir Path logDir) {
+        String owner = "o".repeat(40_000);
+        WalletService service = walletServiceWithLog(logDir);
+
+        StepVerifier.create(service.createWallet(owner, USD, "a".repeat(40_000)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(service.getWallet(owner, USD)).verifyComplete();
+        service.stop();
+
+        WalletService restarted = walletServiceWithLog(logDir);
+        StepVerifier.create(restarted.getWallet(owner, USD)).verifyComplete();
+        restarted.stop();
+    }
+
+    @Test
+    void start_recoversFromSnapshotAndLogTail(@TempDir Path logDir) throws Exception {
+        String owner = "testOwner";
+        WalletService first = walletServiceWithLog(logDir);
+        first.assetWithOneAddress(Set.of(EUR.symbol()));
+        Wallet usd = first.createWallet(owner, USD).block();
+        Wallet eur = first.createWallet(owner, EUR).block();
+        assertNotNull(usd);
+        assertNotNull(eur);
+        first.setState(usd, ONLINE).block();
+        first.transaction(owner, USD, deposit100Usd).block();
+        first.snapshot();
+        first.transaction(owner, USD, withdrawTenUsd).block();
+        first.stop();
+
+        try (Stream<Path> files = Files.list(logDir)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".snap")).count());
+        }
+        WalletService second = walletServiceWithLog(logDir);
+        Wallet recovered = second.getWallet(owner, USD).block();
+
+        assertNotNull(recovered);
+        assertEquals(0, new BigDecimal("90").compareTo(recovered.amount()));
+        assertEquals(usd.version(), recovered.version());
+        assertNotNull(second.getWallet(owner, EUR).block());
+        StepVerifier.create(second.createWallet(owner, EUR))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        second.stop();
+    }
 }